@@ -0,0 +1,66 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.jcstress;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.Expect;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import com.flowpowered.events.Order;
+import com.flowpowered.events.SimpleEventManager;
+import com.flowpowered.events.jcstress.StressEvents.CountedEvent;
+
+/**
+ * Registers the first listener of a class to a parent manager while a child manager calls an event of that class, which makes the child create its own list inheriting the parent's.
+ */
+@JCStressTest
+@Description ("Register to a parent manager vs callEvent on its child")
+@Outcome (id = "0, 1", expect = Expect.ACCEPTABLE, desc = "Called before the registration")
+@Outcome (id = "1, 1", expect = Expect.ACCEPTABLE, desc = "Called after the registration")
+@Outcome (expect = Expect.FORBIDDEN, desc = "The child lost the inherited registration")
+@State
+public class InheritedRegisterDispatchTest {
+    private final SimpleEventManager parent = new SimpleEventManager();
+    private final SimpleEventManager child = parent.createChild();
+
+    @Actor
+    public void registerToParent() {
+        parent.registerEvent(CountedEvent.class, Order.DEFAULT, StressEvents.counter(), this);
+    }
+
+    @Actor
+    public void dispatchOnChild(II_Result r) {
+        r.r1 = child.callEvent(new CountedEvent()).getCalls();
+    }
+
+    @Arbiter
+    public void check(II_Result r) {
+        r.r2 = child.callEvent(new CountedEvent()).getCalls();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.jcstress;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.Expect;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import com.flowpowered.events.Order;
+import com.flowpowered.events.SimpleEventManager;
+import com.flowpowered.events.jcstress.StressEvents.SubCountedEvent;
+
+/**
+ * Calls an event of a class the manager has no handler list for yet, while the first listener of the class is registered and the lists of the class and its superclass are created.
+ */
+@JCStressTest
+@Description ("newHandlerList vs callEvent")
+@Outcome (id = "0, 1", expect = Expect.ACCEPTABLE, desc = "Called before the list was created")
+@Outcome (id = "1, 1", expect = Expect.ACCEPTABLE, desc = "Called after the registration")
+@Outcome (expect = Expect.FORBIDDEN, desc = "The registration was lost")
+@State
+public class NewHandlerListCallEventTest {
+    private final SimpleEventManager manager = new SimpleEventManager();
+
+    @Actor
+    public void register() {
+        manager.registerEvent(SubCountedEvent.class, Order.DEFAULT, StressEvents.counter(), this);
+    }
+
+    @Actor
+    public void dispatch(II_Result r) {
+        r.r1 = manager.callEvent(new SubCountedEvent()).getCalls();
+    }
+
+    @Arbiter
+    public void check(II_Result r) {
+        r.r2 = manager.callEvent(new SubCountedEvent()).getCalls();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.jcstress;
+
+import java.util.Arrays;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.Expect;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import com.flowpowered.events.HandlerList;
+
+/**
+ * Registers a batch to the list of a superclass, which marks the lists of its subclasses dirty, while the list of a subclass is baked for the first time.
+ */
+@JCStressTest
+@Description ("Parent dirty() vs child bake")
+@Outcome (id = "1, 3", expect = Expect.ACCEPTABLE, desc = "Child baked before the batch")
+@Outcome (id = "3, 3", expect = Expect.ACCEPTABLE, desc = "Child baked after the batch")
+@Outcome (expect = Expect.FORBIDDEN, desc = "Child saw part of the batch, or kept a stale array")
+@State
+public class ParentDirtyChildBakeTest {
+    private final HandlerList parent = new HandlerList();
+    private final HandlerList child = new HandlerList(parent);
+
+    public ParentDirtyChildBakeTest() {
+        child.register(StressEvents.registration(this));
+        parent.bake();
+    }
+
+    @Actor
+    public void registerToParent() {
+        parent.registerAll(Arrays.asList(StressEvents.registration(this), StressEvents.registration(this)));
+    }
+
+    @Actor
+    public void bakeChild(II_Result r) {
+        r.r1 = child.getRegisteredListeners().length;
+    }
+
+    @Arbiter
+    public void check(II_Result r) {
+        r.r2 = child.getRegisteredListeners().length;
+    }
+}
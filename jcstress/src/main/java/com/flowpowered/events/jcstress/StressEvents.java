@@ -0,0 +1,72 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.jcstress;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventException;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.InlineEvent;
+import com.flowpowered.events.ListenerRegistration;
+import com.flowpowered.events.Order;
+
+/**
+ * Events and listeners shared by the stress tests. Every test uses fresh instances, so the results only depend on the interleaving of the actors.
+ */
+public final class StressEvents {
+    private StressEvents() {
+    }
+
+    /**
+     * Counts how many handlers it was passed to. Events are dispatched on the calling thread, so the count needs no synchronization.
+     */
+    public static class CountedEvent extends InlineEvent {
+        private int calls = 0;
+
+        public int getCalls() {
+            return calls;
+        }
+    }
+
+    public static class SubCountedEvent extends CountedEvent {
+    }
+
+    /**
+     * @return a new executor counting the calls of the {@link CountedEvent}s it handles
+     */
+    public static EventExecutor counter() {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) throws EventException {
+                ((CountedEvent) event).calls++;
+            }
+        };
+    }
+
+    /**
+     * @return a new registration of a {@link #counter()}
+     */
+    public static ListenerRegistration registration(Object owner) {
+        return new ListenerRegistration(counter(), Order.DEFAULT, owner);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.jcstress;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.Expect;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import com.flowpowered.events.HandlerList;
+import com.flowpowered.events.ListenerRegistration;
+
+/**
+ * Removes the registrations of one owner while the list is baked. Both owners have two registrations, so a bake must never observe a removal halfway through.
+ */
+@JCStressTest
+@Description ("Unregister(owner) vs bake")
+@Outcome (id = "4, 2", expect = Expect.ACCEPTABLE, desc = "Baked before the removal")
+@Outcome (id = "2, 2", expect = Expect.ACCEPTABLE, desc = "Baked after the removal")
+@Outcome (expect = Expect.FORBIDDEN, desc = "Torn or stale handler array")
+@State
+public class UnregisterOwnerBakeTest {
+    private final Object removed = new Object();
+    private final Object kept = new Object();
+    private final HandlerList list = new HandlerList();
+
+    public UnregisterOwnerBakeTest() {
+        list.register(StressEvents.registration(removed));
+        list.register(StressEvents.registration(kept));
+        list.register(StressEvents.registration(removed));
+        list.register(StressEvents.registration(kept));
+    }
+
+    @Actor
+    public void unregister() {
+        list.unregister(removed);
+    }
+
+    @Actor
+    public void bake(II_Result r) {
+        r.r1 = count(list.bake());
+    }
+
+    @Arbiter
+    public void check(II_Result r) {
+        r.r2 = count(list.getRegisteredListeners());
+    }
+
+    /**
+     * @return the length of the array, or -1 if it has a hole or a registration of an unknown owner
+     */
+    private int count(ListenerRegistration[] baked) {
+        for (ListenerRegistration registration : baked) {
+            if (registration == null || registration.getOwner() != removed && registration.getOwner() != kept) {
+                return -1;
+            }
+        }
+        return baked.length;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.jfr;
+
+import jdk.jfr.EventType;
+
+import com.flowpowered.events.DispatchTracer;
+import com.flowpowered.events.Event;
+import com.flowpowered.events.ListenerRegistration;
+
+/**
+ * A {@link DispatchTracer} that emits JDK Flight Recorder events, so event dispatch shows up per event type and per listener in recordings.<br> Which dispatches end up in a recording is
+ * controlled through the usual JFR settings of the {@code com.flowpowered.events.Dispatch} and {@code com.flowpowered.events.ListenerInvocation} event types, most importantly their thresholds.
+ * While JFR is not recording them, no event objects are created.<br> Requires a Java 11 or newer runtime.
+ */
+public class JfrDispatchTracer implements DispatchTracer {
+    private final EventType dispatchType = EventType.getEventType(JfrDispatchEvent.class);
+    private final EventType listenerType = EventType.getEventType(JfrListenerEvent.class);
+    private final boolean traceListeners;
+
+    /**
+     * Creates a tracer that only records dispatches.
+     */
+    public JfrDispatchTracer() {
+        this(false);
+    }
+
+    /**
+     * @param traceListeners whether to also record an event for every listener invocation
+     */
+    public JfrDispatchTracer(boolean traceListeners) {
+        this.traceListeners = traceListeners;
+    }
+
+    @Override
+    public Object dispatchStarted(Event<?> event, int listeners) {
+        if (!dispatchType.isEnabled()) {
+            return null;
+        }
+        JfrDispatchEvent dispatch = new JfrDispatchEvent();
+        dispatch.begin();
+        return dispatch;
+    }
+
+    @Override
+    public void dispatchFinished(Object context, Event<?> event, int listeners, boolean cancelled) {
+        JfrDispatchEvent dispatch = (JfrDispatchEvent) context;
+        dispatch.end();
+        if (dispatch.shouldCommit()) {
+            dispatch.eventClass = event.getClass();
+            dispatch.listeners = listeners;
+            dispatch.cancelled = cancelled;
+            dispatch.commit();
+        }
+    }
+
+    @Override
+    public Object listenerStarted(Event<?> event, ListenerRegistration registration) {
+        if (!traceListeners || !listenerType.isEnabled()) {
+            return null;
+        }
+        JfrListenerEvent invocation = new JfrListenerEvent();
+        invocation.begin();
+        return invocation;
+    }
+
+    @Override
+    public void listenerFinished(Object context, Event<?> event, ListenerRegistration registration) {
+        JfrListenerEvent invocation = (JfrListenerEvent) context;
+        invocation.end();
+        if (invocation.shouldCommit()) {
+            invocation.eventClass = event.getClass();
+            invocation.owner = String.valueOf(registration.getOwner());
+            invocation.handler = registration.getExecutor().toString();
+            invocation.order = registration.getOrder().name();
+            invocation.commit();
+        }
+    }
+}
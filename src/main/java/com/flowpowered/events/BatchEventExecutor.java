@@ -0,0 +1,40 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+/**
+ * Handles events in batches rather than one at a time, for listeners that are much more efficient when they can process many events at once, such as ones writing to a database.
+ *
+ * @see SimpleEventManager#registerBatchEvent(Class, Order, BatchEventExecutor, Object, int, long)
+ */
+public interface BatchEventExecutor {
+    /**
+     * Handles a batch of events. The events are in the order they were called in, and are passed as they are at the time of the call, so changes listeners made after this executor's order
+     * slot are visible. The array belongs to the executor.
+     *
+     * @param events the events, never empty
+     * @throws EventException if the batch could not be handled
+     */
+    public void execute(Event<?>[] events) throws EventException;
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.Arrays;
+
+/**
+ * Collects the events passed to it and hands them to a {@link BatchEventExecutor} once enough have been collected, once the first of them has waited long enough, or when it is flushed.<br>
+ * Batches are delivered one at a time, in order. A batch that fills up is delivered by the thread that called the event that filled it.<br> The buffer starts small and grows up to the batch
+ * size. A full buffer is handed to the executor as it is, any other batch is copied out at its size, so that the buffer can be reused.
+ */
+final class BatchingExecutor implements EventExecutor {
+    private static final int INITIAL_BUFFER_SIZE = 16;
+    private final SimpleEventManager manager;
+    private final HandlerList handlers;
+    private final BatchEventExecutor executor;
+    private final ListenerRegistration registration;
+    private final int maxBatchSize;
+    private final long maxDelay;
+    private final Object deliveryLock = new Object();
+    /**
+     * Null after a full buffer was handed to the executor, until the next event arrives.
+     */
+    private Event<?>[] buffer = null;
+    private int size = 0;
+    private long firstTick;
+
+    /**
+     * @param maxDelay the number of scheduler ticks the first event of a batch may wait for, or 0 for no limit
+     */
+    BatchingExecutor(SimpleEventManager manager, HandlerList handlers, BatchEventExecutor executor, Order order, Object owner, int maxBatchSize, long maxDelay) {
+        this.manager = manager;
+        this.handlers = handlers;
+        this.executor = executor;
+        this.registration = new ListenerRegistration(this, order, owner);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+    }
+
+    ListenerRegistration getRegistration() {
+        return registration;
+    }
+
+    @Override
+    public void execute(Event<?> event) {
+        boolean deliver;
+        synchronized (this) {
+            if (buffer == null) {
+                buffer = new Event<?>[Math.min(maxBatchSize, INITIAL_BUFFER_SIZE)];
+            } else if (size == buffer.length) {
+                // Beyond the batch size if another thread filled the buffer and is about to deliver it
+                buffer = Arrays.copyOf(buffer, size < maxBatchSize ? Math.min(size * 2, maxBatchSize) : size * 2);
+            }
+            buffer[size++] = event;
+            long now = manager.getScheduler().getCurrentTick();
+            if (size == 1) {
+                firstTick = now;
+            }
+            deliver = size >= maxBatchSize || maxDelay > 0 && now - firstTick >= maxDelay;
+        }
+        if (deliver) {
+            flush();
+        }
+    }
+
+    /**
+     * Delivers the collected events if the first of them has waited long enough.
+     *
+     * @param now the current tick of the scheduler
+     */
+    void flushExpired(long now) {
+        synchronized (this) {
+            if (size == 0 || maxDelay == 0 || now - firstTick < maxDelay) {
+                return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Delivers the collected events, if there are any.
+     */
+    void flush() {
+        synchronized (deliveryLock) {
+            Event<?>[] batch;
+            synchronized (this) {
+                if (size == 0) {
+                    return;
+                }
+                if (size == buffer.length) {
+                    batch = buffer;
+                    buffer = null;
+                } else {
+                    batch = Arrays.copyOf(buffer, size);
+                    Arrays.fill(buffer, 0, size, null);
+                }
+                size = 0;
+            }
+            try {
+                executor.execute(batch);
+                registration.batchDelivered();
+            } catch (Throwable t) {
+                manager.listenerFailed(handlers, batch[0], registration, t);
+            }
+        }
+    }
+
+    /**
+     * Drops the collected events without delivering them.
+     */
+    synchronized void discard() {
+        buffer = null;
+        size = 0;
+    }
+
+    boolean isOwnedBy(Object owner) {
+        return registration.getOwner() != null && registration.getOwner().equals(owner);
+    }
+}
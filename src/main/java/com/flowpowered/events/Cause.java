@@ -29,8 +29,16 @@ package com.flowpowered.events;
  * @param <T> source of the cause
  */
 public abstract class Cause<T> {
+    /**
+     * How many distinct lookups a single cause remembers.
+     */
+    private static final int MAX_CACHED_LOOKUPS = 8;
     private final Cause<?> parent;
     private final Cause<?> firstCause;
+    /**
+     * Results of previous {@link #first(Class)} and {@link #firstSource(Class)} calls. Causes are immutable, so these never need to be invalidated.
+     */
+    private volatile Lookup lookups = null;
 
     /**
      * Gets the source of the action
@@ -49,7 +57,11 @@ public abstract class Cause<T> {
      */
     public Cause(Cause<?> parent) {
         this.parent = parent;
-        this.firstCause = parent != null ? parent.firstCause : null;
+        if (parent == null) {
+            this.firstCause = null;
+        } else {
+            this.firstCause = parent.firstCause != null ? parent.firstCause : parent;
+        }
     }
 
     /**
@@ -71,5 +83,81 @@ public abstract class Cause<T> {
     public final Cause<?> getParent() {
         return parent;
     }
-}
 
+    /**
+     * Gets the nearest cause of the given type in the series of causes that led to this, starting with this cause itself.<br> Results are cached per cause, and causes sharing a parent share
+     * its cache, so repeated lookups on the same chain do not walk it again.
+     *
+     * @param type the type of cause to look for
+     * @return the nearest cause of that type, or null if there is none
+     */
+    public final <C extends Cause<?>> C first(Class<C> type) {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        return type.cast(lookup(type, false));
+    }
+
+    /**
+     * Gets the nearest source of the given type in the series of causes that led to this, starting with the source of this cause itself.
+     *
+     * @param type the type of source to look for
+     * @return the nearest source of that type, or null if there is none
+     * @see #first(Class)
+     */
+    public final <S> S firstSource(Class<S> type) {
+        Object source = getSource();
+        if (type.isInstance(source)) {
+            return type.cast(source);
+        }
+        return type.cast(lookup(type, true));
+    }
+
+    /**
+     * Checks whether a cause of the given type is part of the series of causes that led to this, including this cause itself.
+     *
+     * @param type the type of cause to look for
+     * @return true if there is a cause of that type
+     */
+    public final boolean contains(Class<? extends Cause<?>> type) {
+        return first(type) != null;
+    }
+
+    /**
+     * Looks up a cause or source of the given type among the parents of this cause, using and filling the cache.
+     */
+    private Object lookup(Class<?> type, boolean source) {
+        if (parent == null) {
+            return null;
+        }
+        Lookup head = lookups;
+        for (Lookup lookup = head; lookup != null; lookup = lookup.next) {
+            if (lookup.type == type && lookup.source == source) {
+                return lookup.result;
+            }
+        }
+        Object result = source ? parent.firstSource(type) : parent.first(type.asSubclass(Cause.class));
+        int size = head == null ? 0 : head.size;
+        if (size < MAX_CACHED_LOOKUPS) {
+            // Racing threads may drop each other's entries, which only costs a repeated lookup
+            lookups = new Lookup(type, source, result, head);
+        }
+        return result;
+    }
+
+    private static final class Lookup {
+        private final Class<?> type;
+        private final boolean source;
+        private final Object result;
+        private final Lookup next;
+        private final int size;
+
+        private Lookup(Class<?> type, boolean source, Object result, Lookup next) {
+            this.type = type;
+            this.source = source;
+            this.result = result;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+}
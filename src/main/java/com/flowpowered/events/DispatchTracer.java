@@ -0,0 +1,70 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+/**
+ * Receives timing callbacks around event dispatches and listener invocations of a {@link SimpleEventManager}, for example to feed a profiler.<br> Each start callback returns a context object
+ * which is handed back to the matching finish callback. Returning null skips the finish callback, which lets implementations cheaply ignore dispatches they are not interested in.<br> A JDK Flight
+ * Recorder implementation, which needs Java 11, lives in the separate flow-events-jfr module.
+ *
+ * @see SimpleEventManager#setDispatchTracer(DispatchTracer)
+ */
+public interface DispatchTracer {
+    /**
+     * Called before an event is passed to its listeners.
+     *
+     * @param event the event being called
+     * @param listeners the number of listeners registered for the event
+     * @return a context for {@link #dispatchFinished(Object, Event, int, boolean)}, or null
+     */
+    public Object dispatchStarted(Event<?> event, int listeners);
+
+    /**
+     * Called after an event has been passed to all its listeners.
+     *
+     * @param context the context returned by {@link #dispatchStarted(Event, int)}
+     * @param event the called event
+     * @param listeners the number of listeners registered for the event
+     * @param cancelled whether the event ended up cancelled
+     */
+    public void dispatchFinished(Object context, Event<?> event, int listeners, boolean cancelled);
+
+    /**
+     * Called before a single listener is invoked.
+     *
+     * @param event the event being called
+     * @param registration the registration about to be invoked
+     * @return a context for {@link #listenerFinished(Object, Event, ListenerRegistration)}, or null
+     */
+    public Object listenerStarted(Event<?> event, ListenerRegistration registration);
+
+    /**
+     * Called after a single listener has been invoked, whether it failed or not.
+     *
+     * @param context the context returned by {@link #listenerStarted(Event, ListenerRegistration)}
+     * @param event the event being called
+     * @param registration the invoked registration
+     */
+    public void listenerFinished(Object context, Event<?> event, ListenerRegistration registration);
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the calls of one event class. Every thread adds to one of several stripes, each on a cache line of its own, so threads calling the same event class rarely contend. Reading sums the
+ * stripes up.
+ */
+final class EventCounters {
+    private static final int STRIPES = stripes();
+    /**
+     * Longs per stripe, enough to give each stripe a cache line of its own.
+     */
+    private static final int STRIDE = 8;
+    private static final int CALLS = 0;
+    private static final int LISTENERS = 1;
+    private static final int CANCELLED = 2;
+    private static final int UNHEARD = 3;
+    // One stride of padding on either end keeps the outer stripes off the lines of neighbouring objects
+    private final AtomicLongArray cells = new AtomicLongArray((STRIPES + 2) * STRIDE);
+
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * Counts a call.
+     *
+     * @param heard whether there were any listeners for the event
+     * @param executed the number of listeners that were called
+     * @param cancelled whether the event ended up cancelled
+     */
+    void called(boolean heard, int executed, boolean cancelled) {
+        int base = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * STRIDE + STRIDE;
+        cells.incrementAndGet(base + CALLS);
+        if (!heard) {
+            cells.incrementAndGet(base + UNHEARD);
+        }
+        if (executed > 0) {
+            cells.addAndGet(base + LISTENERS, executed);
+        }
+        if (cancelled) {
+            cells.incrementAndGet(base + CANCELLED);
+        }
+    }
+
+    @SuppressWarnings ("unchecked")
+    EventStatistics snapshot(Class<?> eventClass) {
+        // Only ever counted for event classes
+        return new EventStatistics((Class<? extends Event<?>>) eventClass, sum(CALLS), sum(LISTENERS), sum(CANCELLED), sum(UNHEARD));
+    }
+
+    private long sum(int counter) {
+        long sum = 0;
+        for (int stripe = 1; stripe <= STRIPES; stripe++) {
+            sum += cells.get(stripe * STRIDE + counter);
+        }
+        return sum;
+    }
+}
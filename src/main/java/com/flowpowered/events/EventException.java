@@ -25,15 +25,51 @@ package com.flowpowered.events;
 
 @SuppressWarnings ("serial")
 public class EventException extends Exception {
+    private final boolean stackless;
+
     public EventException(String message) {
         super(message);
+        this.stackless = false;
     }
 
     public EventException(String message, Throwable cause) {
         super(message, cause);
+        this.stackless = false;
     }
 
     public EventException(Throwable cause) {
         super(cause);
+        this.stackless = false;
+    }
+
+    /**
+     * Creates an exception that optionally skips filling in its stack trace. Stackless exceptions are cheap to throw, and are meant for expected failures or for wrapping a cause that already
+     * carries the relevant stack trace.
+     *
+     * @param message the detail message
+     * @param cause the cause, may be null
+     * @param writableStackTrace false to create the exception without a stack trace
+     */
+    public EventException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+        this.stackless = !writableStackTrace;
+    }
+
+    /**
+     * Creates an exception that optionally skips filling in its stack trace.
+     *
+     * @param cause the cause
+     * @param writableStackTrace false to create the exception without a stack trace
+     * @see #EventException(String, Throwable, boolean)
+     */
+    public EventException(Throwable cause, boolean writableStackTrace) {
+        this(cause == null ? null : cause.toString(), cause, writableStackTrace);
+    }
+
+    /**
+     * @return true if this exception was created without a stack trace
+     */
+    public boolean isStackless() {
+        return stackless;
     }
 }
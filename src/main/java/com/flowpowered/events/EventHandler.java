@@ -35,4 +35,13 @@ import java.lang.annotation.Target;
 @Retention (RetentionPolicy.RUNTIME)
 public @interface EventHandler {
     Order order() default Order.DEFAULT;
+
+    /**
+     * Whether this handler is safe to run at the same time as other concurrent handlers of the same order.<br> Consecutive concurrent handlers of an order slot are called in parallel when
+     * the manager has an executor for them, and the next order slot only starts once they have all finished. Cancelling the event from one of them does not stop the others of the stage,
+     * it only takes effect for the listeners after the stage.
+     *
+     * @see SimpleEventManager#setConcurrentExecutor(java.util.concurrent.ForkJoinPool)
+     */
+    boolean concurrent() default false;
 }
@@ -49,6 +49,27 @@ public interface EventManager {
      */
     public <U extends EventParameter, T extends Event<U>> List<U> callEventWithParameters(T event, List<U> parameters);
 
+    /**
+     * Calls an event once the given number of ticks of the {@link EventScheduler} of this manager have passed
+     *
+     * @param <T> the type of event
+     * @param event the event to call
+     * @param delay the number of ticks to wait, at least 1
+     * @return the scheduled event, which can be cancelled
+     */
+    public <T extends Event<?>> ScheduledEvent<T> callEventLater(T event, long delay);
+
+    /**
+     * Calls an event every {@code period} ticks of the {@link EventScheduler} of this manager, until it is cancelled
+     *
+     * @param <T> the type of event
+     * @param event the event to call
+     * @param delay the number of ticks to wait until the first call, at least 1
+     * @param period the number of ticks between two calls, at least 1
+     * @return the scheduled event, which can be cancelled
+     */
+    public <T extends Event<?>> ScheduledEvent<T> callEventRepeating(T event, long delay, long period);
+
     /**
      * Unregisters all the events in the given listener class
      *
@@ -64,10 +85,11 @@ public interface EventManager {
     public void unRegisterEventsByOwner(Object owner);
 
     /**
-     * Registers all the events in the given listener class
+     * Registers all the events in the given listener class. If one of its handlers is already registered, none of them are.
      *
      * @param listener Listener to register
      * @param owner Owner to register the event for
+     * @throws IllegalStateException if one of the handlers is already registered
      */
     public void registerEvents(Object listener, Object owner);
 
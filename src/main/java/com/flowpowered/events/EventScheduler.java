@@ -0,0 +1,366 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calls events on an {@link EventManager} after a number of ticks, once or repeatedly.<br> Events wait in a hierarchical timing wheel: {@value #LEVELS} levels of {@value #SLOTS} slots, each
+ * level spanning {@value #SLOTS} times as many ticks as the one below. An event is put in the lowest level that reaches its deadline and moves down a level whenever the slot it is in comes up,
+ * so scheduling and cancelling take constant time no matter how many events are waiting, and a tick only touches the events that are due or move down.<br> Events can be scheduled and
+ * cancelled from any thread without blocking: they are pushed onto lock-free stacks, which the ticking thread drains at the start of every tick. The ticking thread is whichever calls
+ * {@link #tick()}, for example the main loop of a game, or the thread started by {@link #start(long, TimeUnit)}. Every tick, the events that are due are called one after another through
+ * {@link EventManager#callEvent(Event)} on that thread, in the order they were scheduled in.
+ */
+public class EventScheduler {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    @SuppressWarnings ("rawtypes")
+    private static final AtomicReferenceFieldUpdater<EventScheduler, ScheduledEvent> SCHEDULED = AtomicReferenceFieldUpdater.newUpdater(EventScheduler.class, ScheduledEvent.class, "scheduled");
+    @SuppressWarnings ("rawtypes")
+    private static final AtomicReferenceFieldUpdater<EventScheduler, ScheduledEvent> CANCELLED = AtomicReferenceFieldUpdater.newUpdater(EventScheduler.class, ScheduledEvent.class, "cancelled");
+    private final Logger logger = LoggerFactory.getLogger(EventScheduler.class.getSimpleName());
+    private final EventManager manager;
+    private final Runnable tickTask;
+    private final ScheduledEvent<?>[][] wheel = new ScheduledEvent<?>[LEVELS][SLOTS];
+    private volatile ScheduledEvent<?> scheduled = null;
+    private volatile ScheduledEvent<?> cancelled = null;
+    private volatile long currentTick = 0;
+    private ScheduledEvent<?>[] due = new ScheduledEvent<?>[16];
+    private int waiting = 0;
+    private Thread ticker = null;
+
+    /**
+     * @param manager the manager to call the events on
+     */
+    public EventScheduler(EventManager manager) {
+        this(manager, null);
+    }
+
+    /**
+     * @param manager the manager to call the events on
+     * @param tickTask run on the ticking thread after the due events of every tick have been called, or null
+     */
+    EventScheduler(EventManager manager, Runnable tickTask) {
+        this.manager = manager;
+        this.tickTask = tickTask;
+    }
+
+    /**
+     * Schedules an event to be called once.
+     *
+     * @param event the event to call
+     * @param delay the number of ticks to wait, at least 1
+     * @return the scheduled event, which can be cancelled
+     */
+    public <T extends Event<?>> ScheduledEvent<T> schedule(T event, long delay) {
+        return schedule(event, delay, 0);
+    }
+
+    /**
+     * Schedules an event to be called repeatedly, until it is cancelled. The same event instance is passed to the listeners every time.
+     *
+     * @param event the event to call
+     * @param delay the number of ticks to wait until the first call, at least 1
+     * @param period the number of ticks between two calls, at least 1
+     * @return the scheduled event, which can be cancelled
+     */
+    public <T extends Event<?>> ScheduledEvent<T> scheduleRepeating(T event, long delay, long period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Period has to be at least one tick");
+        }
+        return schedule(event, delay, period);
+    }
+
+    private <T extends Event<?>> ScheduledEvent<T> schedule(T event, long delay, long period) {
+        if (event == null) {
+            throw new IllegalArgumentException("Event cannot be null");
+        }
+        if (delay < 1) {
+            throw new IllegalArgumentException("Delay has to be at least one tick");
+        }
+        ScheduledEvent<T> scheduledEvent = new ScheduledEvent<>(this, event, delay, period);
+        ScheduledEvent<?> head;
+        do {
+            head = scheduled;
+            scheduledEvent.nextScheduled = head;
+        } while (!SCHEDULED.compareAndSet(this, head, scheduledEvent));
+        return scheduledEvent;
+    }
+
+    /**
+     * Hands a cancelled event to the ticking thread, which removes it from the wheel.
+     */
+    void cancelled(ScheduledEvent<?> scheduledEvent) {
+        ScheduledEvent<?> head;
+        do {
+            head = cancelled;
+            scheduledEvent.nextCancelled = head;
+        } while (!CANCELLED.compareAndSet(this, head, scheduledEvent));
+    }
+
+    /**
+     * @return the number of ticks that have passed
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Advances the scheduler by one tick on the calling thread, and calls the events that are due. Events scheduled while they are called, with a delay of one tick, are called on the next
+     * tick.
+     *
+     * @return the number of events called
+     */
+    public synchronized int tick() {
+        long now = currentTick;
+        addScheduled(now);
+        removeCancelled();
+        now++;
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((now & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                cascade(level, (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK, now);
+            }
+        }
+        int count = collectDue((int) now & SLOT_MASK, now);
+        currentTick = now;
+        for (int i = 0; i < count; i++) {
+            ScheduledEvent<?> scheduledEvent = due[i];
+            due[i] = null;
+            if (scheduledEvent.getPeriod() != 0 ? scheduledEvent.isWaiting() : scheduledEvent.complete()) {
+                try {
+                    manager.callEvent(scheduledEvent.getEvent());
+                } catch (RuntimeException e) {
+                    logger.error("Could not call scheduled event {}", scheduledEvent.getEvent(), e);
+                }
+            }
+        }
+        if (tickTask != null) {
+            tickTask.run();
+        }
+        return count;
+    }
+
+    /**
+     * Moves the events scheduled since the last tick into the wheel, in the order they were scheduled in.
+     */
+    private void addScheduled(long now) {
+        ScheduledEvent<?> head = SCHEDULED.getAndSet(this, null);
+        ScheduledEvent<?> reversed = null;
+        while (head != null) {
+            ScheduledEvent<?> next = head.nextScheduled;
+            head.nextScheduled = reversed;
+            reversed = head;
+            head = next;
+        }
+        while (reversed != null) {
+            ScheduledEvent<?> next = reversed.nextScheduled;
+            reversed.nextScheduled = null;
+            if (reversed.isWaiting()) {
+                reversed.deadline = now + reversed.delay;
+                insert(reversed, now);
+                waiting++;
+            }
+            reversed = next;
+        }
+    }
+
+    private void removeCancelled() {
+        ScheduledEvent<?> head = CANCELLED.getAndSet(this, null);
+        while (head != null) {
+            ScheduledEvent<?> next = head.nextCancelled;
+            head.nextCancelled = null;
+            if (head.bucket != null) {
+                unlink(head);
+                waiting--;
+            }
+            head = next;
+        }
+    }
+
+    /**
+     * Puts an event into the lowest level whose slots reach its deadline. Events too far ahead for the highest level wait in the slot that comes up last, and are put back from there.
+     */
+    private void insert(ScheduledEvent<?> scheduledEvent, long now) {
+        long delta = scheduledEvent.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int shift = SLOT_BITS * level;
+        long position = scheduledEvent.deadline >>> shift;
+        if (position - (now >>> shift) > SLOTS) {
+            position = now >>> shift;
+        }
+        ScheduledEvent<?>[] bucket = wheel[level];
+        int slot = (int) position & SLOT_MASK;
+        // Append, so events due on the same tick are called in the order they were scheduled in
+        ScheduledEvent<?> head = bucket[slot];
+        scheduledEvent.bucket = bucket;
+        scheduledEvent.slot = slot;
+        scheduledEvent.next = null;
+        if (head == null) {
+            scheduledEvent.prev = scheduledEvent;
+            bucket[slot] = scheduledEvent;
+        } else {
+            ScheduledEvent<?> tail = head.prev;
+            tail.next = scheduledEvent;
+            scheduledEvent.prev = tail;
+            head.prev = scheduledEvent;
+        }
+    }
+
+    /**
+     * Removes an event from its slot. The head of a slot links back to its tail, so appending stays constant time.
+     */
+    private void unlink(ScheduledEvent<?> scheduledEvent) {
+        ScheduledEvent<?>[] bucket = scheduledEvent.bucket;
+        int slot = scheduledEvent.slot;
+        ScheduledEvent<?> head = bucket[slot];
+        ScheduledEvent<?> next = scheduledEvent.next;
+        if (scheduledEvent == head) {
+            bucket[slot] = next;
+            if (next != null) {
+                next.prev = scheduledEvent.prev;
+            }
+        } else {
+            scheduledEvent.prev.next = next;
+            if (next != null) {
+                next.prev = scheduledEvent.prev;
+            } else {
+                head.prev = scheduledEvent.prev;
+            }
+        }
+        scheduledEvent.bucket = null;
+        scheduledEvent.prev = null;
+        scheduledEvent.next = null;
+    }
+
+    /**
+     * Moves the events of a slot that has come up into the levels below.
+     */
+    private void cascade(int level, int slot, long now) {
+        ScheduledEvent<?> scheduledEvent = wheel[level][slot];
+        wheel[level][slot] = null;
+        while (scheduledEvent != null) {
+            ScheduledEvent<?> next = scheduledEvent.next;
+            insert(scheduledEvent, now);
+            scheduledEvent = next;
+        }
+    }
+
+    /**
+     * Takes the events that are due out of the wheel, putting the repeating ones back for their next call.
+     *
+     * @return the number of due events
+     */
+    private int collectDue(int slot, long now) {
+        ScheduledEvent<?> scheduledEvent = wheel[0][slot];
+        wheel[0][slot] = null;
+        int count = 0;
+        while (scheduledEvent != null) {
+            ScheduledEvent<?> next = scheduledEvent.next;
+            scheduledEvent.bucket = null;
+            scheduledEvent.prev = null;
+            scheduledEvent.next = null;
+            if (count == due.length) {
+                due = Arrays.copyOf(due, count * 2);
+            }
+            due[count++] = scheduledEvent;
+            if (scheduledEvent.getPeriod() != 0 && scheduledEvent.isWaiting()) {
+                scheduledEvent.deadline = now + scheduledEvent.getPeriod();
+                insert(scheduledEvent, now);
+            } else {
+                waiting--;
+            }
+            scheduledEvent = next;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of events in the wheel as of the last tick, without the ones scheduled or cancelled since
+     */
+    public synchronized int getWaitingCount() {
+        return waiting;
+    }
+
+    /**
+     * Starts a daemon thread that ticks this scheduler at a fixed rate. Ticks missed because events took too long to handle are caught up with right away.
+     *
+     * @param tickDuration the time between two ticks
+     * @param unit the unit of the duration
+     * @throws IllegalStateException if a thread has already been started
+     */
+    public synchronized void start(long tickDuration, TimeUnit unit) {
+        if (ticker != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        final long tickNanos = unit.toNanos(tickDuration);
+        if (tickNanos < 1) {
+            throw new IllegalArgumentException("Tick duration has to be positive");
+        }
+        ticker = new Thread("EventScheduler") {
+            @Override
+            public void run() {
+                long next = System.nanoTime() + tickNanos;
+                while (!isInterrupted()) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(wait);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    tick();
+                    next += tickNanos;
+                }
+            }
+        };
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Stops the thread started by {@link #start(long, TimeUnit)}. Waiting events stay scheduled.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            thread = ticker;
+            ticker = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+/**
+ * How often an event class has been called on a {@link SimpleEventManager}, taken at one point in time.
+ *
+ * @see SimpleEventManager#setStatisticsEnabled(boolean)
+ */
+public final class EventStatistics {
+    private final Class<? extends Event<?>> eventClass;
+    private final long calls;
+    private final long listenerCalls;
+    private final long cancelled;
+    private final long unheard;
+
+    EventStatistics(Class<? extends Event<?>> eventClass, long calls, long listenerCalls, long cancelled, long unheard) {
+        this.eventClass = eventClass;
+        this.calls = calls;
+        this.listenerCalls = listenerCalls;
+        this.cancelled = cancelled;
+        this.unheard = unheard;
+    }
+
+    public Class<? extends Event<?>> getEventClass() {
+        return eventClass;
+    }
+
+    /**
+     * @return how many times events of the class have been called
+     */
+    public long getCallCount() {
+        return calls;
+    }
+
+    /**
+     * Gets how many listeners have been called in total. Listeners which were skipped are not counted: suspended ones, those which do not accept the type token of a {@link GenericEvent} and
+     * those which do not ignore cancellation once the event was cancelled.
+     *
+     * @return how many listeners have been called
+     */
+    public long getListenerCallCount() {
+        return listenerCalls;
+    }
+
+    /**
+     * @return how many of the events ended up cancelled
+     */
+    public long getCancelledCount() {
+        return cancelled;
+    }
+
+    /**
+     * @return how many of the events were called while there were no listeners for them, and so were created for nothing. Events whose listeners were all skipped are not counted
+     */
+    public long getUnheardCount() {
+        return unheard;
+    }
+
+    /**
+     * @return the average number of listeners called per event, see {@link #getListenerCallCount()}
+     */
+    public double getAverageFanOut() {
+        return calls == 0 ? 0 : (double) listenerCalls / calls;
+    }
+
+    /**
+     * @return the fraction of the events that ended up cancelled
+     */
+    public double getCancellationRate() {
+        return calls == 0 ? 0 : (double) cancelled / calls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, %.2f listeners per call, %.1f%% cancelled, %d without listeners", eventClass.getName(), calls, getAverageFanOut(),
+                getCancellationRate() * 100, unheard);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+/**
+ * Calls every handler of one baked handler array from a single generated method, so each handler gets a call site of its own which the JIT can inline, instead of all event types sharing the
+ * one in {@link SimpleEventManager#callEvent(Event)}.<br> Subclasses are generated at runtime, see {@link SimpleEventManager#setFusionThreshold(int)}. This class is only public so they can
+ * extend it.
+ */
+public abstract class FusedDispatcher {
+    private final SimpleEventManager manager;
+    private final HandlerList handlers;
+    private final ListenerRegistration[] registrations;
+
+    protected FusedDispatcher(SimpleEventManager manager, HandlerList handlers, ListenerRegistration[] registrations) {
+        this.manager = manager;
+        this.handlers = handlers;
+        this.registrations = registrations;
+    }
+
+    /**
+     * Calls every handler on the event, in order, skipping suspended ones and those which do not ignore cancellation once the event is cancelled
+     *
+     * @param event the event to call
+     * @return the number of handlers called
+     */
+    public abstract int dispatch(Event<?> event);
+
+    protected static boolean isCancelled(Event<?> event) {
+        return SimpleEventManager.isCancelled(event);
+    }
+
+    protected static void called(Event<?> event) {
+        SimpleEventManager.setCalled(event);
+    }
+
+    protected final boolean isSuspended(int index) {
+        return registrations[index].isSuspended();
+    }
+
+    protected final void succeeded(int index) {
+        registrations[index].succeeded();
+    }
+
+    /**
+     * Handles an exception thrown by the executor of a handler.
+     */
+    protected final void failed(int index, Event<?> event, Throwable t) {
+        manager.listenerFailed(handlers, event, registrations[index], t);
+    }
+
+    /**
+     * Handles an exception thrown by a handler method that was called directly, wrapping it the way its executor would have.
+     */
+    protected final void invocationFailed(int index, Event<?> event, Throwable t) {
+        failed(index, event, t instanceof EventException ? t : new EventException(t, false));
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates {@link FusedDispatcher}s. Handlers registered from public methods of public listener classes are called directly, all others through their {@link EventExecutor}.<br> Every
+ * generated class gets a class loader of its own, so it can be unloaded once the handler array it was generated for is replaced.
+ */
+final class FusedDispatcherGenerator implements Opcodes {
+    /**
+     * Keeps the generated method well below the size limit of the class file format.
+     */
+    static final int MAX_HANDLERS = 256;
+    private static final AtomicInteger ids = new AtomicInteger();
+    private static final String BASE = Type.getInternalName(FusedDispatcher.class);
+    private static final String EVENT = Type.getDescriptor(Event.class);
+    private static final String EXECUTOR = Type.getInternalName(EventExecutor.class);
+    private static final String CONSTRUCTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(SimpleEventManager.class), Type.getType(HandlerList.class),
+            Type.getType(ListenerRegistration[].class), Type.getType(Object[].class));
+    private static final String FAILED = "(I" + EVENT + "Ljava/lang/Throwable;)V";
+
+    private FusedDispatcherGenerator() {
+    }
+
+    static FusedDispatcher generate(SimpleEventManager manager, HandlerList handlers, ListenerRegistration[] registrations) throws ReflectiveOperationException {
+        int count = registrations.length;
+        Object[] targets = new Object[count];
+        Method[] methods = new Method[count];
+        Map<String, Class<?>> types = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            EventExecutor executor = registrations[i].getExecutor();
+            Method method = SimpleEventManager.getHandlerMethod(executor);
+            if (method != null && isAccessible(method) && addTypes(types, method)) {
+                methods[i] = method;
+                targets[i] = SimpleEventManager.getHandlerListener(executor);
+            } else {
+                targets[i] = executor;
+            }
+        }
+        String name = "com/flowpowered/events/fused/Dispatcher" + ids.incrementAndGet();
+        byte[] bytes = generate(name, registrations, methods);
+        Class<?> generated = new FusedClassLoader(types).define(name.replace('/', '.'), bytes);
+        return (FusedDispatcher) generated.getConstructor(SimpleEventManager.class, HandlerList.class, ListenerRegistration[].class, Object[].class)
+                .newInstance(manager, handlers, registrations, targets);
+    }
+
+    private static boolean isAccessible(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())
+                && Modifier.isPublic(method.getParameterTypes()[0].getModifiers()) && !method.getDeclaringClass().isInterface();
+    }
+
+    /**
+     * Adds the classes a call to a handler method refers to to those of the generated class. A class can only refer to one class of each name, so a method which refers to a class that has the
+     * same name as a different one already referred to, from another class loader, is left to its executor.
+     *
+     * @return true if the method can be called directly
+     */
+    private static boolean addTypes(Map<String, Class<?>> types, Method method) {
+        List<Class<?>> referenced = new ArrayList<>(3);
+        referenced.add(method.getDeclaringClass());
+        referenced.add(method.getParameterTypes()[0]);
+        Class<?> result = method.getReturnType();
+        while (result.isArray()) {
+            result = result.getComponentType();
+        }
+        if (!result.isPrimitive()) {
+            referenced.add(result);
+        }
+        Map<String, Class<?>> added = new HashMap<>();
+        for (Class<?> type : referenced) {
+            Class<?> known = types.get(type.getName());
+            if (known == null) {
+                known = added.put(type.getName(), type);
+            }
+            if (known != null && known != type) {
+                return false;
+            }
+        }
+        types.putAll(added);
+        return true;
+    }
+
+    private static byte[] generate(String name, ListenerRegistration[] registrations, Method[] methods) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // Locals never change type within the generated methods, so frames never have to merge two different types
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V1_7, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, null, BASE, null);
+        for (int i = 0; i < methods.length; i++) {
+            cw.visitField(ACC_PRIVATE | ACC_FINAL, "target" + i, targetDescriptor(methods[i]), null, null).visitEnd();
+        }
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR, null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", CONSTRUCTOR.replace("[Ljava/lang/Object;", ""), false);
+        for (int i = 0; i < methods.length; i++) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 4);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(AALOAD);
+            mv.visitTypeInsn(CHECKCAST, methods[i] != null ? Type.getInternalName(methods[i].getDeclaringClass()) : EXECUTOR);
+            mv.visitFieldInsn(PUTFIELD, name, "target" + i, targetDescriptor(methods[i]));
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(ACC_PUBLIC, "dispatch", "(" + EVENT + ")I", null, null);
+        mv.visitCode();
+        // Local 2 holds a caught exception, local 3 counts the handlers called
+        mv.visitInsn(ICONST_0);
+        mv.visitVarInsn(ISTORE, 3);
+        for (int i = 0; i < methods.length; i++) {
+            Label next = new Label();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitLdcInsn(i);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "isSuspended", "(I)Z", false);
+            mv.visitJumpInsn(IFNE, next);
+            if (!registrations[i].getOrder().ignoresCancelled()) {
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitMethodInsn(INVOKESTATIC, BASE, "isCancelled", "(" + EVENT + ")Z", false);
+                mv.visitJumpInsn(IFNE, next);
+            }
+            Label start = new Label();
+            Label end = new Label();
+            Label handler = new Label();
+            mv.visitIincInsn(3, 1);
+            mv.visitTryCatchBlock(start, end, handler, "java/lang/Throwable");
+            mv.visitLabel(start);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, "target" + i, targetDescriptor(methods[i]));
+            mv.visitVarInsn(ALOAD, 1);
+            if (methods[i] != null) {
+                Method method = methods[i];
+                mv.visitTypeInsn(CHECKCAST, Type.getInternalName(method.getParameterTypes()[0]));
+                mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(method.getDeclaringClass()), method.getName(), Type.getMethodDescriptor(method), false);
+                Type result = Type.getReturnType(method);
+                if (result.getSize() > 0) {
+                    mv.visitInsn(result.getSize() == 2 ? POP2 : POP);
+                }
+            } else {
+                mv.visitMethodInsn(INVOKEINTERFACE, EXECUTOR, "execute", "(" + EVENT + ")V", true);
+            }
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitLdcInsn(i);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASE, "succeeded", "(I)V", false);
+            mv.visitLabel(end);
+            mv.visitJumpInsn(GOTO, next);
+            mv.visitLabel(handler);
+            mv.visitVarInsn(ASTORE, 2);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitLdcInsn(i);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASE, methods[i] != null ? "invocationFailed" : "failed", FAILED, false);
+            mv.visitLabel(next);
+        }
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESTATIC, BASE, "called", "(" + EVENT + ")V", false);
+        mv.visitVarInsn(ILOAD, 3);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static String targetDescriptor(Method method) {
+        return method != null ? Type.getDescriptor(method.getDeclaringClass()) : "L" + EXECUTOR + ";";
+    }
+
+    /**
+     * Resolves the listener and event classes a generated dispatcher refers to to the exact classes it was generated for, whichever loaders they come from.
+     */
+    private static final class FusedClassLoader extends ClassLoader {
+        private final Map<String, Class<?>> types;
+
+        private FusedClassLoader(Map<String, Class<?>> types) {
+            super(FusedDispatcher.class.getClassLoader());
+            this.types = types;
+        }
+
+        private Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Class<?> type = types.get(name);
+            return type != null ? type : super.loadClass(name, resolve);
+        }
+    }
+}
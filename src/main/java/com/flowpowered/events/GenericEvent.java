@@ -0,0 +1,38 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+/**
+ * Interface for events with a type parameter, such as an event about an entity of some kind, which want handlers to be able to subscribe to a single type argument.<br> A handler declared as
+ * {@code onDamage(EntityDamageEvent<Player> event)} is only called for events whose type token is {@code Player} or a subclass of it, while a handler of the raw or wildcard type receives every
+ * such event. The type argument of a handler is resolved from its first type argument once, at registration.
+ */
+public interface GenericEvent {
+    /**
+     * Gets the runtime class of the first type argument of this event. Handlers whose resolved type argument is not assignable from it are skipped.
+     *
+     * @return the type token, or null to only reach handlers without a type argument
+     */
+    public Class<?> getTypeToken();
+}
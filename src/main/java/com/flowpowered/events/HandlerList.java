@@ -23,27 +23,83 @@
  */
 package com.flowpowered.events;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.EnumMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * A list of event handlers, stored per-event.
+ * A list of event handlers, stored per-event.<br> Single registrations and removals are spliced into the already baked handler arrays of this list and its children, so a change to a list with
+ * many subclasses does not force each of them into a full rebake.
  */
 public final class HandlerList {
+    private static final ListenerRegistration[] NO_REGISTRATIONS = new ListenerRegistration[0];
+    private static final HandlerList[] NO_CHILDREN = new HandlerList[0];
+    private static final Inheritor[] NO_INHERITORS = new Inheritor[0];
     /**
-     * Handler array. This field being an array is the key to this system's speed.
+     * Once a list has more registrations than this, duplicates are detected with a hash set rather than by scanning the order slot.
      */
-    private ListenerRegistration[] handlers = null;
+    private static final int INDEX_THRESHOLD = 16;
     /**
-     * Returns the Dynamic handler lists.<br> These are changed using register() and unregister()<br> Changes automatically baked to the handlers array any time they have changed.
+     * Batches of up to this many registrations are spliced into the baked arrays one at a time, each splice copying every baked array of the hierarchy once. Larger batches are merged in one
+     * pass and the baked arrays of this list, its children and inheritors are invalidated instead, to be rebuilt on their next dispatch.
      */
-    private final EnumMap<Order, List<ListenerRegistration>> handlerSlots;
-    private final CopyOnWriteArrayList<HandlerList> children = new CopyOnWriteArrayList<>(); // Not modified that much, it's fine
+    private static final int SPLICE_THRESHOLD = 8;
+    private static final Comparator<ListenerRegistration> BY_ORDER = new Comparator<ListenerRegistration>() {
+        @Override
+        public int compare(ListenerRegistration o1, ListenerRegistration o2) {
+            return Integer.compare(o1.getOrder().getIndex(), o2.getOrder().getIndex());
+        }
+    };
+    /**
+     * Handler array. This field being an array is the key to this system's speed.<br> The array is never modified once published, changes replace it with a new copy.
+     */
+    private volatile ListenerRegistration[] handlers = null;
+    /**
+     * The registrations of this list, not including inherited ones, sorted by order and then by the time they were registered. Only the first {@link #size} entries are used.<br> Changed
+     * using register() and unregister(). Changes automatically baked to the handlers array any time they have changed.
+     */
+    private ListenerRegistration[] registrations = NO_REGISTRATIONS;
+    private int size = 0;
+    /**
+     * Every registration in {@link #registrations}, used for duplicate detection once there are too many to scan the order slot. Null until then.
+     */
+    private Set<ListenerRegistration> registered = null;
+    private volatile HandlerList[] children = NO_CHILDREN; // Not modified that much, copied on write
     private final HandlerList parent;
+    /**
+     * The list of the same event class in the parent {@link SimpleEventManager}, whose handlers follow the ones of this list and its parents within each order slot. Guarded by {@link #lock}.
+     */
+    private HandlerList inherited;
+    /**
+     * The lists of child managers which inherit the handlers of this one. They are only weakly referenced, so a child manager that is dropped without being detached can still be collected.
+     * Collected ones are skipped, and pruned when the array is next copied.
+     */
+    private volatile Inheritor[] inheritors = NO_INHERITORS;
+    /**
+     * Concurrent stages of the current handler array, recomputed whenever the array is replaced.
+     */
+    private volatile ConcurrentStages stages = null;
+    /**
+     * Handler arrays filtered by {@link GenericEvent} type token, for the current handler array.
+     */
+    private volatile TypedTables typed = null;
+    /**
+     * How often the current handler array was dispatched, and the fused dispatcher generated for it.
+     */
+    private volatile FusedState fused = null;
+    /**
+     * Guards every mutation. Shared by the whole hierarchy, since changes to a list are propagated into the arrays of its children.
+     */
+    private final Object lock;
 
     /**
      * Create a new handler list and initialize using EventPriority The HandlerList is then added to meta-list for use in bakeAll()
@@ -53,15 +109,32 @@ public final class HandlerList {
     }
 
     public HandlerList(HandlerList parent) {
-        handlerSlots = new EnumMap<>(Order.class);
-        for (Order o : Order.values()) {
-            handlerSlots.put(o, new ArrayList<ListenerRegistration>());
-        }
+        this(parent, null);
+    }
 
+    /**
+     * @param parent the list of the superclass of the event, or null
+     * @param inherited the list of the same event class in a parent manager, or null
+     */
+    public HandlerList(HandlerList parent, HandlerList inherited) {
         this.parent = parent;
+        this.inherited = inherited;
+        if (parent != null) {
+            this.lock = parent.lock;
+        } else if (inherited != null) {
+            this.lock = inherited.lock;
+        } else {
+            this.lock = new Object();
+        }
+        if (parent != null && inherited != null && parent.lock != inherited.lock) {
+            throw new IllegalArgumentException("The parent list has to inherit from a parent of the inherited list");
+        }
         if (parent != null) {
             parent.addChild(this);
         }
+        if (inherited != null) {
+            inherited.addInheritor(this);
+        }
     }
 
     /**
@@ -70,16 +143,65 @@ public final class HandlerList {
      * @param listener listener to register
      */
     public void register(ListenerRegistration listener) {
-        if (handlerSlots.get(listener.getOrder()).contains(listener)) {
-            throw new IllegalStateException("This listener is already registered to priority " + listener.getOrder().toString());
+        synchronized (lock) {
+            if (indexOf(listener) >= 0) {
+                throw new IllegalStateException("This listener is already registered to priority " + listener.getOrder().toString());
+            }
+            int order = listener.getOrder().getIndex();
+            int start = slotStart(registrations, size, order);
+            int end = slotStart(registrations, size, order + 1);
+            ensureCapacity(size + 1);
+            System.arraycopy(registrations, end, registrations, end + 1, size - end);
+            registrations[end] = listener;
+            size++;
+            index(Collections.singletonList(listener));
+            inserted(listener, end - start);
         }
-        dirty();
-        handlerSlots.get(listener.getOrder()).add(listener);
     }
 
+    /**
+     * Register several listeners at once. Up to {@link #SPLICE_THRESHOLD} listeners are spliced into the baked arrays of this list and its children, larger batches invalidate those arrays once,
+     * no matter how many listeners are added.<br> If any of the listeners is already registered, none of them are.
+     *
+     * @param listeners listeners to register
+     */
     public void registerAll(Collection<ListenerRegistration> listeners) {
-        for (ListenerRegistration listener : listeners) {
-            register(listener);
+        synchronized (lock) {
+            Set<ListenerRegistration> added = new HashSet<>();
+            for (ListenerRegistration listener : listeners) {
+                if (indexOf(listener) >= 0 || !added.add(listener)) {
+                    throw new IllegalStateException("This listener is already registered to priority " + listener.getOrder().toString());
+                }
+            }
+            if (added.isEmpty()) {
+                return;
+            }
+            ListenerRegistration[] incoming = listeners.toArray(new ListenerRegistration[listeners.size()]);
+            // Stable, so listeners of the same order stay in the order they were registered in
+            Arrays.sort(incoming, BY_ORDER);
+            ensureCapacity(size + incoming.length);
+            if (incoming.length <= SPLICE_THRESHOLD) {
+                for (ListenerRegistration listener : incoming) {
+                    int order = listener.getOrder().getIndex();
+                    int start = slotStart(registrations, size, order);
+                    int end = slotStart(registrations, size, order + 1);
+                    System.arraycopy(registrations, end, registrations, end + 1, size - end);
+                    registrations[end] = listener;
+                    size++;
+                    inserted(listener, end - start);
+                }
+                index(listeners);
+                return;
+            }
+            // Merge from the back, so only the registrations of later orders have to move
+            int i = size - 1;
+            int j = incoming.length - 1;
+            for (int k = size + incoming.length - 1; j >= 0; k--) {
+                registrations[k] = i >= 0 && registrations[i].getOrder().getIndex() > incoming[j].getOrder().getIndex() ? registrations[i--] : incoming[j--];
+            }
+            size += incoming.length;
+            index(listeners);
+            dirty();
         }
     }
 
@@ -89,31 +211,141 @@ public final class HandlerList {
      * @param listener listener to remove
      */
     public void unregister(ListenerRegistration listener) {
-        if (handlerSlots.get(listener.getOrder()).remove(listener)) {
-            dirty();
+        synchronized (lock) {
+            int index = indexOf(listener);
+            if (index < 0) {
+                return;
+            }
+            Set<ListenerRegistration> removed = newIdentitySet();
+            removed.add(registrations[index]);
+            removeLocal(removed);
+            removed(removed);
+        }
+    }
+
+    /**
+     * Remove several listeners at once. The baked arrays of this list and its children are only updated once, no matter how many listeners are removed.
+     *
+     * @param listeners listeners to remove
+     */
+    public void unregisterAll(Collection<ListenerRegistration> listeners) {
+        synchronized (lock) {
+            Set<ListenerRegistration> removed = newIdentitySet();
+            for (ListenerRegistration listener : listeners) {
+                int index = indexOf(listener);
+                if (index >= 0) {
+                    removed.add(registrations[index]);
+                }
+            }
+            if (!removed.isEmpty()) {
+                removeLocal(removed);
+                removed(removed);
+            }
+        }
+    }
+
+    /**
+     * Remove a registration from this list or, if it was inherited, from the parent it was registered to. Unlike {@link #unregister(ListenerRegistration)} this only removes that exact
+     * registration instance.
+     *
+     * @param listener listener to remove
+     * @return true if the registration was found
+     */
+    boolean unregisterInherited(ListenerRegistration listener) {
+        synchronized (lock) {
+            int order = listener.getOrder().getIndex();
+            for (HandlerList list = this; list != null; list = list.parent) {
+                ListenerRegistration[] local = list.registrations;
+                for (int i = slotStart(local, list.size, order); i < list.size && local[i].getOrder() == listener.getOrder(); i++) {
+                    if (local[i] == listener) {
+                        Set<ListenerRegistration> removed = newIdentitySet();
+                        removed.add(listener);
+                        list.removeLocal(removed);
+                        list.removed(removed);
+                        return true;
+                    }
+                }
+            }
+            return inherited != null && inherited.unregisterInherited(listener);
         }
     }
 
     public void unregister(Object owner) {
-        boolean changed = false;
-        for (List<ListenerRegistration> list : handlerSlots.values()) {
-            for (ListIterator<ListenerRegistration> i = list.listIterator(); i.hasNext(); ) {
-                if (i.next().getOwner().equals(owner)) {
-                    i.remove();
-                    changed = true;
+        synchronized (lock) {
+            Set<ListenerRegistration> removed = newIdentitySet();
+            for (int i = 0; i < size; i++) {
+                if (Objects.equals(registrations[i].getOwner(), owner)) {
+                    removed.add(registrations[i]);
                 }
             }
+            if (!removed.isEmpty()) {
+                removeLocal(removed);
+                removed(removed);
+            }
         }
-        if (changed) {
+    }
+
+    public void unregisterAll() {
+        synchronized (lock) {
+            registrations = NO_REGISTRATIONS;
+            size = 0;
+            registered = null;
             dirty();
         }
     }
 
-    public void unregisterAll() {
-        for (List<ListenerRegistration> regs : handlerSlots.values()) {
-            regs.clear();
+    /**
+     * Finds a registration equal to the given one among the registrations of this list.
+     *
+     * @return the index in {@link #registrations}, or -1 if there is none
+     */
+    private int indexOf(ListenerRegistration listener) {
+        if (registered != null && !registered.contains(listener)) {
+            return -1;
+        }
+        int order = listener.getOrder().getIndex();
+        for (int i = slotStart(registrations, size, order); i < size && registrations[i].getOrder() == listener.getOrder(); i++) {
+            if (registrations[i].equals(listener)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds new registrations to {@link #registered}, creating it once the list has grown past {@link #INDEX_THRESHOLD}.
+     */
+    private void index(Collection<ListenerRegistration> added) {
+        if (registered != null) {
+            registered.addAll(added);
+        } else if (size > INDEX_THRESHOLD) {
+            registered = new HashSet<>(Arrays.asList(registrations).subList(0, size));
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > registrations.length) {
+            registrations = Arrays.copyOf(registrations, Math.max(capacity, registrations.length + (registrations.length >> 1)));
+        }
+    }
+
+    /**
+     * Drops registrations from {@link #registrations} without touching any baked array.
+     *
+     * @param removed the registrations to drop, compared by identity
+     */
+    private void removeLocal(Set<ListenerRegistration> removed) {
+        int remaining = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.contains(registrations[i])) {
+                registrations[remaining++] = registrations[i];
+            }
+        }
+        Arrays.fill(registrations, remaining, size, null);
+        size = remaining;
+        if (registered != null) {
+            registered.removeAll(removed);
         }
-        handlers = null;
     }
 
     /**
@@ -122,25 +354,304 @@ public final class HandlerList {
      * @return The baked array of ListenerRegistrations
      */
     public ListenerRegistration[] bake() {
-        if (handlers != null) {
-            return handlers; // don't re-bake when still valid
+        ListenerRegistration[] baked = handlers;
+        if (baked != null) {
+            return baked; // don't re-bake when still valid
         }
-        List<ListenerRegistration> entries = new ArrayList<>();
-        for (Order order : Order.values()) {
-            addAllListeners(entries, order);
+        synchronized (lock) {
+            baked = handlers;
+            if (baked == null) {
+                if (parent == null && inherited == null) {
+                    baked = Arrays.copyOf(registrations, size);
+                } else {
+                    baked = new ListenerRegistration[bakedSize()];
+                    int length = 0;
+                    for (Order order : Order.values()) {
+                        length = bakeSlot(baked, length, order.getIndex());
+                    }
+                }
+                handlers = baked;
+            }
+            return baked;
         }
-        handlers = entries.toArray(new ListenerRegistration[entries.size()]);
-        return handlers;
     }
 
-    private void addAllListeners(List<ListenerRegistration> entries, Order order) {
-        List<ListenerRegistration> entry = handlerSlots.get(order);
-        if (entry != null) {
-            entries.addAll(entry);
+    /**
+     * @return the number of registrations of this list, its parents and the lists it inherits from
+     */
+    private int bakedSize() {
+        int total = 0;
+        for (HandlerList list = this; list != null; list = list.parent) {
+            total += list.size;
         }
+        return inherited != null ? total + inherited.bakedSize() : total;
+    }
 
-        if (parent != null) {
-            parent.addAllListeners(entries, order);
+    /**
+     * Copies the registrations of an order slot into a baked array: those of this list, then those of its parents, then those of the list it inherits from.
+     *
+     * @return the length of the baked array so far
+     */
+    private int bakeSlot(ListenerRegistration[] baked, int length, int order) {
+        for (HandlerList list = this; list != null; list = list.parent) {
+            int start = slotStart(list.registrations, list.size, order);
+            int end = slotStart(list.registrations, list.size, order + 1);
+            System.arraycopy(list.registrations, start, baked, length, end - start);
+            length += end - start;
+        }
+        return inherited != null ? inherited.bakeSlot(baked, length, order) : length;
+    }
+
+    /**
+     * @return the number of registrations in an order slot of this list and its parents, without the ones it inherits
+     */
+    private int localSlotSize(int order) {
+        int total = 0;
+        for (HandlerList list = this; list != null; list = list.parent) {
+            total += slotStart(list.registrations, list.size, order + 1) - slotStart(list.registrations, list.size, order);
+        }
+        return total;
+    }
+
+    /**
+     * Stops inheriting from the list of the parent manager, the handlers of which are dropped from this list and its children.
+     */
+    void detach() {
+        synchronized (lock) {
+            if (inherited != null) {
+                inherited.removeInheritor(this);
+                inherited = null;
+                dirty();
+            }
+        }
+    }
+
+    /**
+     * Groups consecutive concurrent listeners of the same order into stages which may be run in parallel.
+     *
+     * @param baked an array returned by {@link #bake()}
+     * @return for each index of {@code baked}, the exclusive end index of the stage starting there, or null if there are no stages of more than one listener
+     */
+    int[] getConcurrentStages(ListenerRegistration[] baked) {
+        ConcurrentStages current = stages;
+        if (current == null || current.handlers != baked) {
+            current = new ConcurrentStages(baked);
+            stages = current;
+        }
+        return current.ends;
+    }
+
+    /**
+     * Filters a baked array down to the registrations that receive {@link GenericEvent}s with the given type token. The filtered arrays are cached per type token until the handler array
+     * changes. If no registration has a type argument, the baked array is returned as is.
+     *
+     * @param baked an array returned by {@link #bake()}
+     * @param typeToken the type token of the event, or null
+     * @return the registrations to call
+     */
+    ListenerRegistration[] getRegisteredListeners(ListenerRegistration[] baked, Class<?> typeToken) {
+        TypedTables current = typed;
+        if (current == null || current.handlers != baked) {
+            current = new TypedTables(baked);
+            typed = current;
+        }
+        if (current.tables == null) {
+            return baked;
+        }
+        Class<?> key = typeToken != null ? typeToken : void.class;
+        ListenerRegistration[] table = current.tables.get(key);
+        if (table == null) {
+            List<ListenerRegistration> accepted = new ArrayList<>(baked.length);
+            for (ListenerRegistration registration : baked) {
+                if (registration.accepts(typeToken)) {
+                    accepted.add(registration);
+                }
+            }
+            table = accepted.size() == baked.length ? baked : accepted.toArray(new ListenerRegistration[accepted.size()]);
+            current.tables.putIfAbsent(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Gets the fused dispatcher of a baked array, generating it once the array has been dispatched {@code threshold} times. A dispatcher is only generated once per array, later arrays get
+     * their own.
+     *
+     * @param baked an array returned by {@link #bake()}
+     * @param threshold the number of calls after which a dispatcher is generated
+     * @param manager the manager to generate the dispatcher for
+     * @return the dispatcher, or null if the array should be iterated
+     */
+    FusedDispatcher getFusedDispatcher(ListenerRegistration[] baked, int threshold, SimpleEventManager manager) {
+        FusedState current = fused;
+        if (current == null || current.handlers != baked) {
+            current = new FusedState(baked);
+            fused = current;
+        }
+        FusedDispatcher dispatcher = current.dispatcher;
+        // The count is racy, a few lost increments only delay the generation
+        if (dispatcher == null && !current.attempted && current.calls++ >= threshold) {
+            dispatcher = current.generate(manager, this);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Splices a newly registered listener into the baked array of this list, if there is one, and into those of all children and inheritors.<br> Within an order slot, the baked array holds
+     * the listeners of this list first, followed by the ones of its parents and finally the ones inherited from the parent manager. Children only see the listeners of this list and its parents,
+     * they get the ones of the parent manager through lists of their own.
+     *
+     * @param listener the registered listener
+     * @param offset the position of the listener among the baked entries of its order slot
+     */
+    private void inserted(ListenerRegistration listener, int offset) {
+        inserted(listener, offset, false);
+    }
+
+    /**
+     * @param fromInherited whether the listener was registered to the parent manager
+     */
+    private void inserted(ListenerRegistration listener, int offset, boolean fromInherited) {
+        ListenerRegistration[] baked = handlers;
+        if (baked != null) {
+            int index = slotStart(baked, baked.length, listener.getOrder().getIndex()) + offset;
+            ListenerRegistration[] spliced = new ListenerRegistration[baked.length + 1];
+            System.arraycopy(baked, 0, spliced, 0, index);
+            spliced[index] = listener;
+            System.arraycopy(baked, index, spliced, index + 1, baked.length - index);
+            handlers = spliced;
+        }
+        int order = listener.getOrder().getIndex();
+        if (!fromInherited) {
+            for (HandlerList child : children) {
+                child.inserted(listener, slotStart(child.registrations, child.size, order + 1) - slotStart(child.registrations, child.size, order) + offset, false);
+            }
+        }
+        for (Inheritor reference : inheritors) {
+            HandlerList inheritor = reference.get();
+            if (inheritor != null) {
+                inheritor.inserted(listener, inheritor.localSlotSize(order) + offset, true);
+            }
+        }
+    }
+
+    /**
+     * Removes the given registrations from the baked array of this list, if there is one, and from those of all children.
+     *
+     * @param removed the removed registrations, compared by identity
+     */
+    private void removed(Set<ListenerRegistration> removed) {
+        removed(removed, false);
+    }
+
+    private void removed(Set<ListenerRegistration> removed, boolean fromInherited) {
+        ListenerRegistration[] baked = handlers;
+        if (baked != null) {
+            ListenerRegistration[] remaining = new ListenerRegistration[baked.length];
+            int size = 0;
+            for (ListenerRegistration registration : baked) {
+                if (!removed.contains(registration)) {
+                    remaining[size++] = registration;
+                }
+            }
+            if (size != baked.length) {
+                ListenerRegistration[] trimmed = new ListenerRegistration[size];
+                System.arraycopy(remaining, 0, trimmed, 0, size);
+                handlers = trimmed;
+            }
+        }
+        if (!fromInherited) {
+            for (HandlerList child : children) {
+                child.removed(removed, false);
+            }
+        }
+        for (Inheritor reference : inheritors) {
+            HandlerList inheritor = reference.get();
+            if (inheritor != null) {
+                inheritor.removed(removed, true);
+            }
+        }
+    }
+
+    /**
+     * Finds the index of the first of the first {@code size} entries of an array sorted by order whose order index is not below the given one.
+     */
+    private static int slotStart(ListenerRegistration[] sorted, int size, int order) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].getOrder().getIndex() < order) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Set<ListenerRegistration> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<ListenerRegistration, Boolean>());
+    }
+
+    private static final class ConcurrentStages {
+        private final ListenerRegistration[] handlers;
+        private final int[] ends;
+
+        private ConcurrentStages(ListenerRegistration[] handlers) {
+            this.handlers = handlers;
+            int[] ends = new int[handlers.length];
+            boolean parallel = false;
+            for (int start = 0; start < handlers.length; ) {
+                int end = start + 1;
+                if (handlers[start].isConcurrent()) {
+                    while (end < handlers.length && handlers[end].isConcurrent() && handlers[end].getOrder() == handlers[start].getOrder()) {
+                        end++;
+                    }
+                }
+                parallel |= end - start > 1;
+                for (int i = start; i < end; i++) {
+                    ends[i] = end;
+                }
+                start = end;
+            }
+            this.ends = parallel ? ends : null;
+        }
+    }
+
+    private static final class TypedTables {
+        private final ListenerRegistration[] handlers;
+        /**
+         * Filtered arrays by type token, {@code void.class} standing in for null. Null if no registration has a type argument.
+         */
+        private final ConcurrentHashMap<Class<?>, ListenerRegistration[]> tables;
+
+        private TypedTables(ListenerRegistration[] handlers) {
+            this.handlers = handlers;
+            boolean any = false;
+            for (ListenerRegistration registration : handlers) {
+                any |= registration.getTypeArgument() != null;
+            }
+            this.tables = any ? new ConcurrentHashMap<Class<?>, ListenerRegistration[]>() : null;
+        }
+    }
+
+    private static final class FusedState {
+        private final ListenerRegistration[] handlers;
+        private int calls = 0;
+        private volatile boolean attempted = false;
+        private volatile FusedDispatcher dispatcher = null;
+
+        private FusedState(ListenerRegistration[] handlers) {
+            this.handlers = handlers;
+        }
+
+        private synchronized FusedDispatcher generate(SimpleEventManager manager, HandlerList list) {
+            if (!attempted) {
+                dispatcher = manager.generateDispatcher(list, handlers);
+                attempted = true;
+            }
+            return dispatcher;
         }
     }
 
@@ -149,6 +660,12 @@ public final class HandlerList {
         for (HandlerList child : children) {
             child.dirty();
         }
+        for (Inheritor reference : inheritors) {
+            HandlerList inheritor = reference.get();
+            if (inheritor != null) {
+                inheritor.dirty();
+            }
+        }
     }
 
     /**
@@ -161,10 +678,55 @@ public final class HandlerList {
     }
 
     protected void addChild(HandlerList handlerList) {
-        children.add(handlerList);
+        synchronized (lock) {
+            HandlerList[] updated = Arrays.copyOf(children, children.length + 1);
+            updated[children.length] = handlerList;
+            children = updated;
+        }
+    }
+
+    private void addInheritor(HandlerList handlerList) {
+        synchronized (lock) {
+            List<Inheritor> updated = liveInheritors(null);
+            updated.add(new Inheritor(handlerList));
+            inheritors = updated.toArray(new Inheritor[updated.size()]);
+        }
+    }
+
+    private void removeInheritor(HandlerList handlerList) {
+        List<Inheritor> updated = liveInheritors(handlerList);
+        inheritors = updated.toArray(new Inheritor[updated.size()]);
+    }
+
+    /**
+     * @param excluded an inheritor to leave out, or null
+     * @return the inheritors which have not been collected
+     */
+    private List<Inheritor> liveInheritors(HandlerList excluded) {
+        List<Inheritor> live = new ArrayList<>(inheritors.length + 1);
+        for (Inheritor reference : inheritors) {
+            HandlerList inheritor = reference.get();
+            if (inheritor != null && inheritor != excluded) {
+                live.add(reference);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * @return the number of inheritors which have not been collected
+     */
+    int getInheritorCount() {
+        return liveInheritors(null).size();
     }
 
     public boolean hasChildren() {
-        return children.size() > 0;
+        return children.length > 0;
+    }
+
+    private static final class Inheritor extends WeakReference<HandlerList> {
+        private Inheritor(HandlerList list) {
+            super(list);
+        }
     }
 }
@@ -23,6 +23,7 @@
  */
 package com.flowpowered.events;
 
+import java.lang.ref.WeakReference;
 import java.util.Objects;
 
 /**
@@ -31,7 +32,19 @@ import java.util.Objects;
 public class ListenerRegistration {
     private final EventExecutor executor;
     private final Order orderSlot;
+    /**
+     * Null if the owner is held weakly.
+     */
     private final Object owner;
+    private final WeakReference<Object> weakOwner;
+    private final boolean concurrent;
+    private final Class<?> typeArgument;
+    /**
+     * Shared by every registration of the same owner in a {@link SimpleEventManager}, so that the owner can be suspended without touching the handler lists.
+     */
+    OwnerState ownerState = OwnerState.ACTIVE;
+    private volatile int consecutiveFailures = 0;
+    private long failures = 0;
 
     /**
      * @param executor Listener this registration represents
@@ -39,9 +52,40 @@ public class ListenerRegistration {
      * @param owner object that created this registration
      */
     public ListenerRegistration(final EventExecutor executor, final Order orderSlot, final Object owner) {
+        this(executor, orderSlot, owner, false);
+    }
+
+    /**
+     * @param executor Listener this registration represents
+     * @param orderSlot Order position this registration is in
+     * @param owner object that created this registration
+     * @param concurrent whether the executor may run in parallel with other concurrent executors of the same order
+     */
+    public ListenerRegistration(final EventExecutor executor, final Order orderSlot, final Object owner, final boolean concurrent) {
+        this(executor, orderSlot, owner, concurrent, null);
+    }
+
+    /**
+     * @param executor Listener this registration represents
+     * @param orderSlot Order position this registration is in
+     * @param owner object that created this registration
+     * @param concurrent whether the executor may run in parallel with other concurrent executors of the same order
+     * @param typeArgument the type argument of {@link GenericEvent}s to receive, or null to receive all of them
+     */
+    public ListenerRegistration(final EventExecutor executor, final Order orderSlot, final Object owner, final boolean concurrent, final Class<?> typeArgument) {
+        this(executor, orderSlot, owner, concurrent, typeArgument, false);
+    }
+
+    /**
+     * @param weakOwner whether the owner should only be weakly referenced, for registrations of weakly referenced listeners which are often their own owner
+     */
+    ListenerRegistration(final EventExecutor executor, final Order orderSlot, final Object owner, final boolean concurrent, final Class<?> typeArgument, final boolean weakOwner) {
         this.executor = executor;
         this.orderSlot = orderSlot;
-        this.owner = owner;
+        this.owner = weakOwner ? null : owner;
+        this.weakOwner = weakOwner && owner != null ? new WeakReference<>(owner) : null;
+        this.concurrent = concurrent;
+        this.typeArgument = typeArgument == Object.class ? null : typeArgument;
     }
 
     /**
@@ -56,10 +100,11 @@ public class ListenerRegistration {
     /**
      * Gets the {@link Object} for this registration
      *
-     * @return Registered owner
+     * @return Registered owner, or null if it was only weakly referenced and has been garbage collected
+     * @see SimpleEventManager#registerEventsWeakly(Object, Object)
      */
     public Object getOwner() {
-        return owner;
+        return weakOwner != null ? weakOwner.get() : owner;
     }
 
     /**
@@ -71,6 +116,90 @@ public class ListenerRegistration {
         return orderSlot;
     }
 
+    /**
+     * Gets whether this registration may run in parallel with other concurrent registrations of the same order
+     *
+     * @return true if concurrent
+     * @see EventHandler#concurrent()
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Gets the type argument of {@link GenericEvent}s this registration receives
+     *
+     * @return the type argument, or null if it receives events of any type argument
+     */
+    public Class<?> getTypeArgument() {
+        return typeArgument;
+    }
+
+    /**
+     * Gets whether this registration receives a {@link GenericEvent} with the given type token
+     *
+     * @param typeToken the type token of the event, or null
+     * @return true if the event should be passed to the executor
+     */
+    public boolean accepts(Class<?> typeToken) {
+        return typeArgument == null || typeToken != null && typeArgument.isAssignableFrom(typeToken);
+    }
+
+    /**
+     * Gets whether the owner of this registration is suspended, in which case the executor is skipped
+     *
+     * @return true if suspended
+     * @see SimpleEventManager#suspendOwner(Object)
+     */
+    public boolean isSuspended() {
+        return ownerState.suspended;
+    }
+
+    /**
+     * Gets how many times the executor of this registration has failed in total
+     *
+     * @return number of failures
+     */
+    public synchronized long getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * Gets how many times in a row the executor of this registration has failed, since it last handled an event successfully
+     *
+     * @return number of consecutive failures
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Records a failure of the executor.
+     */
+    synchronized void failed() {
+        failures++;
+        consecutiveFailures++;
+    }
+
+    /**
+     * Records a successful call of the executor. Only writes when there were previous failures, so the common case is a single read. Collecting an event for a batch executor does not count,
+     * only delivering the batch does, see {@link #batchDelivered()}.
+     */
+    final void succeeded() {
+        if (consecutiveFailures != 0 && !(executor instanceof BatchingExecutor)) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    /**
+     * Records a successful delivery of a batch to the batch executor of this registration.
+     */
+    final void batchDelivered() {
+        if (consecutiveFailures != 0) {
+            consecutiveFailures = 0;
+        }
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
@@ -97,4 +226,14 @@ public class ListenerRegistration {
         return true;
     }
 
+    /**
+     * Whether the registrations of an owner are suspended.
+     */
+    static final class OwnerState {
+        /**
+         * The state of registrations made outside of a manager, which cannot be suspended.
+         */
+        static final OwnerState ACTIVE = new OwnerState();
+        volatile boolean suspended = false;
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+/**
+ * The default {@link ListenerErrorHandler}, which logs failed executors.<br> Logging can be rate limited per registration, in which case the number of suppressed messages is reported with the
+ * next logged one, and a registration can be unregistered automatically after too many consecutive failures.<br> {@link EventException}s without a stack trace are treated as expected failures
+ * and logged as a warning with only their message.
+ */
+public class LoggingErrorHandler implements ListenerErrorHandler {
+    private final Logger logger;
+    private final int maxLogsPerInterval;
+    private final long intervalNanos;
+    private final int maxConsecutiveFailures;
+    /**
+     * The rate limiting state of each registration that failed, dropped along with the registration. Equal registrations, such as one executor registered for several event types in the
+     * same order slot, share their state. Guarded by itself.
+     */
+    private final Map<ListenerRegistration, LogWindow> windows = new WeakHashMap<>();
+
+    /**
+     * Creates a handler which logs every failure and never unregisters anything.
+     *
+     * @param logger the logger to log to
+     */
+    public LoggingErrorHandler(Logger logger) {
+        this(logger, 0, 0, TimeUnit.NANOSECONDS, 0);
+    }
+
+    /**
+     * @param logger the logger to log to
+     * @param maxLogsPerInterval how many failures of a single registration are logged per interval, or 0 to log all of them
+     * @param interval the length of the rate limiting interval
+     * @param unit the unit of {@code interval}
+     * @param maxConsecutiveFailures after how many consecutive failures a registration is unregistered, or 0 to never unregister
+     */
+    public LoggingErrorHandler(Logger logger, int maxLogsPerInterval, long interval, TimeUnit unit, int maxConsecutiveFailures) {
+        if (maxLogsPerInterval < 0 || interval < 0 || maxConsecutiveFailures < 0) {
+            throw new IllegalArgumentException("Limits cannot be negative");
+        }
+        this.logger = logger;
+        this.maxLogsPerInterval = maxLogsPerInterval;
+        this.intervalNanos = unit.toNanos(interval);
+        this.maxConsecutiveFailures = maxConsecutiveFailures;
+    }
+
+    @Override
+    public boolean handleError(Event<?> event, ListenerRegistration registration, Throwable error) {
+        boolean unregister = maxConsecutiveFailures > 0 && registration.getConsecutiveFailures() >= maxConsecutiveFailures;
+        int suppressed = acquireLog(registration);
+        String owner = registration.getOwner() == null ? "null" : registration.getOwner().getClass().getName();
+        if (suppressed >= 0) {
+            if (suppressed > 0) {
+                logger.error("Suppressed {} more errors of a listener of {}", suppressed, owner);
+            }
+            if (error instanceof EventException && error.getCause() == null && ((EventException) error).isStackless()) {
+                logger.warn("Could not pass event {} to {}: {}", event.getEventName(), owner, error.getMessage());
+            } else {
+                // Wrapped exceptions carry the interesting stack trace in their cause
+                Throwable logged = error instanceof EventException && error.getCause() != null ? error.getCause() : error;
+                logger.error("Could not pass event {} to {}", event.getEventName(), owner, logged);
+            }
+        }
+        if (unregister) {
+            logger.error("Unregistering a listener of {} after {} consecutive failures", owner, registration.getConsecutiveFailures());
+        }
+        return unregister;
+    }
+
+    /**
+     * Checks whether a failure of the registration may be logged right now.
+     *
+     * @return -1 if the failure should not be logged, otherwise the number of failures that were not logged since the last one that was
+     */
+    private int acquireLog(ListenerRegistration registration) {
+        if (maxLogsPerInterval == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        synchronized (windows) {
+            LogWindow window = windows.get(registration);
+            if (window == null) {
+                window = new LogWindow();
+                windows.put(registration, window);
+            }
+            if (window.logs == 0 || now - window.start >= intervalNanos) {
+                window.start = now;
+                window.logs = 0;
+            }
+            if (window.logs >= maxLogsPerInterval) {
+                window.suppressed++;
+                return -1;
+            }
+            window.logs++;
+            int suppressed = window.suppressed;
+            window.suppressed = 0;
+            return suppressed;
+        }
+    }
+
+    private static final class LogWindow {
+        private long start = 0;
+        private int logs = 0;
+        private int suppressed = 0;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of registrations which is applied to a {@link SimpleEventManager} all at once. Nothing registered through a batch is called until {@link #commit()}, which then updates each affected
+ * {@link HandlerList} with a single invalidation and bakes it exactly once.
+ */
+public final class RegistrationBatch {
+    private final SimpleEventManager manager;
+    private final Map<Class<?>, List<ListenerRegistration>> registrations = new LinkedHashMap<>();
+    private boolean committed = false;
+
+    RegistrationBatch(SimpleEventManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Adds all the events in the given listener class to this batch
+     *
+     * @param listener Listener to register
+     * @param owner Owner to register the event for
+     * @return this batch
+     */
+    public RegistrationBatch registerEvents(Object listener, Object owner) {
+        checkNotCommitted();
+        manager.collectRegistrations(listener, owner, false, registrations);
+        return this;
+    }
+
+    /**
+     * Adds all the events in the given listener class to this batch, without keeping the listener from being garbage collected
+     *
+     * @param listener Listener to register
+     * @param owner Owner to register the event for
+     * @return this batch
+     * @see SimpleEventManager#registerEventsWeakly(Object, Object)
+     */
+    public RegistrationBatch registerEventsWeakly(Object listener, Object owner) {
+        checkNotCommitted();
+        manager.collectRegistrations(listener, owner, true, registrations);
+        return this;
+    }
+
+    /**
+     * Adds the specified executor for the given event class to this batch
+     *
+     * @param event SimpleEvent type to register
+     * @param priority Priority to register this event at
+     * @param executor EventExecutor to register
+     * @param owner Plugin to register
+     * @return this batch
+     */
+    public RegistrationBatch registerEvent(Class<? extends Event<?>> event, Order priority, EventExecutor executor, Object owner) {
+        checkNotCommitted();
+        SimpleEventManager.addRegistration(registrations, event, new ListenerRegistration(executor, priority, owner));
+        return this;
+    }
+
+    /**
+     * Applies every registration in this batch to the manager. A batch can only be committed once. If one of the registrations is already registered, none of them are.
+     *
+     * @throws IllegalStateException if one of the registrations is already registered
+     */
+    public void commit() {
+        checkNotCommitted();
+        committed = true;
+        manager.applyRegistrations(registrations);
+    }
+
+    private void checkNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("This batch has already been committed");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * An event waiting in an {@link EventScheduler} to be called.
+ *
+ * @param <T> the type of the event
+ */
+public final class ScheduledEvent<T extends Event<?>> {
+    static final int WAITING = 0;
+    static final int DONE = 1;
+    static final int CANCELLED = 2;
+    @SuppressWarnings ("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ScheduledEvent> STATE = AtomicIntegerFieldUpdater.newUpdater(ScheduledEvent.class, "state");
+    private final EventScheduler scheduler;
+    private final T event;
+    private final long period;
+    private volatile int state = WAITING;
+    /**
+     * Ticks from the moment the scheduler picks the event up until it is due.
+     */
+    final long delay;
+    /**
+     * Links of the stacks the event is handed to the scheduler through.
+     */
+    ScheduledEvent<?> nextScheduled;
+    ScheduledEvent<?> nextCancelled;
+    /**
+     * Position in the wheel, only touched by the ticking thread.
+     */
+    long deadline;
+    ScheduledEvent<?>[] bucket;
+    int slot = -1;
+    ScheduledEvent<?> prev;
+    ScheduledEvent<?> next;
+
+    ScheduledEvent(EventScheduler scheduler, T event, long delay, long period) {
+        this.scheduler = scheduler;
+        this.event = event;
+        this.delay = delay;
+        this.period = period;
+    }
+
+    public T getEvent() {
+        return event;
+    }
+
+    /**
+     * @return the number of ticks between two calls, or 0 if the event is only called once
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * Keeps the event from being called again. Takes effect immediately, even though the scheduler only drops the event on its next tick.
+     *
+     * @return true if the event was waiting, false if it had already been called once and does not repeat, or was cancelled before
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, WAITING, CANCELLED)) {
+            return false;
+        }
+        scheduler.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * @return true if the event does not repeat and has been called
+     */
+    public boolean isDone() {
+        return state == DONE;
+    }
+
+    /**
+     * Claims a one-off event to be called.
+     *
+     * @return false if it was cancelled
+     */
+    boolean complete() {
+        return STATE.compareAndSet(this, WAITING, DONE);
+    }
+
+    boolean isWaiting() {
+        return state == WAITING;
+    }
+}
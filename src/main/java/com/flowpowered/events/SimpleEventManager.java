@@ -23,14 +23,41 @@
  */
 package com.flowpowered.events;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,14 +67,296 @@ import org.slf4j.LoggerFactory;
  */
 public class SimpleEventManager implements EventManager {
     private final Logger logger;
+    private volatile ListenerErrorHandler errorHandler;
+    private volatile DispatchTracer tracer = null;
+    private volatile ForkJoinPool concurrentExecutor = null;
+    private volatile int fusionThreshold = 0;
+    private volatile boolean statisticsEnabled = false;
+    private final ConcurrentHashMap<Class<?>, EventCounters> counters = new ConcurrentHashMap<>();
+    private volatile boolean iterativeCascades = false;
+    private volatile int maxCascadeDepth = 64;
+    private volatile int maxCascadeEvents = 10000;
+    private final ThreadLocal<Cascade> cascades = new ThreadLocal<Cascade>() {
+        @Override
+        protected Cascade initialValue() {
+            return new Cascade();
+        }
+    };
+    private final AtomicLong deferredEvents = new AtomicLong();
+    private final AtomicLong droppedCascadeEvents = new AtomicLong();
+    private final AtomicInteger largestCascade = new AtomicInteger();
     private final Map<Class<? extends Event>, HandlerList> handlers = new ConcurrentHashMap<>(16, .75f, 4);
+    /**
+     * The manager whose listeners this one inherits, or null.
+     */
+    private volatile SimpleEventManager parent = null;
+    /**
+     * The handler methods of each listener class, so a class is only scanned once no matter how many instances of it are registered.
+     */
+    private final ClassValue<HandlerMethod[]> handlerMethods = new ClassValue<HandlerMethod[]>() {
+        @Override
+        protected HandlerMethod[] computeValue(Class<?> type) {
+            return findHandlerMethods(type);
+        }
+    };
+    /**
+     * Receives the references of weakly registered listeners once they have been garbage collected.
+     */
+    private final ReferenceQueue<Object> staleListeners = new ReferenceQueue<>();
+    private final EventScheduler scheduler = new EventScheduler(this, new Runnable() {
+        @Override
+        public void run() {
+            flushExpiredBatches();
+        }
+    });
+    private final List<BatchingExecutor> batchers = new CopyOnWriteArrayList<>();
+    /**
+     * The suspension state of each owner that has registered listeners or been suspended. Every registration of an owner refers to the same state, see {@link #suspendOwner(Object)}.<br> The
+     * owners are weakly referenced, so an owner whose registrations are gone can be collected. Its registrations refer to the owner themselves, so the state lives as long as any of them.
+     */
+    private final Map<Object, ListenerRegistration.OwnerState> owners = new WeakHashMap<>();
 
     public SimpleEventManager() {
         this.logger = LoggerFactory.getLogger(getClass().getSimpleName());
+        this.errorHandler = new LoggingErrorHandler(logger);
     }
 
     public SimpleEventManager(Logger logger) {
         this.logger = logger;
+        this.errorHandler = new LoggingErrorHandler(logger);
+    }
+
+    private SimpleEventManager(SimpleEventManager parent) {
+        this.logger = parent.logger;
+        this.errorHandler = parent.errorHandler;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates a manager which inherits the listeners of this one, for example to scope listeners to a single world. Events called on the child reach the listeners registered to it as well as
+     * the ones registered to this manager and its own parents, which run after the child's own within each order slot. Events called on this manager never reach the listeners of its
+     * children.<br> The child starts out with the error handler of this manager, all other settings are its own. This manager only references the child weakly, so a child which is no longer
+     * used can be dropped without detaching it.
+     *
+     * @return the new child manager
+     * @see #detach()
+     */
+    public SimpleEventManager createChild() {
+        return new SimpleEventManager(this);
+    }
+
+    /**
+     * @return the manager whose listeners this one inherits, or null
+     */
+    public SimpleEventManager getParent() {
+        return parent;
+    }
+
+    /**
+     * Stops inheriting the listeners of the parent manager, which then no longer keeps track of this one. This takes time in proportion to the number of event types this manager has
+     * handlers for, not to the number of listeners of the parent.
+     */
+    public void detach() {
+        synchronized (this.handlers) {
+            if (parent == null) {
+                return;
+            }
+            parent = null;
+            for (HandlerList list : this.handlers.values()) {
+                list.detach();
+            }
+        }
+    }
+
+    /**
+     * Sets what to do when a listener throws while handling an event. By default every failure is logged.
+     *
+     * @param errorHandler the new error handler
+     */
+    public void setErrorHandler(ListenerErrorHandler errorHandler) {
+        if (errorHandler == null) {
+            throw new IllegalArgumentException("Error handler cannot be null");
+        }
+        this.errorHandler = errorHandler;
+    }
+
+    public ListenerErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    /**
+     * Sets the tracer that is notified of every dispatch and listener invocation, or null to disable tracing. Without a tracer, dispatch pays for nothing but a single null check.
+     *
+     * @param tracer the new tracer, or null
+     */
+    public void setDispatchTracer(DispatchTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public DispatchTracer getDispatchTracer() {
+        return tracer;
+    }
+
+    /**
+     * Sets the pool that runs stages of concurrent listeners in parallel, or null to call them one after the other like any other listener.<br> Cancellation is only checked before a stage
+     * starts. All listeners of a stage are started together, so when one of them cancels the event the others of the stage still run, and only the following stages are skipped.
+     *
+     * @param pool the pool to use, or null
+     * @see EventHandler#concurrent()
+     */
+    public void setConcurrentExecutor(ForkJoinPool pool) {
+        this.concurrentExecutor = pool;
+    }
+
+    public ForkJoinPool getConcurrentExecutor() {
+        return concurrentExecutor;
+    }
+
+    /**
+     * Enables fused dispatch: once an event type has been called this many times with the same handlers, a class is generated that calls all of them from one method, giving each handler a
+     * call site the JIT can inline. It is regenerated after the handlers of the type change. Types called less often keep iterating over the handler array. Events are not dispatched through
+     * fused dispatchers while tracing, when running concurrent stages or when a {@link GenericEvent} has to be routed by its type token.
+     *
+     * @param calls the number of calls after which a dispatcher is generated, or 0 to disable fused dispatch
+     * @see FusedDispatcher
+     */
+    public void setFusionThreshold(int calls) {
+        if (calls < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        this.fusionThreshold = calls;
+    }
+
+    public int getFusionThreshold() {
+        return fusionThreshold;
+    }
+
+    /**
+     * Enables counting the calls of every event class: how often it was called, how many listeners it actually reached, how often it ended up cancelled and how often it was called without any listeners,
+     * in which case constructing the event was wasted. The counters are striped, so threads calling the same event class rarely contend on them. Disabled by default, in which case it costs a
+     * single flag check per call.
+     *
+     * @param enabled whether to count calls
+     * @see #getStatistics()
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Gets what has been counted for every event class called since statistics were enabled or last reset, see {@link #setStatisticsEnabled(boolean)}.
+     *
+     * @return the statistics, the most called event class first
+     */
+    public List<EventStatistics> getStatistics() {
+        List<EventStatistics> statistics = new ArrayList<>(counters.size());
+        for (Map.Entry<Class<?>, EventCounters> entry : counters.entrySet()) {
+            statistics.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        Collections.sort(statistics, new Comparator<EventStatistics>() {
+            @Override
+            public int compare(EventStatistics o1, EventStatistics o2) {
+                return Long.compare(o2.getCallCount(), o1.getCallCount());
+            }
+        });
+        return statistics;
+    }
+
+    /**
+     * Formats the {@link #getStatistics() statistics} for logging, one event class per line, followed by the event classes that were only ever called without listeners.
+     *
+     * @return the report
+     */
+    public String getStatisticsReport() {
+        List<EventStatistics> statistics = getStatistics();
+        StringBuilder report = new StringBuilder("Event statistics:");
+        StringBuilder dead = new StringBuilder();
+        for (EventStatistics entry : statistics) {
+            report.append(System.lineSeparator()).append("  ").append(entry);
+            if (entry.getUnheardCount() == entry.getCallCount()) {
+                dead.append(System.lineSeparator()).append("  ").append(entry.getEventClass().getName());
+            }
+        }
+        if (dead.length() > 0) {
+            report.append(System.lineSeparator()).append("Called without listeners only:").append(dead);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Forgets everything counted so far. Calls counted at the same time may be lost.
+     */
+    public void resetStatistics() {
+        counters.clear();
+    }
+
+    private EventCounters getCounters(Class<?> eventClass) {
+        EventCounters eventCounters = counters.get(eventClass);
+        if (eventCounters == null) {
+            EventCounters created = new EventCounters();
+            eventCounters = counters.putIfAbsent(eventClass, created);
+            if (eventCounters == null) {
+                eventCounters = created;
+            }
+        }
+        return eventCounters;
+    }
+
+    /**
+     * Sets whether events called from inside a handler are deferred until the current dispatch has finished. Deferred events are queued per thread and called one after the other,
+     * breadth-first, so a long cascade of events triggering further events neither deepens the stack nor interleaves the handlers of different events.<br> In this mode a nested call to
+     * {@link #callEvent(Event)} returns the event before it has been dispatched, so handlers cannot act on the outcome of the events they fire. Events called with
+     * {@link #callEventWithParameters(Event, List)} from inside a handler are still dispatched right away, since their parameters are swapped between calls.
+     *
+     * @param iterative true to defer nested events
+     * @see #setCascadeLimits(int, int)
+     */
+    public void setIterativeCascades(boolean iterative) {
+        this.iterativeCascades = iterative;
+    }
+
+    public boolean isIterativeCascades() {
+        return iterativeCascades;
+    }
+
+    /**
+     * Limits the cascades of deferred events. Events which would exceed the limits are dropped, counted and logged.
+     *
+     * @param maxDepth how many generations of events an event called from outside a handler may trigger
+     * @param maxEvents how many events may be deferred within one cascade
+     * @see #setIterativeCascades(boolean)
+     */
+    public void setCascadeLimits(int maxDepth, int maxEvents) {
+        if (maxDepth < 1 || maxEvents < 1) {
+            throw new IllegalArgumentException("Cascade limits have to be positive");
+        }
+        this.maxCascadeDepth = maxDepth;
+        this.maxCascadeEvents = maxEvents;
+    }
+
+    /**
+     * @return the number of events deferred by iterative cascades so far
+     */
+    public long getDeferredEventCount() {
+        return deferredEvents.get();
+    }
+
+    /**
+     * @return the number of events dropped because a cascade exceeded its limits
+     */
+    public long getDroppedCascadeEventCount() {
+        return droppedCascadeEvents.get();
+    }
+
+    /**
+     * @return the largest number of events deferred within a single cascade so far
+     */
+    public int getLargestCascade() {
+        return largestCascade.get();
     }
 
     /**
@@ -59,69 +368,319 @@ public class SimpleEventManager implements EventManager {
         }
     }
 
+    /**
+     * Starts a new {@link RegistrationBatch} for this manager. Prefer this over many individual calls to {@link #registerEvents(Object, Object)} when registering large numbers of listeners at
+     * once.
+     *
+     * @return a new, empty batch
+     */
+    public RegistrationBatch startBatch() {
+        return new RegistrationBatch(this);
+    }
+
+    /**
+     * Unregisters the handlers of every weakly registered listener that has been garbage collected since the last call. Each affected handler list is only updated once.<br> This is done
+     * automatically whenever an event is called or listeners are registered, but can be called manually to release the registrations of event types that are rarely called.
+     */
+    public void expungeStaleListeners() {
+        Reference<?> reference = staleListeners.poll();
+        if (reference == null) {
+            return;
+        }
+        Map<Class<?>, List<ListenerRegistration>> stale = new HashMap<>();
+        do {
+            for (Map.Entry<Class<?>, List<ListenerRegistration>> entry : ((ListenerReference) reference).registrations.entrySet()) {
+                for (ListenerRegistration registration : entry.getValue()) {
+                    addRegistration(stale, entry.getKey(), registration);
+                }
+            }
+        } while ((reference = staleListeners.poll()) != null);
+        for (Map.Entry<Class<?>, List<ListenerRegistration>> entry : stale.entrySet()) {
+            HandlerList list = this.handlers.get(entry.getKey());
+            if (list != null) {
+                list.unregisterAll(entry.getValue());
+            }
+        }
+    }
+
     public <T> void unregisterAll() {
         for (HandlerList h : this.handlers.values()) {
             h.unregisterAll();
         }
+        removeBatchers(null);
     }
 
     public void unregisterAll(Object plugin) {
         for (HandlerList h : this.handlers.values()) {
             h.unregister(plugin);
         }
+        removeBatchers(plugin);
     }
 
     @Override
     public <T extends Event> T callEvent(T event) {
+        if (iterativeCascades) {
+            Cascade cascade = cascades.get();
+            if (cascade.active) {
+                cascade.defer(event);
+            } else {
+                cascade.run(event);
+            }
+        } else {
+            dispatch(event);
+        }
+        return event;
+    }
+
+    /**
+     * Calls the handlers of an event on the current thread.
+     */
+    private void dispatch(Event<?> event) {
+        expungeStaleListeners();
         HandlerList handlers = this.handlers.get(event.getClass());
         if (handlers == null) {
-            return event;
+            SimpleEventManager parent = this.parent;
+            if (parent == null || !parent.hasHandlerList(event.getClass())) {
+                if (statisticsEnabled) {
+                    getCounters(event.getClass()).called(false, 0, false);
+                }
+                return;
+            }
+            // Only the parent has listeners for this type so far
+            handlers = newHandlerList(event.getClass());
         }
-        ListenerRegistration[] listeners = handlers.getRegisteredListeners();
-
-        if (listeners != null) {
+        ListenerRegistration[] baked = handlers.getRegisteredListeners();
+        ListenerRegistration[] listeners = event instanceof GenericEvent ? handlers.getRegisteredListeners(baked, ((GenericEvent) event).getTypeToken()) : baked;
+        DispatchTracer tracer = this.tracer;
+        ForkJoinPool pool = this.concurrentExecutor;
+        int[] stages = pool != null ? handlers.getConcurrentStages(listeners) : null;
+        int fusionThreshold = this.fusionThreshold;
+        FusedDispatcher fused;
+        int executed = 0;
+        if (tracer != null || stages != null) {
+            executed = callStagedEvent(handlers, listeners, stages, pool, tracer, event);
+        } else if (fusionThreshold > 0 && listeners == baked && (fused = handlers.getFusedDispatcher(baked, fusionThreshold, this)) != null) {
+            executed = fused.dispatch(event);
+        } else if (event instanceof InlineEvent) {
+            executed = callInlineEvent(handlers, listeners, (InlineEvent) event);
+        } else if (listeners != null) {
             for (ListenerRegistration listener : listeners) {
                 try {
-                    if (!event.parameter.cancelled || listener.getOrder().ignoresCancelled()) {
+                    if (!listener.isSuspended() && (!event.parameter.cancelled || listener.getOrder().ignoresCancelled())) {
+                        executed++;
                         listener.getExecutor().execute(event);
+                        listener.succeeded();
                     }
                 } catch (Throwable ex) {
-                    this.logger.error("Could not pass event " + event.getEventName() + " to " + listener.getOwner().getClass().getName(), ex); // TODO: Use parametrized message instead of string
-                                                                                                                                               // concatenation.
+                    listenerFailed(handlers, event, listener, ex);
                 }
             }
             event.parameter.beenCalled = true;
         }
-        return event;
+        if (statisticsEnabled) {
+            getCounters(event.getClass()).called(listeners != null && listeners.length > 0, executed, isCancelled(event));
+        }
+    }
+
+    /**
+     * The plain dispatch loop for events that keep their state inline, which reads the cancelled flag straight from the event.
+     *
+     * @return the number of listeners called
+     */
+    private int callInlineEvent(HandlerList handlers, ListenerRegistration[] listeners, InlineEvent event) {
+        int executed = 0;
+        for (ListenerRegistration listener : listeners) {
+            try {
+                if (!listener.isSuspended() && (!event.cancelled || listener.getOrder().ignoresCancelled())) {
+                    executed++;
+                    listener.getExecutor().execute(event);
+                    listener.succeeded();
+                }
+            } catch (Throwable ex) {
+                listenerFailed(handlers, event, listener, ex);
+            }
+        }
+        event.beenCalled = true;
+        return executed;
+    }
+
+    static boolean isCancelled(Event<?> event) {
+        return event instanceof InlineEvent ? ((InlineEvent) event).cancelled : event.parameter.cancelled;
+    }
+
+    static void setCalled(Event<?> event) {
+        if (event instanceof InlineEvent) {
+            ((InlineEvent) event).beenCalled = true;
+        } else {
+            event.parameter.beenCalled = true;
+        }
+    }
+
+    /**
+     * The general dispatch loop, for when listeners have to be traced or concurrent stages have to be run in parallel.
+     *
+     * @param stages the concurrent stages, see {@link HandlerList#getConcurrentStages(ListenerRegistration[])}, or null to call every listener in turn
+     * @param tracer the tracer, or null
+     * @return the number of listeners called
+     */
+    private int callStagedEvent(HandlerList handlers, ListenerRegistration[] listeners, int[] stages, ForkJoinPool pool, DispatchTracer tracer, Event<?> event) {
+        Object dispatch = tracer != null ? tracer.dispatchStarted(event, listeners.length) : null;
+        int executed = 0;
+        for (int i = 0; i < listeners.length; ) {
+            ListenerRegistration listener = listeners[i];
+            int end = stages != null ? stages[i] : i + 1;
+            if (!isCancelled(event) || listener.getOrder().ignoresCancelled()) {
+                if (end - i > 1) {
+                    executed += callConcurrently(handlers, listeners, i, end, pool, tracer, event);
+                } else if (callListener(handlers, listener, tracer, event)) {
+                    executed++;
+                }
+            }
+            i = end;
+        }
+        setCalled(event);
+        if (dispatch != null) {
+            tracer.dispatchFinished(dispatch, event, listeners.length, isCancelled(event));
+        }
+        return executed;
+    }
+
+    /**
+     * Runs a stage of concurrent listeners in parallel and waits for all of them to finish. The calling thread takes part by running the first listener itself.
+     *
+     * @return the number of listeners called
+     */
+    private int callConcurrently(HandlerList handlers, ListenerRegistration[] listeners, int start, int end, ForkJoinPool pool, DispatchTracer tracer, Event<?> event) {
+        boolean inPool = ForkJoinTask.getPool() == pool;
+        ListenerTask[] tasks = new ListenerTask[end - start - 1];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new ListenerTask(handlers, listeners[start + 1 + i], tracer, event);
+            if (inPool) {
+                tasks[i].fork();
+            } else {
+                pool.execute(tasks[i]);
+            }
+        }
+        int executed = callListener(handlers, listeners[start], tracer, event) ? 1 : 0;
+        for (ListenerTask task : tasks) {
+            task.join();
+            if (task.executed) {
+                executed++;
+            }
+        }
+        return executed;
+    }
+
+    /**
+     * @return false if the listener is suspended and was not called
+     */
+    private boolean callListener(HandlerList handlers, ListenerRegistration listener, DispatchTracer tracer, Event<?> event) {
+        if (listener.isSuspended()) {
+            return false;
+        }
+        Object invocation = tracer != null ? tracer.listenerStarted(event, listener) : null;
+        try {
+            listener.getExecutor().execute(event);
+            listener.succeeded();
+        } catch (Throwable ex) {
+            listenerFailed(handlers, event, listener, ex);
+        }
+        if (invocation != null) {
+            tracer.listenerFinished(invocation, event, listener);
+        }
+        return true;
+    }
+
+    void listenerFailed(HandlerList handlers, Event<?> event, ListenerRegistration listener, Throwable ex) {
+        listener.failed();
+        if (this.errorHandler.handleError(event, listener, ex)) {
+            handlers.unregisterInherited(listener);
+            if (listener.getExecutor() instanceof BatchingExecutor && batchers.remove(listener.getExecutor())) {
+                // The executor is given up on, so the events it has not received yet are dropped
+                ((BatchingExecutor) listener.getExecutor()).discard();
+            }
+        }
+    }
+
+    /**
+     * Generates a fused dispatcher for a handler array.
+     *
+     * @return the dispatcher, or null if the handlers cannot be fused
+     */
+    FusedDispatcher generateDispatcher(HandlerList handlers, ListenerRegistration[] baked) {
+        if (baked.length == 0 || baked.length > FusedDispatcherGenerator.MAX_HANDLERS) {
+            return null;
+        }
+        try {
+            return FusedDispatcherGenerator.generate(this, handlers, baked);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            this.logger.warn("Could not generate a fused dispatcher, calling the handlers from their array instead", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the method the executor calls, or null if it is not a strongly referenced handler method
+     */
+    static Method getHandlerMethod(EventExecutor executor) {
+        if (executor instanceof MethodEventExecutor && ((MethodEventExecutor) executor).listenerReference == null) {
+            return ((MethodEventExecutor) executor).method;
+        }
+        return null;
+    }
+
+    /**
+     * @return the listener the executor calls its method on, see {@link #getHandlerMethod(EventExecutor)}
+     */
+    static Object getHandlerListener(EventExecutor executor) {
+        return ((MethodEventExecutor) executor).listenerInstance;
     }
 
     @Override
     public <U extends EventParameter, T extends Event<U>> List<U> callEventWithParameters(T event, List<U> parameters) {
+        if (event instanceof InlineEvent) {
+            throw new IllegalArgumentException("Events without a parameter cannot be called with parameters");
+        }
+        Cascade cascade = iterativeCascades ? cascades.get() : null;
         for (U parameter : parameters) {
             event.parameter = parameter;
-            callEvent(event);
+            if (cascade != null && cascade.active) {
+                dispatch(event);
+            } else {
+                callEvent(event);
+            }
         }
         return parameters;
     }
 
+    @Override
+    public <T extends Event<?>> ScheduledEvent<T> callEventLater(T event, long delay) {
+        return scheduler.schedule(event, delay);
+    }
+
+    @Override
+    public <T extends Event<?>> ScheduledEvent<T> callEventRepeating(T event, long delay, long period) {
+        return scheduler.scheduleRepeating(event, delay, period);
+    }
+
+    /**
+     * Gets the scheduler that calls the events passed to {@link #callEventLater(Event, long)} and {@link #callEventRepeating(Event, long, long)}. It only advances when it is ticked, either
+     * by calling {@link EventScheduler#tick()} from a loop of your own or by {@link EventScheduler#start(long, TimeUnit) starting} its thread. Child managers have schedulers of their own.
+     *
+     * @return the scheduler
+     */
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
     @Override
     public void unRegisterEventsByListener(Object listener) {
-        List<Method> methods = getAllMethods(listener);
-        for (final Method method : methods) {
-            final EventHandler eh = method.getAnnotation(EventHandler.class);
-            if (eh == null) {
+        for (HandlerMethod handler : handlerMethods.get(listener.getClass())) {
+            HandlerList get = this.handlers.get(handler.eventClass);
+            if (get == null) {
                 continue;
             }
-            try {
-                Class<? extends Event> eventClass = getValidatedClass(method);
-                HandlerList get = this.handlers.get(eventClass);
-                if (get == null) {
-                    continue;
-                }
-                get.unregister(new ListenerRegistration(new MethodEventExecutor(listener, method), eh.order(), null));
-            } catch (IllegalArgumentException e) {
-                this.logger.error(e.getMessage());
-            }
+            get.unregister(new ListenerRegistration(new MethodEventExecutor(listener, handler), handler.order, null));
         }
     }
 
@@ -130,51 +689,328 @@ public class SimpleEventManager implements EventManager {
         for (HandlerList list : this.handlers.values()) {
             list.unregister(owner);
         }
+        removeBatchers(owner);
+    }
+
+    /**
+     * Suspends the listeners of an owner without unregistering them: they stay in the handler lists, but are skipped when events are called until {@link #resumeOwner(Object)}. The listeners
+     * the owner registers while suspended start out suspended too. This takes constant time no matter how many listeners the owner has, and adds a single flag check per listener to
+     * dispatching.<br> Only applies to listeners registered to this manager. Child managers inherit the suspension of the listeners they inherit, but not of their own.
+     *
+     * @param owner the owner to suspend
+     */
+    public void suspendOwner(Object owner) {
+        getOwnerState(owner).suspended = true;
+    }
+
+    /**
+     * Resumes the listeners of an owner suspended by {@link #suspendOwner(Object)}. Events called from now on reach them again.
+     *
+     * @param owner the owner to resume
+     */
+    public void resumeOwner(Object owner) {
+        synchronized (this.owners) {
+            ListenerRegistration.OwnerState state = this.owners.get(owner);
+            if (state != null) {
+                state.suspended = false;
+            }
+        }
+    }
+
+    /**
+     * @param owner the owner to check
+     * @return whether the listeners of the owner are suspended
+     */
+    public boolean isOwnerSuspended(Object owner) {
+        synchronized (this.owners) {
+            ListenerRegistration.OwnerState state = this.owners.get(owner);
+            return state != null && state.suspended;
+        }
+    }
+
+    private ListenerRegistration.OwnerState getOwnerState(Object owner) {
+        synchronized (this.owners) {
+            ListenerRegistration.OwnerState state = this.owners.get(owner);
+            if (state == null) {
+                state = new ListenerRegistration.OwnerState();
+                this.owners.put(owner, state);
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Links a registration to the state of its owner, before it is published to a handler list.
+     */
+    private ListenerRegistration owned(ListenerRegistration registration) {
+        if (registration.getOwner() != null) {
+            registration.ownerState = getOwnerState(registration.getOwner());
+        }
+        return registration;
     }
 
     @Override
     public void registerEvents(Object listener, Object owner) {
-        List<Method> methods = getAllMethods(listener);
-        for (final Method method : methods) {
-            final EventHandler eh = method.getAnnotation(EventHandler.class);
-            if (eh == null) {
-                continue;
+        Map<Class<?>, List<ListenerRegistration>> registrations = new LinkedHashMap<>();
+        collectRegistrations(listener, owner, false, registrations);
+        applyRegistrations(registrations);
+    }
+
+    /**
+     * Registers all the events in each of the given listeners. The listener classes are scanned in parallel, on the {@link #setConcurrentExecutor(ForkJoinPool) concurrent executor} if
+     * there is one and on a temporary pool otherwise. Each affected handler list is then updated and baked only once, which makes this much faster than registering the listeners one by one
+     * when there are thousands of them.
+     *
+     * @param listeners Listeners to register, in the order their handlers should run within an order slot
+     * @param owner Owner to register the events for
+     */
+    public void registerEventsAll(Collection<?> listeners, Object owner) {
+        List<?> scanned = new ArrayList<>(listeners);
+        Map<Class<?>, List<ListenerRegistration>> registrations;
+        if (scanned.size() <= ScanTask.THRESHOLD) {
+            registrations = new LinkedHashMap<>();
+            for (Object listener : scanned) {
+                collectRegistrations(listener, owner, false, registrations);
+            }
+        } else {
+            ForkJoinPool pool = this.concurrentExecutor;
+            boolean temporary = pool == null;
+            if (temporary) {
+                pool = new ForkJoinPool();
             }
             try {
-                Class<? extends Event> eventClass = getValidatedClass(method);
-                newHandlerList(eventClass).register(new ListenerRegistration(new MethodEventExecutor(listener, method), eh.order(), owner));
-            } catch (IllegalArgumentException e) {
-                this.logger.error(e.getMessage());
+                registrations = pool.invoke(new ScanTask(scanned, owner, 0, scanned.size()));
+            } finally {
+                if (temporary) {
+                    pool.shutdown();
+                }
             }
         }
+        applyRegistrations(registrations);
+    }
+
+    /**
+     * Registers all the events in the given listener class, without keeping the listener from being garbage collected. Once the listener has been collected its handlers are skipped, and they
+     * are unregistered the next time stale listeners are expunged.<br> The registrations only hold the owner weakly as well, so a listener can be its own owner. Keep a reference to the owner
+     * for as long as it should be possible to unregister or suspend the listener by its owner.
+     *
+     * @param listener Listener to register
+     * @param owner Owner to register the event for
+     * @see #expungeStaleListeners()
+     */
+    public void registerEventsWeakly(Object listener, Object owner) {
+        Map<Class<?>, List<ListenerRegistration>> registrations = new LinkedHashMap<>();
+        collectRegistrations(listener, owner, true, registrations);
+        applyRegistrations(registrations);
     }
 
     @Override
     public void registerEvent(Class<? extends Event> event, Order priority, EventExecutor executor, Object owner) {
-        newHandlerList(event).register(new ListenerRegistration(executor, priority, owner));
+        newHandlerList(event).register(owned(new ListenerRegistration(executor, priority, owner)));
     }
 
+    /**
+     * Registers an executor that receives the events of the given class in batches. It takes part in dispatching like any other executor: the events that reach its order slot are collected,
+     * and handed to it in the order they were called in once {@code maxBatchSize} of them have been collected, once the first of them has waited for {@code maxDelay} ticks of the
+     * {@link #getScheduler() scheduler}, or when {@link #flushBatches()} is called. Whichever thread triggers a batch delivers it, one batch at a time. The events still collected when the
+     * owner is unregistered are delivered right away.<br> As the executor is only called later, it cannot cancel the events or change them for the listeners after it.
+     *
+     * @param event Event type to register
+     * @param priority Priority to collect the events at
+     * @param executor the executor to pass the batches to
+     * @param owner Owner to register the executor for
+     * @param maxBatchSize the number of events that triggers a batch, at least 1
+     * @param maxDelay the number of ticks that triggers a batch, or 0 to only deliver batches when they are full or flushed
+     */
+    public void registerBatchEvent(Class<? extends Event<?>> event, Order priority, BatchEventExecutor executor, Object owner, int maxBatchSize, long maxDelay) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size has to be at least 1");
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Delay cannot be negative");
+        }
+        HandlerList list = newHandlerList(event);
+        BatchingExecutor batcher = new BatchingExecutor(this, list, executor, priority, owner, maxBatchSize, maxDelay);
+        batchers.add(batcher);
+        list.register(owned(batcher.getRegistration()));
+    }
+
+    /**
+     * Delivers the events collected for every batch executor, see {@link #registerBatchEvent(Class, Order, BatchEventExecutor, Object, int, long)}.
+     */
+    public void flushBatches() {
+        for (BatchingExecutor batcher : batchers) {
+            batcher.flush();
+        }
+    }
+
+    private void flushExpiredBatches() {
+        if (batchers.isEmpty()) {
+            return;
+        }
+        long now = scheduler.getCurrentTick();
+        for (BatchingExecutor batcher : batchers) {
+            batcher.flushExpired(now);
+        }
+    }
+
+    /**
+     * @return the number of registered batch executors
+     */
+    int getBatchExecutorCount() {
+        return batchers.size();
+    }
+
+    /**
+     * Delivers the remaining events of the batch executors of an owner, which have been unregistered, and forgets them.
+     *
+     * @param owner the owner, or null for all of them
+     */
+    private void removeBatchers(Object owner) {
+        for (BatchingExecutor batcher : batchers) {
+            if (owner == null || batcher.isOwnedBy(owner)) {
+                batchers.remove(batcher);
+                batcher.flush();
+            }
+        }
+    }
+
+    /**
+     * Registers the specified executor to the given {@link GenericEvent} class, for events with a matching type token only
+     *
+     * @param event Event type to register
+     * @param typeArgument the type argument to receive events of, or null for all of them
+     * @param priority Priority to register this event at
+     * @param executor EventExecutor to register
+     * @param owner Plugin to register
+     * @throws IllegalArgumentException if the class is not an {@link Event}
+     */
+    public void registerEvent(Class<? extends GenericEvent> event, Class<?> typeArgument, Order priority, EventExecutor executor, Object owner) {
+        if (!Event.class.isAssignableFrom(event)) {
+            throw new IllegalArgumentException("Not an event: " + event.getName());
+        }
+        newHandlerList(event.asSubclass(Event.class)).register(owned(new ListenerRegistration(executor, priority, owner, false, typeArgument)));
+    }
+
+    /**
+     * Scans the given listener for {@link EventHandler} methods and adds a registration for each of them to {@code registrations}, grouped by event class.
+     *
+     * @param listener Listener to scan
+     * @param owner Owner to register the events for
+     * @param weak whether the listener should only be weakly referenced
+     * @param registrations where to add the registrations
+     */
+    void collectRegistrations(Object listener, Object owner, boolean weak, Map<Class<?>, List<ListenerRegistration>> registrations) {
+        ListenerReference reference = weak ? new ListenerReference(listener, staleListeners) : null;
+        for (HandlerMethod handler : handlerMethods.get(listener.getClass())) {
+            MethodEventExecutor executor = reference != null ? new MethodEventExecutor(reference, handler) : new MethodEventExecutor(listener, handler);
+            ListenerRegistration registration = new ListenerRegistration(executor, handler.order, owner, handler.concurrent, handler.typeArgument, weak);
+            addRegistration(registrations, handler.eventClass, registration);
+            if (reference != null) {
+                addRegistration(reference.registrations, handler.eventClass, registration);
+            }
+        }
+    }
+
+    static void addRegistration(Map<Class<?>, List<ListenerRegistration>> registrations, Class<?> eventClass, ListenerRegistration registration) {
+        List<ListenerRegistration> list = registrations.get(eventClass);
+        if (list == null) {
+            list = new ArrayList<>();
+            registrations.put(eventClass, list);
+        }
+        list.add(registration);
+    }
+
+    /**
+     * Adds the given registrations to their handler lists, invalidating and baking each affected list only once. If any of them is already registered, the ones already added to other lists
+     * are removed again before the exception is rethrown, so either all of them are registered or none. Events called meanwhile may reach the ones that are removed again.
+     *
+     * @param registrations the registrations to apply, grouped by event class
+     * @throws IllegalStateException if one of the registrations is already registered
+     */
+    void applyRegistrations(Map<Class<?>, List<ListenerRegistration>> registrations) {
+        expungeStaleListeners();
+        List<HandlerList> affected = new ArrayList<>(registrations.size());
+        try {
+            for (Map.Entry<Class<?>, List<ListenerRegistration>> entry : registrations.entrySet()) {
+                for (ListenerRegistration registration : entry.getValue()) {
+                    owned(registration);
+                }
+                HandlerList list = newHandlerList(entry.getKey().asSubclass(Event.class));
+                list.registerAll(entry.getValue());
+                affected.add(list);
+            }
+        } catch (RuntimeException e) {
+            // Lists are affected in the order of the map, so the first ones hold what was added
+            Iterator<List<ListenerRegistration>> added = registrations.values().iterator();
+            for (HandlerList list : affected) {
+                list.unregisterAll(added.next());
+            }
+            throw e;
+        }
+        for (HandlerList list : affected) {
+            list.bake();
+        }
+    }
+
+    /**
+     * Gets the handler list of an event class, creating it if needed. A new list links itself into the lists of its superclass and of the parent manager, so it is created under a lock: two
+     * threads racing to create it would otherwise both link one in, and the registrations made to the list that loses the {@code put} would be lost. Locks are only ever taken from a manager
+     * towards its parent.
+     */
     private HandlerList newHandlerList(Class<? extends Event> clazz) {
         HandlerList list = this.handlers.get(clazz);
-        if (list == null) {
-            HandlerList parent = null;
-            if (clazz.getSuperclass() != null && Event.class.isAssignableFrom(clazz.getSuperclass()) && !clazz.getSuperclass().equals(Event.class)) {
-                parent = newHandlerList(clazz.getSuperclass().asSubclass(Event.class));
+        if (list != null) {
+            return list;
+        }
+        synchronized (this.handlers) {
+            list = this.handlers.get(clazz);
+            if (list == null) {
+                HandlerList parent = null;
+                if (clazz.getSuperclass() != null && Event.class.isAssignableFrom(clazz.getSuperclass()) && !clazz.getSuperclass().equals(Event.class)) {
+                    parent = newHandlerList(clazz.getSuperclass().asSubclass(Event.class));
+                }
+                SimpleEventManager parentManager = this.parent;
+                HandlerList inherited = parentManager != null ? parentManager.newHandlerList(clazz) : null;
+                list = new HandlerList(parent, inherited);
+                this.handlers.put(clazz, list);
             }
-            list = new HandlerList(parent);
-            this.handlers.put(clazz, list);
+            return list;
         }
-        return list;
     }
 
-    private List<Method> getAllMethods(Object listener) {
+    private boolean hasHandlerList(Class<?> clazz) {
+        SimpleEventManager parent = this.parent;
+        return this.handlers.containsKey(clazz) || parent != null && parent.hasHandlerList(clazz);
+    }
+
+    /**
+     * Finds the valid {@link EventHandler} methods of a listener class and its superclasses. Invalid ones are logged and skipped.
+     */
+    private HandlerMethod[] findHandlerMethods(Class<?> listenerClass) {
+        List<HandlerMethod> found = new ArrayList<>();
+        for (Method method : getAllMethods(listenerClass)) {
+            final EventHandler eh = method.getAnnotation(EventHandler.class);
+            if (eh == null) {
+                continue;
+            }
+            try {
+                Class<?> eventClass = getValidatedClass(method);
+                found.add(new HandlerMethod(method, eh, eventClass, getTypeArgument(method, eventClass)));
+            } catch (IllegalArgumentException e) {
+                this.logger.error(e.getMessage());
+            }
+        }
+        return found.toArray(new HandlerMethod[found.size()]);
+    }
+
+    private List<Method> getAllMethods(Class<?> listenerClass) {
         List<Method> methods = new ArrayList<>();
-        Class<?> listenerClass = listener.getClass();
         while (listenerClass != null && !listenerClass.equals(Object.class)) {
             try {
                 methods.addAll(Arrays.asList(listenerClass.getDeclaredMethods()));
             } catch (NoClassDefFoundError e) {
-                this.logger.error("Listener class " + listenerClass + " does not exist.", e); // TODO: Use parametrized message instead of string concatenation.
+                this.logger.error("Listener class {} does not exist.", listenerClass, e);
                 break;
             }
             listenerClass = listenerClass.getSuperclass();
@@ -194,40 +1030,265 @@ public class SimpleEventManager implements EventManager {
         return checkClass.asSubclass(Event.class);
     }
 
+    /**
+     * Resolves the type argument a handler method receives {@link GenericEvent}s for, from the first type argument of its parameter. Wildcards and type variables resolve to their upper bound.
+     *
+     * @return the raw type argument, or null if the handler receives every event of its class
+     */
+    private static Class<?> getTypeArgument(Method method, Class<?> eventClass) {
+        if (!GenericEvent.class.isAssignableFrom(eventClass)) {
+            return null;
+        }
+        Type parameter = method.getGenericParameterTypes()[0];
+        if (!(parameter instanceof ParameterizedType)) {
+            return null;
+        }
+        Type[] arguments = ((ParameterizedType) parameter).getActualTypeArguments();
+        return arguments.length == 0 ? null : getRawType(arguments[0]);
+    }
+
+    private static Class<?> getRawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return getRawType(((ParameterizedType) type).getRawType());
+        } else if (type instanceof WildcardType) {
+            return getRawType(((WildcardType) type).getUpperBounds()[0]);
+        } else if (type instanceof TypeVariable) {
+            return getRawType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return null;
+    }
+
+    /**
+     * The events deferred on one thread while it is dispatching, see {@link #setIterativeCascades(boolean)}.
+     */
+    private class Cascade {
+        private final ArrayDeque<Event<?>> queue = new ArrayDeque<>();
+        /**
+         * The depth of each queued event, in the same order as {@link #queue}.
+         */
+        private final ArrayDeque<Integer> depths = new ArrayDeque<>();
+        private boolean active = false;
+        private int depth = 0;
+        private int deferred = 0;
+        private int dropped = 0;
+
+        private void defer(Event<?> event) {
+            if (depth >= maxCascadeDepth || deferred >= maxCascadeEvents) {
+                if (dropped++ == 0) {
+                    logger.warn("Dropping {} and further events of this cascade, it exceeded {} generations or {} events", event, maxCascadeDepth, maxCascadeEvents);
+                }
+                droppedCascadeEvents.incrementAndGet();
+                return;
+            }
+            queue.addLast(event);
+            depths.addLast(depth + 1);
+            deferred++;
+            deferredEvents.incrementAndGet();
+        }
+
+        private void run(Event<?> event) {
+            active = true;
+            try {
+                dispatch(event);
+                while ((event = queue.pollFirst()) != null) {
+                    depth = depths.pollFirst();
+                    dispatch(event);
+                }
+            } finally {
+                int largest = largestCascade.get();
+                while (deferred > largest && !largestCascade.compareAndSet(largest, deferred)) {
+                    largest = largestCascade.get();
+                }
+                queue.clear();
+                depths.clear();
+                active = false;
+                depth = 0;
+                deferred = 0;
+                dropped = 0;
+            }
+        }
+    }
+
+    /**
+     * Scans a range of listeners, splitting it up as long as it is large. Results are merged in the order of the listeners, like sequential registration would have added them.
+     */
+    @SuppressWarnings ("serial")
+    private class ScanTask extends RecursiveTask<Map<Class<?>, List<ListenerRegistration>>> {
+        private static final int THRESHOLD = 64;
+        private final List<?> listeners;
+        private final Object owner;
+        private final int start;
+        private final int end;
+
+        public ScanTask(List<?> listeners, Object owner, int start, int end) {
+            this.listeners = listeners;
+            this.owner = owner;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Map<Class<?>, List<ListenerRegistration>> compute() {
+            if (end - start <= THRESHOLD) {
+                Map<Class<?>, List<ListenerRegistration>> registrations = new LinkedHashMap<>();
+                for (int i = start; i < end; i++) {
+                    collectRegistrations(listeners.get(i), owner, false, registrations);
+                }
+                return registrations;
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask first = new ScanTask(listeners, owner, start, middle);
+            first.fork();
+            Map<Class<?>, List<ListenerRegistration>> second = new ScanTask(listeners, owner, middle, end).compute();
+            Map<Class<?>, List<ListenerRegistration>> registrations = first.join();
+            for (Map.Entry<Class<?>, List<ListenerRegistration>> entry : second.entrySet()) {
+                List<ListenerRegistration> list = registrations.get(entry.getKey());
+                if (list == null) {
+                    registrations.put(entry.getKey(), entry.getValue());
+                } else {
+                    list.addAll(entry.getValue());
+                }
+            }
+            return registrations;
+        }
+    }
+
+    /**
+     * A valid {@link EventHandler} method of a listener class.
+     */
+    private static final class HandlerMethod {
+        private final Method method;
+        private final MethodHandle handle;
+        private final Order order;
+        private final boolean concurrent;
+        private final Class<?> eventClass;
+        private final Class<?> typeArgument;
+
+        private HandlerMethod(Method method, EventHandler eh, Class<?> eventClass, Class<?> typeArgument) {
+            this.method = method;
+            this.handle = unreflect(method);
+            this.order = eh.order();
+            this.concurrent = eh.concurrent();
+            this.eventClass = eventClass;
+            this.typeArgument = typeArgument;
+        }
+
+        /**
+         * Gets a handle taking the listener and the event, or null if the method cannot be accessed, in which case calling it through reflection fails with the reason.<br> Unlike
+         * {@link Method#invoke(Object, Object...)}, calling it does not box its arguments into an array, which the JIT only removes while the call site stays monomorphic.
+         */
+        private static MethodHandle unreflect(Method method) {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asType(MethodType.methodType(void.class, Object.class, Event.class));
+        }
+    }
+
+    @SuppressWarnings ("serial")
+    private class ListenerTask extends RecursiveAction {
+        private final HandlerList handlers;
+        private final ListenerRegistration listener;
+        private final DispatchTracer tracer;
+        private final Event<?> event;
+        private boolean executed = false;
+
+        public ListenerTask(HandlerList handlers, ListenerRegistration listener, DispatchTracer tracer, Event<?> event) {
+            this.handlers = handlers;
+            this.listener = listener;
+            this.tracer = tracer;
+            this.event = event;
+        }
+
+        @Override
+        protected void compute() {
+            executed = callListener(handlers, listener, tracer, event);
+        }
+    }
+
     private static class MethodEventExecutor implements EventExecutor {
         private final Object listenerInstance;
+        private final ListenerReference listenerReference;
         private final Method method;
+        private final MethodHandle handle;
+        private final int hash;
 
-        public MethodEventExecutor(Object listener, Method method) {
-            this.listenerInstance = listener;
-            this.method = method;
+        public MethodEventExecutor(Object listener, HandlerMethod handler) {
+            this(listener, null, handler);
+        }
+
+        public MethodEventExecutor(ListenerReference listener, HandlerMethod handler) {
+            this(null, listener, handler);
+        }
+
+        private MethodEventExecutor(Object listenerInstance, ListenerReference listenerReference, HandlerMethod handler) {
+            this.listenerInstance = listenerInstance;
+            this.listenerReference = listenerReference;
+            this.method = handler.method;
+            this.handle = handler.handle;
+            // Computed up front so the hash stays the same once a weak listener has been collected
+            int hash = 5;
+            hash = 97 * hash + Objects.hashCode(getListener());
+            hash = 97 * hash + Objects.hashCode(this.method);
+            this.hash = hash;
+        }
+
+        /**
+         * @return the listener instance, or null if it was weakly registered and has been garbage collected
+         */
+        private Object getListener() {
+            return this.listenerReference != null ? this.listenerReference.get() : this.listenerInstance;
         }
 
         @Override
         public void execute(Event<?> event) throws EventException {
+            Object listener = getListener();
+            if (listener == null) {
+                return; // Collected, waiting to be expunged
+            }
             try {
-                this.method.invoke(this.listenerInstance, event);
+                if (this.handle != null) {
+                    this.handle.invokeExact(listener, event);
+                } else {
+                    this.method.invoke(listener, event);
+                }
             } catch (InvocationTargetException e) {
                 if (e.getCause() instanceof EventException) {
                     throw (EventException) e.getCause();
                 }
 
-                throw new EventException(e.getCause());
+                // The cause already has the stack trace that matters
+                throw new EventException(e.getCause(), false);
+            } catch (EventException e) {
+                throw e;
             } catch (Throwable t) {
-                throw new EventException(t);
+                throw new EventException(t, false);
             }
         }
 
         @Override
         public int hashCode() {
-            int hash = 5;
-            hash = 97 * hash + Objects.hashCode(this.listenerInstance);
-            hash = 97 * hash + Objects.hashCode(this.method);
-            return hash;
+            return this.hash;
+        }
+
+        @Override
+        public String toString() {
+            return this.method.getDeclaringClass().getName() + "#" + this.method.getName();
         }
 
         @Override
         public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
             if (obj == null) {
                 return false;
             }
@@ -235,7 +1296,9 @@ public class SimpleEventManager implements EventManager {
                 return false;
             }
             final MethodEventExecutor other = (MethodEventExecutor) obj;
-            if (!Objects.equals(this.listenerInstance, other.listenerInstance)) {
+            Object listener = getListener();
+            // A collected listener is only equal to itself
+            if (listener == null || !listener.equals(other.getListener())) {
                 return false;
             }
             if (!Objects.equals(this.method, other.method)) {
@@ -244,4 +1307,15 @@ public class SimpleEventManager implements EventManager {
             return true;
         }
     }
+
+    /**
+     * A weak reference to a listener, which remembers the registrations made for it so they can be removed once it is collected.
+     */
+    private static class ListenerReference extends WeakReference<Object> {
+        private final Map<Class<?>, List<ListenerRegistration>> registrations = new HashMap<>();
+
+        public ListenerReference(Object listener, ReferenceQueue<Object> queue) {
+            super(listener, queue);
+        }
+    }
 }
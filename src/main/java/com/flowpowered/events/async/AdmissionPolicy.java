@@ -0,0 +1,119 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.async;
+
+/**
+ * The admission rules for one event type of an {@link AsyncEventDispatcher}. Instances are immutable.
+ */
+public final class AdmissionPolicy {
+    private final Priority priority;
+    private final int capacity;
+    private final SheddingPolicy shedding;
+    private final int sampleInterval;
+
+    /**
+     * @param priority how important the events are
+     * @param capacity the maximum number of queued events of the type
+     * @param shedding which events are shed when no more can be admitted
+     */
+    public AdmissionPolicy(Priority priority, int capacity, SheddingPolicy shedding) {
+        this(priority, capacity, shedding, 1);
+    }
+
+    /**
+     * @param priority how important the events are
+     * @param capacity the maximum number of queued events of the type
+     * @param shedding which events are shed when no more can be admitted
+     * @param sampleInterval every how many events one is admitted while sampling, only used with {@link SheddingPolicy#SAMPLE}
+     */
+    public AdmissionPolicy(Priority priority, int capacity, SheddingPolicy shedding, int sampleInterval) {
+        if (priority == null || shedding == null) {
+            throw new NullPointerException("Priority and shedding policy cannot be null");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity has to be positive");
+        }
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval has to be positive");
+        }
+        this.priority = priority;
+        this.capacity = capacity;
+        this.shedding = shedding;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Creates a policy for events that are never shed.
+     *
+     * @param capacity the number of queued events after which submitters wait for room
+     * @return the policy
+     */
+    public static AdmissionPolicy critical(int capacity) {
+        return new AdmissionPolicy(Priority.CRITICAL, capacity, SheddingPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Creates a policy for low-value events that are sampled under load.
+     *
+     * @param capacity the maximum number of queued events of the type
+     * @param sampleInterval every how many events one is admitted once the queue is half full
+     * @return the policy
+     */
+    public static AdmissionPolicy sampled(int capacity, int sampleInterval) {
+        return new AdmissionPolicy(Priority.LOW, capacity, SheddingPolicy.SAMPLE, sampleInterval);
+    }
+
+    /**
+     * @return how important the events are
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return the maximum number of queued events of the type
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return which events are shed when no more can be admitted
+     */
+    public SheddingPolicy getShedding() {
+        return shedding;
+    }
+
+    /**
+     * @return every how many events one is admitted while sampling
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionPolicy{" + priority + ", capacity=" + capacity + ", " + shedding + (shedding == SheddingPolicy.SAMPLE ? " 1/" + sampleInterval : "") + "}";
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.async;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventManager;
+
+/**
+ * Calls events on an {@link EventManager} off the submitting thread, with admission control so that overload cannot make the queues grow without bound.<br> Every event type has its own bounded
+ * queue, governed by an {@link AdmissionPolicy}. Types without a policy of their own use the policy of their closest superclass that has one, or the default policy. On top of that, all queues
+ * share a backlog limit: {@link Priority#LOW} events are shed once the backlog is half full and {@link Priority#NORMAL} events once it is full. {@link Priority#CRITICAL} events are never shed
+ * and are exempt from the backlog limit. When the queue of their type is full, the submitting thread waits until there is room instead. Threads that are calling events of this dispatcher
+ * never wait, since they may be the ones that would make room, their critical events are queued beyond the capacity.<br> Events of one type are called one at a time, in submission order,
+ * while different types are called in parallel as far as the executor allows. Every shed event is counted.
+ */
+public class AsyncEventDispatcher {
+    private static final int DRAIN_BATCH = 64;
+    private final Logger logger = LoggerFactory.getLogger(AsyncEventDispatcher.class.getSimpleName());
+    private final EventManager manager;
+    private final Executor executor;
+    private final int maxBacklog;
+    private final AdmissionPolicy defaultPolicy;
+    private final Map<Class<?>, AdmissionPolicy> policies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, TypeQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final AtomicLong shed = new AtomicLong();
+    /**
+     * Whether the current thread is calling events of this dispatcher.
+     */
+    private final ThreadLocal<Boolean> draining = new ThreadLocal<>();
+
+    /**
+     * Creates a dispatcher whose default policy queues up to 1024 events per type and drops new events when full.
+     *
+     * @param manager the manager to call the events on
+     * @param executor the executor to call the events from
+     * @param maxBacklog the maximum number of events queued over all types
+     */
+    public AsyncEventDispatcher(EventManager manager, Executor executor, int maxBacklog) {
+        this(manager, executor, maxBacklog, new AdmissionPolicy(Priority.NORMAL, 1024, SheddingPolicy.DROP_NEWEST));
+    }
+
+    /**
+     * @param manager the manager to call the events on
+     * @param executor the executor to call the events from
+     * @param maxBacklog the maximum number of events queued over all types
+     * @param defaultPolicy the policy of types without one of their own
+     */
+    public AsyncEventDispatcher(EventManager manager, Executor executor, int maxBacklog, AdmissionPolicy defaultPolicy) {
+        if (maxBacklog < 1) {
+            throw new IllegalArgumentException("Backlog limit has to be positive");
+        }
+        if (defaultPolicy == null) {
+            throw new NullPointerException("Default policy cannot be null");
+        }
+        this.manager = manager;
+        this.executor = executor;
+        this.maxBacklog = maxBacklog;
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * Sets the admission policy of an event type and its subclasses without a policy of their own. Already queued events are kept even if they exceed the new capacity.
+     *
+     * @param type the event type
+     * @param policy the policy, or null to fall back to the policy of the superclass
+     */
+    public void setPolicy(Class<? extends Event<?>> type, AdmissionPolicy policy) {
+        if (policy == null) {
+            policies.remove(type);
+        } else {
+            policies.put(type, policy);
+        }
+        for (TypeQueue queue : queues.values()) {
+            queue.policy = resolvePolicy(queue.type);
+        }
+    }
+
+    /**
+     * Gets the admission policy currently applied to an event type
+     *
+     * @param type the event type
+     * @return the policy
+     */
+    public AdmissionPolicy getPolicy(Class<? extends Event<?>> type) {
+        return resolvePolicy(type);
+    }
+
+    private AdmissionPolicy resolvePolicy(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            AdmissionPolicy policy = policies.get(c);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Submits an event to be called asynchronously.
+     *
+     * @param event the event
+     * @return true if the event was queued or called, false if it was shed, or if the thread was interrupted while waiting for room for a critical event
+     */
+    public boolean submit(Event<?> event) {
+        Class<?> type = event.getClass();
+        TypeQueue queue = queues.get(type);
+        if (queue == null) {
+            TypeQueue created = new TypeQueue(type);
+            queue = queues.putIfAbsent(type, created);
+            if (queue == null) {
+                queue = created;
+            }
+        }
+        return queue.offer(event);
+    }
+
+    /**
+     * @return the number of events queued over all types
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * @return the maximum number of events queued over all types
+     */
+    public int getMaxBacklog() {
+        return maxBacklog;
+    }
+
+    /**
+     * Gets the number of queued events of a type
+     *
+     * @param type the event type
+     * @return the number of queued events
+     */
+    public int getQueuedCount(Class<? extends Event<?>> type) {
+        TypeQueue queue = queues.get(type);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.events.size();
+        }
+    }
+
+    /**
+     * Gets the number of shed events of a type
+     *
+     * @param type the event type
+     * @return the number of events dropped or rejected
+     */
+    public long getShedCount(Class<? extends Event<?>> type) {
+        TypeQueue queue = queues.get(type);
+        return queue == null ? 0 : queue.shed.get();
+    }
+
+    /**
+     * @return the number of events dropped or rejected over all types
+     */
+    public long getTotalShedCount() {
+        return shed.get();
+    }
+
+    /**
+     * Gets the number of critical events of a type whose submitters had to wait for room in the queue
+     *
+     * @param type the event type
+     * @return the number of delayed submissions
+     */
+    public long getDelayedCount(Class<? extends Event<?>> type) {
+        TypeQueue queue = queues.get(type);
+        return queue == null ? 0 : queue.delayed.get();
+    }
+
+    private void call(Event<?> event) {
+        try {
+            manager.callEvent(event);
+        } catch (RuntimeException e) {
+            logger.error("Could not call {} asynchronously", event, e);
+        }
+    }
+
+    /**
+     * The queue of one event type. It is drained by at most one task at a time, which gives up the executor thread after a batch so other types get their turn. Submitters of critical events
+     * waiting for room are notified whenever an event is taken from a full queue.
+     */
+    private class TypeQueue implements Runnable {
+        private final Class<?> type;
+        private volatile AdmissionPolicy policy;
+        // Guarded by this
+        private final ArrayDeque<Event<?>> events = new ArrayDeque<>();
+        private boolean scheduled = false;
+        private int sampleCounter = 0;
+        private int waiting = 0;
+        private final AtomicLong shed = new AtomicLong();
+        private final AtomicLong delayed = new AtomicLong();
+
+        private TypeQueue(Class<?> type) {
+            this.type = type;
+            this.policy = resolvePolicy(type);
+        }
+
+        private boolean offer(Event<?> event) {
+            AdmissionPolicy policy = this.policy;
+            boolean schedule;
+            synchronized (this) {
+                int size = events.size();
+                boolean full = size >= policy.getCapacity();
+                if (policy.getPriority() == Priority.CRITICAL) {
+                    if (full && draining.get() == null && !awaitRoom()) {
+                        return shed();
+                    }
+                    enqueue(event);
+                    schedule = !scheduled;
+                } else {
+                    int limit = policy.getPriority() == Priority.LOW ? maxBacklog / 2 : maxBacklog;
+                    boolean overloaded = full || backlog.get() >= limit;
+                    if (overloaded && (policy.getShedding() != SheddingPolicy.DROP_OLDEST || events.isEmpty())) {
+                        return shed();
+                    }
+                    if (overloaded) {
+                        events.pollFirst();
+                        backlog.decrementAndGet();
+                        shed();
+                    } else if (policy.getShedding() == SheddingPolicy.SAMPLE && size >= policy.getCapacity() / 2 && sampleCounter++ % policy.getSampleInterval() != 0) {
+                        return shed();
+                    }
+                    enqueue(event);
+                    schedule = !scheduled;
+                }
+                if (schedule) {
+                    scheduled = true;
+                }
+            }
+            if (schedule) {
+                schedule();
+            }
+            return true;
+        }
+
+        /**
+         * Waits until the queue is below the capacity of the current policy.
+         *
+         * @return false if the thread was interrupted
+         */
+        private boolean awaitRoom() {
+            delayed.incrementAndGet();
+            waiting++;
+            try {
+                while (events.size() >= this.policy.getCapacity()) {
+                    wait();
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting--;
+            }
+        }
+
+        private void enqueue(Event<?> event) {
+            events.addLast(event);
+            backlog.incrementAndGet();
+        }
+
+        private boolean shed() {
+            shed.incrementAndGet();
+            AsyncEventDispatcher.this.shed.incrementAndGet();
+            return false;
+        }
+
+        private void schedule() {
+            while (true) {
+                try {
+                    executor.execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // The executor is saturated or shut down, drain on the current thread rather than leaving the queue stuck
+                    if (!drain()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (drain()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Calls a batch of queued events.
+         *
+         * @return true if events are left, in which case the queue stays scheduled
+         */
+        private boolean drain() {
+            boolean nested = draining.get() != null;
+            draining.set(Boolean.TRUE);
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    Event<?> event;
+                    synchronized (this) {
+                        event = events.pollFirst();
+                        if (event == null) {
+                            scheduled = false;
+                            return false;
+                        }
+                        if (waiting > 0) {
+                            notifyAll();
+                        }
+                    }
+                    backlog.decrementAndGet();
+                    call(event);
+                }
+                synchronized (this) {
+                    if (events.isEmpty()) {
+                        scheduled = false;
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                if (!nested) {
+                    draining.remove();
+                }
+            }
+        }
+    }
+}
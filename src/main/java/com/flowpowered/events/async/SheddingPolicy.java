@@ -0,0 +1,42 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.async;
+
+/**
+ * Which events an {@link AsyncEventDispatcher} sheds when it cannot admit more events of a type. Events of {@link Priority#CRITICAL} types are never shed, so this does not apply to them.
+ */
+public enum SheddingPolicy {
+    /**
+     * Reject the submitted event.
+     */
+    DROP_NEWEST,
+    /**
+     * Drop the oldest queued event of the type to make room for the submitted one. Suited for events of which only the latest state matters.
+     */
+    DROP_OLDEST,
+    /**
+     * Once the queue of the type is half full, only admit every n-th submitted event, and reject everything once it is full. This keeps a representative trickle of low-value events going.
+     */
+    SAMPLE;
+}
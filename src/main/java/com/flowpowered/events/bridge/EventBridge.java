@@ -0,0 +1,403 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventException;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.EventManager;
+import com.flowpowered.events.Order;
+import com.flowpowered.events.serialization.EventSerializer;
+import com.flowpowered.events.serialization.SerializerRegistry;
+
+/**
+ * Forwards events of selected types between the {@link EventManager}s of different nodes.<br> Every distributed event that is not cancelled by the time it reaches the {@link Order#MONITOR} slot
+ * is serialized into the current batch, which is queued for sending once it is full or on {@link #flush()}. Batches are handed to the {@link EventTransport} by a thread of the bridge, so
+ * dispatching never waits for the network. If 64 batches are already waiting, further ones are dropped.<br> Events received from other nodes are called on the local
+ * manager as if they had been fired locally, except that they are never forwarded again, so there are no echo loops. Events fired by their handlers in turn are forwarded as usual.<br> Each
+ * batch is self-contained: it starts with the id of the sending node and the name of each event type is written the first time the type appears in it.
+ */
+public class EventBridge implements Closeable {
+    private static final int DEFINE_TYPE = -1;
+    private static final int BATCH_HEADER_SIZE = 12;
+    private static final int MAX_PENDING_BATCHES = 64;
+    /**
+     * Queued after the last batch on close, to stop the sending thread.
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final Logger logger = LoggerFactory.getLogger(EventBridge.class.getSimpleName());
+    private final EventManager manager;
+    private final SerializerRegistry serializers;
+    private final EventTransport transport;
+    private final long nodeId;
+    private final int maxBatchEvents;
+    private final int maxBatchBytes;
+    /**
+     * The events received from other nodes that are being called on the local manager, compared by identity.
+     */
+    private final Set<Event<?>> injected = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Event<?>, Boolean>()));
+    /**
+     * The distributed event types. An event reaches the forwarder of each distributed type it extends, and only the one of the most specific type forwards it.
+     */
+    private final Set<Class<?>> distributed = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+    private final BlockingQueue<ByteBuffer> pending = new ArrayBlockingQueue<>(MAX_PENDING_BATCHES);
+    /**
+     * Buffers of batches that have been sent, for reuse.
+     */
+    private final Queue<ByteBuffer> spare = new ConcurrentLinkedQueue<>();
+    private Thread sender;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Guarded by this
+    private ByteBuffer batch;
+    private int batchEvents = 0;
+    private final Map<Class<?>, Integer> batchTypes = new IdentityHashMap<>();
+
+    /**
+     * Creates a bridge that sends a batch every 256 events or 64 KiB.
+     *
+     * @param manager the local manager
+     * @param serializers the serializers of the distributed event types
+     * @param transport the transport to the other nodes
+     * @param nodeId an id unique to this node within the cluster
+     */
+    public EventBridge(EventManager manager, SerializerRegistry serializers, EventTransport transport, long nodeId) {
+        this(manager, serializers, transport, nodeId, 256, 64 * 1024);
+    }
+
+    /**
+     * @param manager the local manager
+     * @param serializers the serializers of the distributed event types
+     * @param transport the transport to the other nodes
+     * @param nodeId an id unique to this node within the cluster
+     * @param maxBatchEvents the number of events after which a batch is sent
+     * @param maxBatchBytes the size in bytes after which a batch is sent
+     */
+    public EventBridge(EventManager manager, SerializerRegistry serializers, EventTransport transport, long nodeId, int maxBatchEvents, int maxBatchBytes) {
+        if (maxBatchEvents < 1 || maxBatchBytes < BATCH_HEADER_SIZE) {
+            throw new IllegalArgumentException("Batch limits too small");
+        }
+        this.manager = manager;
+        this.serializers = serializers;
+        this.transport = transport;
+        this.nodeId = nodeId;
+        this.maxBatchEvents = maxBatchEvents;
+        this.maxBatchBytes = maxBatchBytes;
+        this.batch = newBuffer();
+        resetBatch();
+    }
+
+    /**
+     * Starts receiving events from other nodes, and sending the batches queued so far.
+     *
+     * @throws IOException if the transport cannot be started
+     */
+    public synchronized void start() throws IOException {
+        if (sender != null) {
+            throw new IllegalStateException("Already started");
+        }
+        transport.start(new EventTransport.Receiver() {
+            @Override
+            public void receive(ByteBuffer batch) {
+                EventBridge.this.receive(batch);
+            }
+        });
+        sender = new Thread("EventBridge sender " + nodeId) {
+            @Override
+            public void run() {
+                try {
+                    ByteBuffer batch;
+                    while ((batch = pending.take()) != END) {
+                        send(batch);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Marks an event type as distributable, so it is forwarded to the other nodes. A serializer has to be registered for the type.
+     *
+     * @param type the event type
+     */
+    public void distribute(Class<? extends Event<?>> type) {
+        if (!serializers.contains(type)) {
+            throw new IllegalArgumentException("No serializer registered for " + type.getName());
+        }
+        if (distributed.add(type)) {
+            manager.registerEvent(type, Order.MONITOR, new Forwarder(type), this);
+        }
+    }
+
+    /**
+     * @return the most specific distributed type the class extends, or null
+     */
+    private Class<?> distributedType(Class<?> clazz) {
+        while (clazz != null && !distributed.contains(clazz)) {
+            clazz = clazz.getSuperclass();
+        }
+        return clazz;
+    }
+
+    private synchronized void forward(Event<?> event) {
+        @SuppressWarnings ("unchecked")
+        EventSerializer<Event<?>> serializer = (EventSerializer<Event<?>>) serializers.get(event.getClass());
+        if (serializer == null) {
+            return; // A subclass of a distributed type that has no serializer of its own
+        }
+        int start = batch.position();
+        try {
+            encode(event, serializer);
+        } catch (RuntimeException e) {
+            // Leave no partial event behind in the batch
+            batch.position(start);
+            dropped.incrementAndGet();
+            throw e;
+        }
+        batchEvents++;
+        if (batchEvents >= maxBatchEvents || batch.position() >= maxBatchBytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends an event to the batch, growing the batch if it does not fit.
+     */
+    private void encode(Event<?> event, EventSerializer<Event<?>> serializer) {
+        int start = batch.position();
+        while (true) {
+            try {
+                Integer typeIndex = batchTypes.get(event.getClass());
+                if (typeIndex == null) {
+                    byte[] name = event.getClass().getName().getBytes(UTF_8);
+                    batch.putInt(DEFINE_TYPE).putShort((short) name.length).put(name);
+                } else {
+                    batch.putInt(typeIndex);
+                }
+                int lengthPosition = batch.position();
+                batch.putInt(0);
+                serializer.write(event, batch);
+                batch.putInt(lengthPosition, batch.position() - lengthPosition - 4);
+                if (typeIndex == null) {
+                    batchTypes.put(event.getClass(), batchTypes.size());
+                }
+                break;
+            } catch (BufferOverflowException e) {
+                batch.position(start);
+                ByteBuffer larger = ByteBuffer.allocate(batch.capacity() * 2);
+                batch.flip();
+                larger.put(batch);
+                batch = larger;
+            }
+        }
+    }
+
+    /**
+     * Queues the current batch for sending, if it holds any events.
+     */
+    public synchronized void flush() {
+        if (batchEvents == 0) {
+            return;
+        }
+        batch.putInt(8, batchEvents);
+        batch.flip();
+        if (pending.offer(batch)) {
+            batch = newBuffer();
+        } else {
+            dropped.addAndGet(batchEvents);
+            logger.error("Dropped a batch of {} events, {} batches are still waiting to be sent", batchEvents, MAX_PENDING_BATCHES);
+        }
+        resetBatch();
+    }
+
+    private void send(ByteBuffer batch) {
+        int events = batch.getInt(8);
+        try {
+            transport.send(batch);
+            sent.addAndGet(events);
+        } catch (IOException e) {
+            dropped.addAndGet(events);
+            logger.error("Could not send a batch of {} events", events, e);
+        }
+        spare.offer(batch);
+    }
+
+    private ByteBuffer newBuffer() {
+        ByteBuffer buffer = spare.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(Math.max(maxBatchBytes, 1024));
+    }
+
+    private void resetBatch() {
+        batch.clear();
+        batch.putLong(nodeId).putInt(0);
+        batchEvents = 0;
+        batchTypes.clear();
+    }
+
+    /**
+     * Calls the events of a batch received from another node on the local manager.
+     */
+    private void receive(ByteBuffer batch) {
+        try {
+            long origin = batch.getLong();
+            if (origin == nodeId) {
+                return;
+            }
+            int count = batch.getInt();
+            List<EventSerializer<?>> types = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int typeIndex = batch.getInt();
+                EventSerializer<?> serializer;
+                if (typeIndex == DEFINE_TYPE) {
+                    byte[] name = new byte[batch.getShort() & 0xffff];
+                    batch.get(name);
+                    Class<?> type = serializers.getType(new String(name, UTF_8));
+                    serializer = type == null ? null : serializers.get(type.asSubclass(Event.class));
+                    types.add(serializer);
+                } else {
+                    serializer = types.get(typeIndex);
+                }
+                int length = batch.getInt();
+                int end = batch.position() + length;
+                if (serializer == null) {
+                    dropped.incrementAndGet();
+                } else {
+                    ByteBuffer payload = batch.duplicate();
+                    payload.limit(end);
+                    try {
+                        inject(serializer.read(payload));
+                    } catch (RuntimeException e) {
+                        // The record length is known, so one bad event does not cost the rest of the batch
+                        dropped.incrementAndGet();
+                        logger.error("Could not receive an event from node {}", origin, e);
+                    }
+                }
+                batch.position(end);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            logger.error("Received a malformed batch", e);
+        }
+    }
+
+    private void inject(Event<?> event) {
+        received.incrementAndGet();
+        injected.add(event);
+        try {
+            manager.callEvent(event);
+        } finally {
+            injected.remove(event);
+        }
+    }
+
+    private class Forwarder implements EventExecutor {
+        private final Class<?> type;
+
+        private Forwarder(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public void execute(Event<?> event) throws EventException {
+            if (distributedType(event.getClass()) == type && !injected.contains(event)) {
+                forward(event);
+            }
+        }
+    }
+
+    /**
+     * @return the number of events sent to other nodes
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /**
+     * @return the number of events received from other nodes
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return the number of events that could not be sent, or were received without a local serializer or failed to be read or called
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops forwarding events, waits for the queued batches to be sent and closes the transport.
+     */
+    @Override
+    public void close() throws IOException {
+        manager.unRegisterEventsByOwner(this);
+        flush();
+        Thread sender;
+        synchronized (this) {
+            sender = this.sender;
+        }
+        if (sender != null) {
+            try {
+                pending.put(END);
+                sender.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            ByteBuffer batch;
+            while ((batch = pending.poll()) != null) {
+                send(batch);
+            }
+        }
+        transport.close();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Carries batches of serialized events between the {@link EventBridge}s of different nodes.
+ */
+public interface EventTransport extends Closeable {
+    /**
+     * Starts delivering batches sent by other nodes to the receiver.
+     *
+     * @param receiver the receiver of incoming batches
+     * @throws IOException if the transport cannot be started
+     */
+    public void start(Receiver receiver) throws IOException;
+
+    /**
+     * Sends a batch to the other nodes. The batch is only valid for the duration of the call, transports that send asynchronously have to copy it.<br> Transports reaching several nodes
+     * separately should only throw if the batch reached none of them, as the whole batch is then counted as dropped.
+     *
+     * @param batch the batch, from its position to its limit
+     * @throws IOException if the batch cannot be sent
+     */
+    public void send(ByteBuffer batch) throws IOException;
+
+    /**
+     * Receives the batches of other nodes.
+     */
+    public interface Receiver {
+        /**
+         * Called for each incoming batch. The batch is only valid for the duration of the call.
+         *
+         * @param batch the batch, from its position to its limit
+         */
+        public void receive(ByteBuffer batch);
+    }
+}
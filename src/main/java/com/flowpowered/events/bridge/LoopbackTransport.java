@@ -0,0 +1,66 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An {@link EventTransport} between bridges in the same JVM. Every batch sent by one transport is delivered synchronously, on the sending thread, to all other transports of the same {@link Hub}.
+ */
+public class LoopbackTransport implements EventTransport {
+    private final Hub hub;
+    private volatile Receiver receiver;
+
+    public LoopbackTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void start(Receiver receiver) {
+        this.receiver = receiver;
+        hub.transports.addIfAbsent(this);
+    }
+
+    @Override
+    public void send(ByteBuffer batch) {
+        for (LoopbackTransport transport : hub.transports) {
+            if (transport != this) {
+                transport.receiver.receive(batch.asReadOnlyBuffer());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        hub.transports.remove(this);
+    }
+
+    /**
+     * Connects the loopback transports of a simulated cluster.
+     */
+    public static class Hub {
+        private final CopyOnWriteArrayList<LoopbackTransport> transports = new CopyOnWriteArrayList<>();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A single-producer ring of variable sized records in a memory mapped file, which processes on the same host can read from without going through the network stack.<br> The file starts with a
+ * header holding the capacity and the total number of bytes ever published, followed by the ring itself. Records are aligned to 8 bytes and never wrap around the end of the ring, the remaining
+ * space is skipped with a padding marker instead.<br> The producer never waits for consumers. While a record is being published the producer already writes up to one record ahead of the
+ * published position, so a consumer that falls further behind than the capacity less the largest record loses the records it missed, which keeps memory bounded no matter how slow or dead the
+ * consumers are. Every record is copied out of the ring before it is handed out, and discarded if the producer may have overwritten it in the meantime.<br> The write position is published
+ * with a release store and read with an acquire load on the mapped memory itself, so the records are ordered for consumers in other processes as well, on any processor.
+ */
+public class MappedRingBuffer implements Closeable {
+    private static final int MAGIC = 0x464c5242; // FLRB
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int WRITE_POSITION_OFFSET = 8;
+    private static final int HEADER_SIZE = 64;
+    private static final int PADDING = -1;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final boolean producer;
+    /**
+     * The address of the write position in the mapped memory.
+     */
+    private final long writePositionAddress;
+    private long position;
+    private long lost = 0;
+    private ByteBuffer record = ByteBuffer.allocate(256);
+
+    private MappedRingBuffer(File file, int capacity, boolean producer) throws IOException {
+        this.file = new RandomAccessFile(file, producer ? "rw" : "r");
+        try {
+            FileChannel channel = this.file.getChannel();
+            if (producer) {
+                this.file.setLength(HEADER_SIZE + capacity);
+            } else {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException("Not a ring buffer: " + file);
+                }
+                ByteBuffer header = ByteBuffer.allocate(8);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException("Not a ring buffer: " + file);
+                }
+                capacity = header.getInt(CAPACITY_OFFSET);
+            }
+            this.buffer = channel.map(producer ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + capacity);
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+        try {
+            this.writePositionAddress = MemoryOrdering.address(buffer) + WRITE_POSITION_OFFSET;
+        } catch (UnsupportedOperationException e) {
+            this.file.close();
+            throw e;
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.producer = producer;
+        if (producer) {
+            MemoryOrdering.putLongRelease(writePositionAddress, 0);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putInt(0, MAGIC);
+            position = 0;
+        } else {
+            // New consumers start with the records published from now on
+            position = writePosition();
+        }
+    }
+
+    /**
+     * Creates or resets the ring in the given file, for publishing to it.
+     *
+     * @param file the file of the ring
+     * @param capacity the capacity of the ring in bytes, a power of two
+     * @return the producer side of the ring
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static MappedRingBuffer create(File file, int capacity) throws IOException {
+        if (capacity < 64 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity has to be a power of two of at least 64: " + capacity);
+        }
+        return new MappedRingBuffer(file, capacity, true);
+    }
+
+    /**
+     * Opens an existing ring for consuming from it.
+     *
+     * @param file the file of the ring
+     * @return the consumer side of the ring
+     * @throws IOException if the file is not a ring or cannot be mapped
+     */
+    public static MappedRingBuffer open(File file) throws IOException {
+        return new MappedRingBuffer(file, 0, false);
+    }
+
+    /**
+     * Gets the largest record that can be published, a quarter of the ring less the length of the record. The bigger the records may be, the closer to the producer a consumer has to stay,
+     * since the producer may be writing a record of the maximum size ahead of what it published.
+     *
+     * @return the largest record that can be published
+     */
+    public int getMaxRecordSize() {
+        return capacity / 4 - 4;
+    }
+
+    /**
+     * Publishes a record. Only one thread of one process may publish to a ring.
+     *
+     * @param data the record, from its position to its limit
+     * @return false if the record is larger than {@link #getMaxRecordSize()}
+     */
+    public boolean publish(ByteBuffer data) {
+        if (!producer) {
+            throw new IllegalStateException("Ring was opened for consuming");
+        }
+        int length = data.remaining();
+        if (length > getMaxRecordSize()) {
+            return false;
+        }
+        int size = align(4 + length);
+        int offset = (int) (position & mask);
+        if (offset + size > capacity) {
+            buffer.putInt(HEADER_SIZE + offset, PADDING);
+            position += capacity - offset;
+            offset = 0;
+        }
+        ByteBuffer target = buffer.duplicate();
+        target.position(HEADER_SIZE + offset + 4);
+        target.put(data.duplicate());
+        buffer.putInt(HEADER_SIZE + offset, length);
+        position += size;
+        MemoryOrdering.putLongRelease(writePositionAddress, position);
+        return true;
+    }
+
+    /**
+     * Reads the next record, if one has been published.
+     *
+     * @return the record, valid until the next call, or null if the consumer has caught up with the producer
+     */
+    public ByteBuffer poll() {
+        if (producer) {
+            throw new IllegalStateException("Ring was opened for publishing");
+        }
+        while (true) {
+            long written = writePosition();
+            if (written < position) {
+                position = 0; // The producer started over
+            }
+            if (position == written) {
+                return null;
+            }
+            if (overwritten(position, written)) {
+                lost++;
+                position = written;
+                continue;
+            }
+            long start = position;
+            int offset = (int) (start & mask);
+            int length = buffer.getInt(HEADER_SIZE + offset);
+            if (length == PADDING) {
+                position += capacity - offset;
+                continue;
+            }
+            if (length < 0 || length > getMaxRecordSize()) {
+                lost++;
+                position = written;
+                continue;
+            }
+            if (record.capacity() < length) {
+                record = ByteBuffer.allocate(Math.max(length, record.capacity() * 2));
+            }
+            record.clear();
+            ByteBuffer source = buffer.duplicate();
+            source.position(HEADER_SIZE + offset + 4);
+            source.limit(HEADER_SIZE + offset + 4 + length);
+            record.put(source);
+            record.flip();
+            position += align(4 + length);
+            written = validatedWritePosition();
+            if (overwritten(start, written)) {
+                lost++; // Overwritten while it was being copied
+                position = written;
+                continue;
+            }
+            return record;
+        }
+    }
+
+    /**
+     * @return the number of records a consumer missed because it fell behind
+     */
+    public long getLostCount() {
+        return lost;
+    }
+
+    private long writePosition() {
+        return MemoryOrdering.getLongAcquire(writePositionAddress);
+    }
+
+    /**
+     * Reads the write position after a record was copied. The load fence keeps the reads of the copy from moving past the read of the position.
+     */
+    private long validatedWritePosition() {
+        MemoryOrdering.loadFence();
+        return MemoryOrdering.getLongAcquire(writePositionAddress);
+    }
+
+    /**
+     * Checks whether the bytes at a position may have been overwritten once the producer has published up to the given position. Besides what it published, the producer may be writing the
+     * next record, which takes up to a quarter of the ring and starts over at the beginning of the ring if it doesn't fit before its end.
+     *
+     * @param start the position of a record
+     * @param written the published write position
+     * @return whether the record cannot be trusted
+     */
+    private boolean overwritten(long start, long written) {
+        int span = align(getMaxRecordSize() + 4);
+        int offset = (int) (written & mask);
+        long limit = offset + span > capacity ? written - offset + capacity + span : written + span;
+        return limit - start > capacity;
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EventTransport} between processes on the same host, through {@link MappedRingBuffer}s.<br> Each process publishes its batches to a ring file of its own, and polls the ring files of
+ * the other processes on a daemon thread. Rings that do not exist yet are opened as soon as they appear. Combined with an {@link EventBridge} this gives an event bus between JVMs with bounded
+ * memory and latencies in the order of microseconds, without any sockets involved.
+ */
+public class MappedRingTransport implements EventTransport {
+    private static final int SPINS_BEFORE_PARKING = 1000;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private final Logger logger = LoggerFactory.getLogger(MappedRingTransport.class.getSimpleName());
+    private final File publishFile;
+    private final List<File> subscribedFiles;
+    private final int capacity;
+    private MappedRingBuffer publisher;
+    private Thread poller;
+    private volatile boolean closed = false;
+    private volatile long lost = 0;
+
+    /**
+     * @param publishFile the ring file this process publishes to
+     * @param subscribedFiles the ring files of the other processes
+     * @param capacity the capacity of the published ring in bytes, a power of two
+     */
+    public MappedRingTransport(File publishFile, List<File> subscribedFiles, int capacity) {
+        this.publishFile = publishFile;
+        this.subscribedFiles = new ArrayList<>(subscribedFiles);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void start(final Receiver receiver) throws IOException {
+        if (publisher != null) {
+            throw new IllegalStateException("Already started");
+        }
+        publisher = MappedRingBuffer.create(publishFile, capacity);
+        poller = new Thread("MappedRingTransport poller " + publishFile.getName()) {
+            @Override
+            public void run() {
+                poll(receiver);
+            }
+        };
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    private void poll(Receiver receiver) {
+        MappedRingBuffer[] rings = new MappedRingBuffer[subscribedFiles.size()];
+        int idle = 0;
+        try {
+            while (!closed) {
+                boolean received = false;
+                for (int i = 0; i < rings.length; i++) {
+                    if (rings[i] == null) {
+                        rings[i] = tryOpen(subscribedFiles.get(i));
+                        if (rings[i] == null) {
+                            continue;
+                        }
+                    }
+                    ByteBuffer batch;
+                    while ((batch = rings[i].poll()) != null) {
+                        try {
+                            receiver.receive(batch);
+                        } catch (RuntimeException e) {
+                            logger.error("Could not receive a batch from {}", subscribedFiles.get(i), e);
+                        }
+                        received = true;
+                    }
+                }
+                long lost = 0;
+                for (MappedRingBuffer ring : rings) {
+                    lost += ring == null ? 0 : ring.getLostCount();
+                }
+                this.lost = lost;
+                if (received) {
+                    idle = 0;
+                } else if (++idle > SPINS_BEFORE_PARKING) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        } finally {
+            for (MappedRingBuffer ring : rings) {
+                if (ring != null) {
+                    try {
+                        ring.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    private MappedRingBuffer tryOpen(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return MappedRingBuffer.open(file);
+        } catch (IOException e) {
+            return null; // Most likely still being created
+        }
+    }
+
+    /**
+     * @return the number of batches of other processes that were missed because this process fell too far behind
+     */
+    public long getLostCount() {
+        return lost;
+    }
+
+    @Override
+    public synchronized void send(ByteBuffer batch) throws IOException {
+        if (publisher == null || closed) {
+            throw new IOException("Transport is not running");
+        }
+        if (!publisher.publish(batch)) {
+            throw new IOException("Batch of " + batch.remaining() + " bytes exceeds the maximum record size of " + publisher.getMaxRecordSize());
+        }
+    }
+
+    /**
+     * Stops polling, waiting for the poller to close the subscribed rings, and closes the published ring.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        // The receiver may close the transport from the poller itself
+        if (poller != null && poller != Thread.currentThread()) {
+            poller.interrupt();
+            try {
+                poller.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Ordered accesses to the memory of direct buffers, which are also ordered for other processes mapping the same file, since they are carried out by the processor rather than only promised by the
+ * Java memory model.<br> The library targets Java 7, which has neither VarHandles nor a public API for this, so the accesses go through {@code sun.misc.Unsafe}, looked up with method handles that
+ * the JIT inlines like direct calls.
+ */
+final class MemoryOrdering {
+    private static final MethodHandle ADDRESS;
+    private static final MethodHandle PUT_ORDERED_LONG;
+    private static final MethodHandle GET_LONG_VOLATILE;
+    /**
+     * Unsafe.loadFence, which only exists since Java 8, or null.
+     */
+    private static final MethodHandle LOAD_FENCE;
+    private static final Throwable UNAVAILABLE;
+    /**
+     * Only used for the load fence on Java 7, see {@link #loadFence()}.
+     */
+    private static volatile int fence;
+
+    static {
+        MethodHandle address = null;
+        MethodHandle putOrderedLong = null;
+        MethodHandle getLongVolatile = null;
+        MethodHandle loadFence = null;
+        Throwable unavailable = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            long addressOffset = (long) lookup.findVirtual(unsafeClass, "objectFieldOffset", MethodType.methodType(long.class, Field.class))
+                    .bindTo(unsafe).invoke(Buffer.class.getDeclaredField("address"));
+            address = MethodHandles.insertArguments(lookup.findVirtual(unsafeClass, "getLong", MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe), 1, addressOffset)
+                    .asType(MethodType.methodType(long.class, ByteBuffer.class));
+            putOrderedLong = lookup.findVirtual(unsafeClass, "putOrderedLong", MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+            getLongVolatile = lookup.findVirtual(unsafeClass, "getLongVolatile", MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+            try {
+                loadFence = lookup.findVirtual(unsafeClass, "loadFence", MethodType.methodType(void.class)).bindTo(unsafe);
+            } catch (NoSuchMethodException e) {
+                // Java 7
+            }
+        } catch (Throwable t) {
+            unavailable = t;
+        }
+        ADDRESS = address;
+        PUT_ORDERED_LONG = putOrderedLong;
+        GET_LONG_VOLATILE = getLongVolatile;
+        LOAD_FENCE = loadFence;
+        UNAVAILABLE = unavailable;
+    }
+
+    private MemoryOrdering() {
+    }
+
+    /**
+     * @param buffer a direct buffer
+     * @return the address of the first byte of the buffer
+     * @throws UnsupportedOperationException if this JVM does not allow ordered accesses to native memory
+     */
+    static long address(ByteBuffer buffer) {
+        if (UNAVAILABLE != null) {
+            throw new UnsupportedOperationException("Ordered memory accesses are not available on this JVM", UNAVAILABLE);
+        }
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Not a direct buffer");
+        }
+        try {
+            return (long) ADDRESS.invokeExact(buffer);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Stores a value with release semantics: no earlier load or store is reordered after it.
+     */
+    static void putLongRelease(long address, long value) {
+        try {
+            PUT_ORDERED_LONG.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Loads a value with acquire semantics: no later load or store is reordered before it.
+     */
+    static long getLongAcquire(long address) {
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Keeps earlier loads from being reordered after later ones. Java 7 has no such fence, there a volatile store followed by a volatile load is used, which HotSpot compiles to a full fence.
+     */
+    static void loadFence() {
+        if (LOAD_FENCE == null) {
+            fence = 0;
+            int ignored = fence;
+            return;
+        }
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EventTransport} over TCP sockets, meant for connecting a few nodes on one machine or a local network.<br> Every transport listens on its own address and sends each batch, as a
+ * length prefixed frame, to each of its peers. Connections to peers are opened on demand, giving up on a peer that does not accept the connection within the connect timeout. A peer that
+ * failed is skipped until its retry delay has passed, which doubles with every further failure up to 30 seconds, so a peer that is down does not hold up every batch with a connect timeout.
+ * A batch counts as sent if it reached at least one peer, the peers it missed are logged. Incoming connections are served by one daemon thread each.
+ */
+public class SocketTransport implements EventTransport {
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 1000;
+    private static final long DEFAULT_RETRY_DELAY = 100;
+    private static final long MAX_RETRY_DELAY = 30000;
+    private final Logger logger = LoggerFactory.getLogger(SocketTransport.class.getSimpleName());
+    private final InetSocketAddress bindAddress;
+    private final List<InetSocketAddress> peers;
+    private final int connectTimeout;
+    private final long retryDelay;
+    private final DataOutputStream[] outputs;
+    private final Socket[] sockets;
+    /**
+     * The current retry delay of each peer in milliseconds, 0 while it is reachable.
+     */
+    private final long[] delays;
+    /**
+     * The {@link System#nanoTime()} after which each failed peer may be tried again.
+     */
+    private final long[] retryTimes;
+    private final List<Socket> accepted = new ArrayList<>();
+    private ServerSocket server;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a transport that waits up to a second for a peer to accept a connection, and 100 milliseconds before trying a failed peer again.
+     *
+     * @param bindAddress the address to accept batches on
+     * @param peers the addresses of the other nodes
+     */
+    public SocketTransport(InetSocketAddress bindAddress, List<InetSocketAddress> peers) {
+        this(bindAddress, peers, DEFAULT_CONNECT_TIMEOUT);
+    }
+
+    /**
+     * @param bindAddress the address to accept batches on
+     * @param peers the addresses of the other nodes
+     * @param connectTimeout the time in milliseconds to wait for a peer to accept a connection
+     */
+    public SocketTransport(InetSocketAddress bindAddress, List<InetSocketAddress> peers, int connectTimeout) {
+        this(bindAddress, peers, connectTimeout, DEFAULT_RETRY_DELAY);
+    }
+
+    /**
+     * @param bindAddress the address to accept batches on
+     * @param peers the addresses of the other nodes
+     * @param connectTimeout the time in milliseconds to wait for a peer to accept a connection
+     * @param retryDelay the time in milliseconds to wait before trying a failed peer again, doubled with every further failure up to 30 seconds
+     */
+    public SocketTransport(InetSocketAddress bindAddress, List<InetSocketAddress> peers, int connectTimeout, long retryDelay) {
+        if (connectTimeout <= 0) {
+            throw new IllegalArgumentException("Connect timeout has to be positive: " + connectTimeout);
+        }
+        if (retryDelay <= 0) {
+            throw new IllegalArgumentException("Retry delay has to be positive: " + retryDelay);
+        }
+        this.bindAddress = bindAddress;
+        this.peers = new ArrayList<>(peers);
+        this.connectTimeout = connectTimeout;
+        this.retryDelay = retryDelay;
+        this.outputs = new DataOutputStream[peers.size()];
+        this.sockets = new Socket[peers.size()];
+        this.delays = new long[peers.size()];
+        this.retryTimes = new long[peers.size()];
+    }
+
+    @Override
+    public synchronized void start(final Receiver receiver) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Already started");
+        }
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(bindAddress);
+        Thread acceptor = new Thread("SocketTransport acceptor " + bindAddress) {
+            @Override
+            public void run() {
+                while (!closed) {
+                    try {
+                        Socket socket = server.accept();
+                        synchronized (accepted) {
+                            accepted.add(socket);
+                        }
+                        startReader(socket, receiver);
+                    } catch (IOException e) {
+                        if (!closed) {
+                            logger.error("Could not accept connection on {}", bindAddress, e);
+                        }
+                    }
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void startReader(final Socket socket, final Receiver receiver) {
+        Thread reader = new Thread("SocketTransport reader " + socket.getRemoteSocketAddress()) {
+            @Override
+            public void run() {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                    byte[] frame = new byte[4096];
+                    while (!closed) {
+                        int length = in.readInt();
+                        if (length < 0 || length > MAX_FRAME_SIZE) {
+                            throw new IOException("Invalid frame length " + length);
+                        }
+                        if (frame.length < length) {
+                            frame = new byte[Math.max(length, frame.length * 2)];
+                        }
+                        in.readFully(frame, 0, length);
+                        try {
+                            receiver.receive(ByteBuffer.wrap(frame, 0, length));
+                        } catch (RuntimeException e) {
+                            logger.error("Could not receive a batch from {}", socket.getRemoteSocketAddress(), e);
+                        }
+                    }
+                } catch (EOFException e) {
+                    // Peer closed the connection
+                } catch (IOException e) {
+                    if (!closed) {
+                        logger.error("Connection from {} failed", socket.getRemoteSocketAddress(), e);
+                    }
+                } finally {
+                    synchronized (accepted) {
+                        accepted.remove(socket);
+                    }
+                }
+            }
+        };
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Sends the batch to every peer that is not waiting for its retry delay to pass.
+     *
+     * @throws IOException if there are peers, but the batch reached none of them
+     */
+    @Override
+    public synchronized void send(ByteBuffer batch) throws IOException {
+        if (closed) {
+            throw new IOException("Transport is closed");
+        }
+        byte[] bytes;
+        int offset;
+        int length = batch.remaining();
+        if (batch.hasArray()) {
+            bytes = batch.array();
+            offset = batch.arrayOffset() + batch.position();
+        } else {
+            bytes = new byte[length];
+            batch.duplicate().get(bytes);
+            offset = 0;
+        }
+        IOException failure = null;
+        int delivered = 0;
+        long now = System.nanoTime();
+        for (int i = 0; i < peers.size(); i++) {
+            if (delays[i] > 0 && now - retryTimes[i] < 0) {
+                continue;
+            }
+            try {
+                if (outputs[i] == null) {
+                    sockets[i] = new Socket();
+                    sockets[i].setTcpNoDelay(true);
+                    sockets[i].connect(peers.get(i), connectTimeout);
+                    outputs[i] = new DataOutputStream(new BufferedOutputStream(sockets[i].getOutputStream()));
+                }
+                outputs[i].writeInt(length);
+                outputs[i].write(bytes, offset, length);
+                outputs[i].flush();
+                delays[i] = 0;
+                delivered++;
+            } catch (IOException e) {
+                disconnect(i);
+                failed(i, e);
+                failure = e;
+            }
+        }
+        if (delivered == 0 && !peers.isEmpty()) {
+            throw failure != null ? failure : new IOException("No peer is reachable");
+        }
+    }
+
+    /**
+     * Doubles the retry delay of a peer that failed, and logs the failure.
+     */
+    private void failed(int peer, IOException e) {
+        long delay = delays[peer] == 0 ? retryDelay : Math.min(delays[peer] * 2, Math.max(MAX_RETRY_DELAY, retryDelay));
+        delays[peer] = delay;
+        retryTimes[peer] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        logger.warn("Could not send a batch to {}, retrying in {} ms", peers.get(peer), delay, e);
+    }
+
+    private void disconnect(int peer) {
+        outputs[peer] = null;
+        if (sockets[peer] != null) {
+            try {
+                sockets[peer].close();
+            } catch (IOException ignored) {
+            }
+            sockets[peer] = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        for (int i = 0; i < peers.size(); i++) {
+            disconnect(i);
+        }
+        synchronized (accepted) {
+            for (Socket socket : accepted) {
+                socket.close();
+            }
+            accepted.clear();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+}
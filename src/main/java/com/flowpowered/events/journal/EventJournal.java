@@ -0,0 +1,228 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.serialization.EventSerializer;
+import com.flowpowered.events.serialization.SerializerRegistry;
+
+/**
+ * An append-only binary journal of events, written through a memory mapped file.<br> The file consists of a header followed by regions of a fixed size which are mapped one at a time, no record
+ * ever crosses a region boundary. Each event type is described by a definition record the first time it is written, and each event record holds the type, the time since the journal was opened
+ * and the payload written by the {@link EventSerializer} of the type. Events without a serializer are skipped.
+ *
+ * @see EventJournalReader
+ * @see RecordingEventManager
+ */
+public class EventJournal implements Closeable {
+    static final int MAGIC = 0x464c4a31; // FLJ1
+    static final int HEADER_SIZE = 16;
+    static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+    /**
+     * Record length marking the rest of a region as unused.
+     */
+    static final int PADDING = -1;
+    static final byte TYPE_DEFINITION = 0;
+    static final byte EVENT = 1;
+    /**
+     * Length, kind and type id of every record.
+     */
+    static final int RECORD_HEADER_SIZE = 9;
+    /**
+     * Record header followed by the timestamp.
+     */
+    static final int EVENT_HEADER_SIZE = RECORD_HEADER_SIZE + 8;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final SerializerRegistry serializers;
+    private final int regionSize;
+    private final long startNanos = System.nanoTime();
+    private final Map<Class<?>, Integer> typeIds = new IdentityHashMap<>();
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long skipped = 0;
+    private long written = 0;
+    private boolean closed = false;
+
+    public EventJournal(File file, SerializerRegistry serializers) throws IOException {
+        this(file, serializers, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Creates a new journal, replacing any existing file.
+     *
+     * @param file the file to write to
+     * @param serializers the serializers of the event types to record
+     * @param regionSize the size of the mapped regions, which is also the upper limit for the size of a single record
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public EventJournal(File file, SerializerRegistry serializers, int regionSize) throws IOException {
+        if (regionSize < RECORD_HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("Region size too small: " + regionSize);
+        }
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+        this.serializers = serializers;
+        this.regionSize = regionSize;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(regionSize).putLong(System.currentTimeMillis()).flip();
+        channel.write(header, 0);
+        mapRegion(HEADER_SIZE);
+    }
+
+    /**
+     * Appends an event to the journal, if there is a serializer for its type.
+     *
+     * @param event the event to append
+     * @return true if the event was written
+     * @throws IOException if the journal cannot be extended
+     * @throws RuntimeException if the serializer fails, in which case nothing of the event is left in the journal
+     */
+    public synchronized boolean append(Event<?> event) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        @SuppressWarnings ("unchecked")
+        EventSerializer<Event<?>> serializer = (EventSerializer<Event<?>>) serializers.get(event.getClass());
+        if (serializer == null) {
+            skipped++;
+            return false;
+        }
+        long timestamp = System.nanoTime() - startNanos;
+        Integer typeId = typeIds.get(event.getClass());
+        if (typeId == null) {
+            typeId = typeIds.size();
+            writeTypeDefinition(typeId, event.getClass());
+            typeIds.put(event.getClass(), typeId);
+        }
+        for (boolean retried = false; ; retried = true) {
+            // Keep room for a padding marker in case the payload does not fit
+            if (region.remaining() >= EVENT_HEADER_SIZE + 4) {
+                int start = region.position();
+                try {
+                    // The length is filled in last, until then readers see the end of the journal
+                    region.putInt(0).put(EVENT).putInt(typeId).putLong(timestamp);
+                    serializer.write(event, region);
+                    region.putInt(start, region.position() - start - 4);
+                    written++;
+                    return true;
+                } catch (BufferOverflowException e) {
+                    region.position(start);
+                } catch (RuntimeException e) {
+                    // Clear what was written, so readers neither stop at the unfinished header nor mistake the partial payload for records once later events are appended
+                    for (int i = start, end = region.position(); i < end; i++) {
+                        region.put(i, (byte) 0);
+                    }
+                    region.position(start);
+                    throw e;
+                }
+            }
+            if (retried) {
+                throw new IOException("Event " + event + " does not fit into a journal region of " + regionSize + " bytes");
+            }
+            nextRegion();
+        }
+    }
+
+    private void writeTypeDefinition(int typeId, Class<?> type) throws IOException {
+        byte[] name = type.getName().getBytes(UTF_8);
+        int length = RECORD_HEADER_SIZE + 2 + name.length;
+        if (length > regionSize) {
+            throw new IOException("Type name too long for the journal region size: " + type.getName());
+        }
+        if (region.remaining() < length + 4) {
+            nextRegion();
+        }
+        region.putInt(length - 4).put(TYPE_DEFINITION).putInt(typeId).putShort((short) name.length).put(name);
+    }
+
+    private void nextRegion() throws IOException {
+        if (region.remaining() >= 4) {
+            region.putInt(PADDING);
+        }
+        mapRegion(regionStart + regionSize);
+    }
+
+    private void mapRegion(long start) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+        regionStart = start;
+    }
+
+    /**
+     * @return the number of events written so far
+     */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * @return the number of events that were not written because there was no serializer for their type
+     */
+    public synchronized long getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * Flushes the written records to the file.
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            region.force();
+        }
+    }
+
+    /**
+     * Flushes the journal and trims the file to the written records.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long end = regionStart + region.position();
+        region.force();
+        region = null;
+        try {
+            file.setLength(end);
+        } catch (IOException ignored) {
+            // Some platforms refuse to truncate a file that is still mapped, the trailing zeros are read as the end of the journal
+        }
+        file.close();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.serialization.EventSerializer;
+import com.flowpowered.events.serialization.SerializerRegistry;
+
+/**
+ * Reads the events of a journal written by {@link EventJournal}, in the order they were written.<br> Events whose type has no serializer in the given registry are skipped.
+ */
+public class EventJournalReader implements Closeable {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final SerializerRegistry serializers;
+    private final int regionSize;
+    private final long length;
+    private final List<EventSerializer<?>> types = new ArrayList<>();
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long timestamp = -1;
+    private long skipped = 0;
+
+    public EventJournalReader(File file, SerializerRegistry serializers) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.serializers = serializers;
+        this.length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(EventJournal.HEADER_SIZE);
+        if (channel.read(header, 0) < EventJournal.HEADER_SIZE || header.getInt(0) != EventJournal.MAGIC) {
+            this.file.close();
+            throw new IOException("Not an event journal: " + file);
+        }
+        this.regionSize = header.getInt(4);
+        mapRegion(EventJournal.HEADER_SIZE);
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @return the next event, or null at the end of the journal
+     * @throws IOException if the journal is corrupted
+     */
+    public Event<?> next() throws IOException {
+        while (region != null) {
+            if (region.remaining() < 4) {
+                nextRegion();
+                continue;
+            }
+            int start = region.position();
+            int recordLength = region.getInt();
+            if (recordLength == 0) {
+                region.position(start);
+                return null;
+            }
+            if (recordLength == EventJournal.PADDING) {
+                nextRegion();
+                continue;
+            }
+            if (recordLength < EventJournal.RECORD_HEADER_SIZE - 4 || recordLength > region.remaining()) {
+                throw new IOException("Corrupted journal record at " + (regionStart + start));
+            }
+            int end = start + 4 + recordLength;
+            byte kind = region.get();
+            int typeId = region.getInt();
+            if (kind == EventJournal.TYPE_DEFINITION) {
+                byte[] name = new byte[region.getShort() & 0xffff];
+                region.get(name);
+                defineType(typeId, new String(name, EventJournal.UTF_8));
+                continue;
+            }
+            timestamp = region.getLong();
+            EventSerializer<?> serializer = typeId < types.size() ? types.get(typeId) : null;
+            if (serializer == null) {
+                skipped++;
+                region.position(end);
+                continue;
+            }
+            ByteBuffer payload = region.duplicate();
+            payload.limit(end);
+            region.position(end);
+            return serializer.read(payload);
+        }
+        return null;
+    }
+
+    /**
+     * @return the timestamp of the last event returned by {@link #next()}, in nanoseconds since the journal was opened for writing
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the number of events skipped because there was no serializer for their type
+     */
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    private void defineType(int typeId, String name) {
+        while (types.size() <= typeId) {
+            types.add(null);
+        }
+        Class<?> type = serializers.getType(name);
+        types.set(typeId, type == null ? null : serializers.get(type.asSubclass(Event.class)));
+    }
+
+    private void nextRegion() throws IOException {
+        mapRegion(regionStart + regionSize);
+    }
+
+    private void mapRegion(long start) throws IOException {
+        if (start >= length) {
+            region = null;
+            return;
+        }
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, length - start));
+        regionStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        file.close();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.journal;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventManager;
+
+/**
+ * Feeds the events of a journal back into an {@link EventManager}, for example a {@link com.flowpowered.events.SimpleEventManager} with a new set of listeners, and measures how it copes.
+ */
+public class JournalReplayer {
+    private final EventManager manager;
+
+    /**
+     * @param manager the manager to call the replayed events on
+     */
+    public JournalReplayer(EventManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Replays every event of the journal on the calling thread.
+     *
+     * @param reader the journal to replay
+     * @param speed how much faster than originally recorded the events are replayed, 1 for the original pace or 0 to replay as fast as possible
+     * @return throughput and latency of the replay
+     * @throws IOException if the journal cannot be read
+     */
+    public ReplayResult replay(EventJournalReader reader, double speed) throws IOException {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Speed cannot be negative: " + speed);
+        }
+        long[] latencies = new long[1024];
+        int count = 0;
+        long firstTimestamp = -1;
+        long start = System.nanoTime();
+        Event<?> event;
+        while ((event = reader.next()) != null) {
+            if (speed > 0) {
+                if (firstTimestamp < 0) {
+                    firstTimestamp = reader.getTimestamp();
+                }
+                long due = start + (long) ((reader.getTimestamp() - firstTimestamp) / speed);
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            long before = System.nanoTime();
+            manager.callEvent(event);
+            long latency = System.nanoTime() - before;
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+        long elapsed = System.nanoTime() - start;
+        return new ReplayResult(Arrays.copyOf(latencies, count), elapsed);
+    }
+
+    /**
+     * The outcome of a replay.
+     */
+    public static class ReplayResult {
+        private final long[] latencies;
+        private final long elapsedNanos;
+
+        private ReplayResult(long[] latencies, long elapsedNanos) {
+            Arrays.sort(latencies);
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of replayed events
+         */
+        public int getEventCount() {
+            return latencies.length;
+        }
+
+        /**
+         * @return the wall clock time the replay took, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return replayed events per second, including any time spent waiting to keep the original pace
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        /**
+         * @return the average time a single callEvent took, in nanoseconds
+         */
+        public double getMeanLatency() {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            double total = 0;
+            for (long latency : latencies) {
+                total += latency;
+            }
+            return total / latencies.length;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100
+         * @return the time a single callEvent took at the percentile, in nanoseconds
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile out of range: " + percentile);
+            }
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)];
+        }
+
+        public long getMaxLatency() {
+            return latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events in %.3f ms (%.1f events/s), latency mean %.0f ns, p50 %d ns, p99 %d ns, max %d ns", getEventCount(), elapsedNanos / 1e6, getThroughput(),
+                    getMeanLatency(), getLatencyPercentile(50), getLatencyPercentile(99), getMaxLatency());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.journal;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.EventManager;
+import com.flowpowered.events.EventParameter;
+import com.flowpowered.events.EventScheduler;
+import com.flowpowered.events.Order;
+import com.flowpowered.events.ScheduledEvent;
+
+/**
+ * An {@link EventManager} that appends every called event to an {@link EventJournal} before passing it on to another manager. Events are recorded as they were before any listener saw them.<br>
+ * Calls to {@link #callEventWithParameters(Event, List)} are passed on without being recorded. Scheduled events wait in a scheduler of this manager, so they are recorded when they are called.
+ */
+public class RecordingEventManager implements EventManager {
+    private final Logger logger = LoggerFactory.getLogger(RecordingEventManager.class.getSimpleName());
+    private final EventManager delegate;
+    private final EventJournal journal;
+    private final EventScheduler scheduler = new EventScheduler(this);
+    private volatile boolean recording = true;
+
+    /**
+     * @param delegate the manager that handles the events
+     * @param journal the journal to record to
+     */
+    public RecordingEventManager(EventManager delegate, EventJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    /**
+     * Pauses or resumes recording. Events are passed on either way.
+     *
+     * @param recording whether to record events
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Gets the scheduler that calls the events passed to {@link #callEventLater(Event, long)} and {@link #callEventRepeating(Event, long, long)}. It is separate from the one of the delegate.
+     *
+     * @return the scheduler
+     */
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    @SuppressWarnings ("rawtypes")
+    public <T extends Event> T callEvent(T event) {
+        if (recording) {
+            try {
+                journal.append(event);
+            } catch (IOException e) {
+                logger.error("Could not record event {}, recording stopped", event, e);
+                recording = false;
+            } catch (RuntimeException e) {
+                logger.error("Could not serialize event {}, it was not recorded", event, e);
+            }
+        }
+        return delegate.callEvent(event);
+    }
+
+    @Override
+    public <U extends EventParameter, T extends Event<U>> List<U> callEventWithParameters(T event, List<U> parameters) {
+        return delegate.callEventWithParameters(event, parameters);
+    }
+
+    @Override
+    public <T extends Event<?>> ScheduledEvent<T> callEventLater(T event, long delay) {
+        return scheduler.schedule(event, delay);
+    }
+
+    @Override
+    public <T extends Event<?>> ScheduledEvent<T> callEventRepeating(T event, long delay, long period) {
+        return scheduler.scheduleRepeating(event, delay, period);
+    }
+
+    @Override
+    public void unRegisterEventsByListener(Object listener) {
+        delegate.unRegisterEventsByListener(listener);
+    }
+
+    @Override
+    public void unRegisterEventsByOwner(Object owner) {
+        delegate.unRegisterEventsByOwner(owner);
+    }
+
+    @Override
+    public void registerEvents(Object listener, Object owner) {
+        delegate.registerEvents(listener, owner);
+    }
+
+    @Override
+    @SuppressWarnings ("rawtypes")
+    public void registerEvent(Class<? extends Event> event, Order priority, EventExecutor executor, Object owner) {
+        delegate.registerEvent(event, priority, executor, owner);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.reactive;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventException;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.EventManager;
+import com.flowpowered.events.Order;
+
+/**
+ * A Reactive Streams {@link Publisher} of all events of a type called on an {@link EventManager}. Use {@code org.reactivestreams.FlowAdapters} for a {@code java.util.concurrent.Flow} view.<br>
+ * Every subscriber has a bounded buffer. Events are handed to a subscriber as long as it has outstanding demand, and are buffered otherwise. Once the buffer is full the {@link OverflowStrategy}
+ * decides what happens, which can be to block the thread calling the event until the subscriber requests more. Each subscriber can choose its own strategy and buffer size when subscribing,
+ * the ones given to the publisher are the default.<br> Events are delivered from the thread calling them or from the thread requesting
+ * more, and can reach subscribers after listeners of later order slots have run. Events which are modified or reused after being called should be copied by the subscriber.
+ *
+ * @param <T> the type of event
+ */
+public class EventPublisher<T extends Event<?>> implements Publisher<T>, Closeable {
+    private final EventManager manager;
+    private final Class<T> type;
+    private final OverflowStrategy overflow;
+    private final int bufferSize;
+    private final CopyOnWriteArrayList<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a publisher of the events that reach the {@link Order#MONITOR} slot, with a buffer of 256 events per subscriber.
+     *
+     * @param manager the manager to publish the events of
+     * @param type the type of event
+     * @param overflow what to do by default when a subscriber cannot keep up
+     */
+    public EventPublisher(EventManager manager, Class<T> type, OverflowStrategy overflow) {
+        this(manager, type, Order.MONITOR, overflow, 256);
+    }
+
+    /**
+     * @param manager the manager to publish the events of
+     * @param type the type of event
+     * @param order the order slot to pick the events up at
+     * @param overflow what to do by default when a subscriber cannot keep up
+     * @param bufferSize how many events are buffered per subscriber by default
+     */
+    public EventPublisher(EventManager manager, Class<T> type, Order order, OverflowStrategy overflow, int bufferSize) {
+        checkBuffer(overflow, bufferSize);
+        this.manager = manager;
+        this.type = type;
+        this.overflow = overflow;
+        this.bufferSize = bufferSize;
+        manager.registerEvent(type, order, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) throws EventException {
+                publish(EventPublisher.this.type.cast(event));
+            }
+        }, this);
+    }
+
+    private static void checkBuffer(OverflowStrategy overflow, int bufferSize) {
+        if (overflow == null) {
+            throw new NullPointerException("Overflow strategy cannot be null");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size has to be positive");
+        }
+    }
+
+    /**
+     * Subscribes with the default overflow strategy and buffer size of this publisher.
+     */
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        subscribe(subscriber, overflow, bufferSize);
+    }
+
+    /**
+     * Subscribes with an overflow strategy and buffer size of its own, for subscribers which cannot keep up in a different way than the others.
+     *
+     * @param subscriber the subscriber
+     * @param overflow what to do when the subscriber cannot keep up
+     * @param bufferSize how many events are buffered for the subscriber
+     */
+    public void subscribe(Subscriber<? super T> subscriber, OverflowStrategy overflow, int bufferSize) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        checkBuffer(overflow, bufferSize);
+        EventSubscription subscription = new EventSubscription(subscriber, overflow, bufferSize);
+        // The subscriber has to be told about its subscription before any event can be delivered to it
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) {
+            return;
+        }
+        subscriptions.add(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    private void publish(T event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * @return the number of events dropped or replaced because a subscriber could not keep up
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops publishing events. Subscribers receive the events still buffered for them, followed by {@link Subscriber#onComplete()}. Threads blocked on a full buffer by
+     * {@link OverflowStrategy#BLOCK} are released, and their events dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        manager.unRegisterEventsByOwner(this);
+        for (EventSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    private class EventSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final OverflowStrategy overflow;
+        private final int bufferSize;
+        /**
+         * Guarded by itself, waited on by blocked publishers.
+         */
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile boolean completed = false;
+        private volatile Throwable error = null;
+        private boolean terminated = false;
+
+        private EventSubscription(Subscriber<? super T> subscriber, OverflowStrategy overflow, int bufferSize) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+            this.bufferSize = bufferSize;
+        }
+
+        private void offer(T event) {
+            synchronized (buffer) {
+                while (buffer.size() >= bufferSize && !cancelled && !completed) {
+                    switch (overflow) {
+                        case DROP_OLDEST:
+                            buffer.pollFirst();
+                            dropped.incrementAndGet();
+                            break;
+                        case DROP_NEWEST:
+                            dropped.incrementAndGet();
+                            return;
+                        case COALESCE:
+                            buffer.pollLast();
+                            dropped.incrementAndGet();
+                            break;
+                        case BLOCK:
+                            try {
+                                buffer.wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                dropped.incrementAndGet();
+                                return;
+                            }
+                            break;
+                    }
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (completed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                buffer.addLast(event);
+            }
+            drain();
+        }
+
+        private void complete() {
+            synchronized (buffer) {
+                completed = true;
+                buffer.notifyAll();
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested a non-positive number of events: " + n);
+                drain();
+                return;
+            }
+            long current;
+            long updated;
+            do {
+                current = requested.get();
+                updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, updated));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (buffer) {
+                buffer.clear();
+                buffer.notifyAll();
+            }
+        }
+
+        /**
+         * Delivers buffered events while there is demand. Only one thread drains at a time, others just make sure the draining thread loops once more.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (error != null && !terminated) {
+                    terminated = true;
+                    cancel();
+                    subscriber.onError(error);
+                }
+                while (!cancelled && requested.get() > 0) {
+                    T event;
+                    synchronized (buffer) {
+                        event = buffer.pollFirst();
+                        if (event != null && overflow == OverflowStrategy.BLOCK) {
+                            buffer.notifyAll();
+                        }
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    if (requested.get() != Long.MAX_VALUE) {
+                        requested.decrementAndGet();
+                    }
+                    subscriber.onNext(event);
+                }
+                if (completed && !cancelled && !terminated) {
+                    boolean empty;
+                    synchronized (buffer) {
+                        empty = buffer.isEmpty();
+                    }
+                    if (empty) {
+                        terminated = true;
+                        subscriptions.remove(this);
+                        subscriber.onComplete();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
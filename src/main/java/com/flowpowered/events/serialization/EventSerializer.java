@@ -0,0 +1,53 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.serialization;
+
+import java.nio.ByteBuffer;
+
+import com.flowpowered.events.Event;
+
+/**
+ * Converts events of one type to and from a compact binary form.
+ *
+ * @param <T> the type of event
+ * @see SerializerRegistry
+ */
+public interface EventSerializer<T extends Event<?>> {
+    /**
+     * Writes the event to the buffer, starting at its current position.
+     *
+     * @param event the event to write
+     * @param buffer the buffer to write to
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough room left
+     */
+    public void write(T event, ByteBuffer buffer);
+
+    /**
+     * Reads an event written by {@link #write(Event, ByteBuffer)}, starting at the current position of the buffer.
+     *
+     * @param buffer the buffer to read from
+     * @return the read event
+     */
+    public T read(ByteBuffer buffer);
+}
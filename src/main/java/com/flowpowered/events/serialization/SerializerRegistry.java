@@ -0,0 +1,73 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.serialization;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.flowpowered.events.Event;
+
+/**
+ * The {@link EventSerializer}s known for each event type. Serializers are looked up by the exact class of an event, and by class name when reading.
+ */
+public class SerializerRegistry {
+    private final Map<Class<?>, EventSerializer<?>> byClass = new ConcurrentHashMap<>();
+    private final Map<String, Class<?>> byName = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the serializer to use for events of exactly the given type.
+     *
+     * @param type the event type
+     * @param serializer the serializer for the type
+     */
+    public <T extends Event<?>> void register(Class<T> type, EventSerializer<T> serializer) {
+        byClass.put(type, serializer);
+        byName.put(type.getName(), type);
+    }
+
+    /**
+     * @param type the event type
+     * @return the serializer for the type, or null if there is none
+     */
+    @SuppressWarnings ("unchecked")
+    public <T extends Event<?>> EventSerializer<T> get(Class<T> type) {
+        return (EventSerializer<T>) byClass.get(type);
+    }
+
+    /**
+     * @param name the name of the event type
+     * @return the registered event type with that name, or null if there is none
+     */
+    public Class<?> getType(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @param type the event type
+     * @return true if a serializer is registered for the type
+     */
+    public boolean contains(Class<?> type) {
+        return byClass.containsKey(type);
+    }
+}
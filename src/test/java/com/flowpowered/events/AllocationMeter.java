@@ -0,0 +1,76 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+
+/**
+ * Measures how many bytes the current thread allocates while running a piece of code many times, using the allocation counter of the HotSpot {@link com.sun.management.ThreadMXBean}.
+ */
+public final class AllocationMeter {
+    /**
+     * What a measured loop may allocate in total. A single allocation per call adds at least 16 bytes per call, which is far above this over {@link #CALLS} calls, while the counter itself and
+     * the odd lazily initialized field stay well below it.
+     */
+    public static final long BUDGET = 64 * 1024;
+    public static final int CALLS = 2000000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 3;
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Runs the code {@link #CALLS} times per round, until it has been compiled, and then measures a few more rounds. Skips the calling test if the JVM cannot count allocations.
+     *
+     * @param code the code to measure
+     * @return the fewest bytes allocated by a measured round
+     */
+    public static long measure(Runnable code) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long id = Thread.currentThread().getId();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            run(code);
+        }
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            run(code);
+            fewest = Math.min(fewest, threads.getThreadAllocatedBytes(id) - before);
+        }
+        return fewest;
+    }
+
+    private static void run(Runnable code) {
+        for (int i = 0; i < CALLS; i++) {
+            code.run();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Registers batch executors that record the batches they get, and checks when batches are delivered and what happens when delivering one fails.
+ */
+public class BatchEventTest {
+    private final SimpleEventManager manager = new SimpleEventManager();
+    private final List<List<Event<?>>> batches = new ArrayList<>();
+    private final BatchEventExecutor recorder = new BatchEventExecutor() {
+        @Override
+        public void execute(Event<?>[] events) {
+            batches.add(Arrays.asList(events));
+        }
+    };
+
+    @Test
+    public void deliverFullBatches() {
+        manager.registerBatchEvent(TestEvent.class, Order.DEFAULT, recorder, this, 40, 0);
+        List<Event<?>> events = call(100);
+        assertEquals(2, batches.size());
+        assertEquals(events.subList(0, 40), batches.get(0));
+        assertEquals(events.subList(40, 80), batches.get(1));
+        // A full buffer is handed over as it is, so it has exactly the batch size
+        assertEquals(40, batches.get(1).size());
+        manager.flushBatches();
+        assertEquals(events.subList(80, 100), batches.get(2));
+    }
+
+    @Test
+    public void deliverOnFlush() {
+        manager.registerBatchEvent(TestEvent.class, Order.DEFAULT, recorder, this, 1000, 0);
+        List<Event<?>> first = call(1);
+        manager.flushBatches();
+        // Nothing collected, nothing delivered
+        manager.flushBatches();
+        List<Event<?>> second = call(3);
+        manager.flushBatches();
+        assertEquals(Arrays.asList(first, second), batches);
+    }
+
+    @Test
+    public void deliverOnUnregister() {
+        manager.registerBatchEvent(TestEvent.class, Order.DEFAULT, recorder, this, 10, 0);
+        List<Event<?>> events = call(3);
+        manager.unRegisterEventsByOwner(this);
+        assertEquals(Arrays.asList(events), batches);
+        assertEquals(0, manager.getBatchExecutorCount());
+        call(10);
+        manager.flushBatches();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void failedBatchReachesErrorHandler() {
+        final List<ListenerRegistration> failed = new ArrayList<>();
+        final List<Event<?>> failedEvents = new ArrayList<>();
+        manager.setErrorHandler(new ListenerErrorHandler() {
+            @Override
+            public boolean handleError(Event<?> event, ListenerRegistration registration, Throwable error) {
+                failed.add(registration);
+                failedEvents.add(event);
+                // Give up on the executor after its second failure
+                return registration.getConsecutiveFailures() >= 2;
+            }
+        });
+        manager.registerBatchEvent(TestEvent.class, Order.DEFAULT, new BatchEventExecutor() {
+            @Override
+            public void execute(Event<?>[] events) throws EventException {
+                batches.add(Arrays.asList(events));
+                throw new EventException("Failing on purpose");
+            }
+        }, this, 2, 0);
+        List<Event<?>> events = call(4);
+        assertEquals(2, failed.size());
+        assertSame(failed.get(0), failed.get(1));
+        assertSame(this, failed.get(0).getOwner());
+        // The error is reported for the first event of the batch
+        assertEquals(Arrays.asList(events.get(0), events.get(2)), failedEvents);
+        // The executor was unregistered and forgotten
+        assertEquals(0, manager.getBatchExecutorCount());
+        call(4);
+        manager.flushBatches();
+        assertEquals(2, batches.size());
+    }
+
+    private List<Event<?>> call(int count) {
+        List<Event<?>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(manager.callEvent(new TestEvent()));
+        }
+        return events;
+    }
+
+    public static class TestEvent extends SimpleEvent {
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Builds chains of causes and checks the nearest cause and source of each type found from every link, before and after the lookups have been cached.
+ */
+public class CauseTest {
+    @Test
+    public void firstCauseIsTheRoot() {
+        PlayerCause root = new PlayerCause("alice", null);
+        PluginCause child = new PluginCause(root);
+        PlayerCause grandchild = new PlayerCause("bob", child);
+        assertNull(root.getFirstCause());
+        assertSame(root, child.getFirstCause());
+        assertSame(root, grandchild.getFirstCause());
+    }
+
+    @Test
+    public void nearestOfRepeatedTypesAndSources() {
+        String alice = "alice";
+        PlayerCause root = new PlayerCause(alice, null);
+        PluginCause plugin = new PluginCause(root);
+        PlayerCause bob = new PlayerCause("bob", plugin);
+        // The same source further down the chain
+        PlayerCause again = new PlayerCause(alice, bob);
+        BlockCause block = new BlockCause(7, again);
+        // Twice, so the second round is answered from the caches
+        for (int i = 0; i < 2; i++) {
+            assertSame(again, block.first(PlayerCause.class));
+            assertSame(plugin, block.first(PluginCause.class));
+            assertSame(block, block.first(BlockCause.class));
+            assertSame(alice, block.firstSource(String.class));
+            assertEquals(Integer.valueOf(7), block.firstSource(Integer.class));
+            assertSame(root, plugin.first(PlayerCause.class));
+            assertSame("bob", bob.firstSource(String.class));
+            assertSame(alice, plugin.firstSource(String.class));
+            assertNull(root.first(PluginCause.class));
+            assertNull(block.firstSource(Double.class));
+            assertTrue(block.contains(PluginCause.class));
+            assertFalse(plugin.contains(BlockCause.class));
+        }
+    }
+
+    @Test
+    public void extendCachedChain() {
+        PlayerCause root = new PlayerCause("alice", null);
+        PluginCause plugin = new PluginCause(root);
+        assertSame(root, plugin.first(PlayerCause.class));
+        assertNull(plugin.first(BlockCause.class));
+        assertNull(plugin.firstSource(Integer.class));
+        // Extending the chain does not change what the existing causes find, but the new causes find the new links
+        BlockCause block = new BlockCause(3, plugin);
+        PlayerCause bob = new PlayerCause("bob", block);
+        assertNull(plugin.first(BlockCause.class));
+        assertNull(plugin.firstSource(Integer.class));
+        assertSame(block, bob.first(BlockCause.class));
+        assertEquals(Integer.valueOf(3), bob.firstSource(Integer.class));
+        assertSame(bob, bob.first(PlayerCause.class));
+        assertSame(root, block.first(PlayerCause.class));
+        assertSame(plugin, bob.first(PluginCause.class));
+        // A sibling shares the cached lookups of its parent
+        BlockCause sibling = new BlockCause(4, plugin);
+        assertSame(root, sibling.first(PlayerCause.class));
+        assertEquals(Integer.valueOf(4), sibling.firstSource(Integer.class));
+    }
+
+    @Test
+    public void lookupsBeyondTheCache() {
+        Cause<?> cause = new PlayerCause("alice", null);
+        cause = new PluginCause(cause);
+        cause = new BlockCause(1, cause);
+        Class<?>[] types = {String.class, Integer.class, Object.class, Double.class, Long.class, CharSequence.class, Number.class, Comparable.class, Short.class, Byte.class};
+        // More distinct lookups than a cause remembers, each done twice
+        for (int i = 0; i < 2; i++) {
+            for (Class<?> type : types) {
+                Object source = cause.firstSource(type);
+                if (type == Double.class || type == Long.class || type == Short.class || type == Byte.class) {
+                    assertNull(type.getName(), source);
+                } else {
+                    assertTrue(type.getName(), type.isInstance(source));
+                }
+            }
+        }
+        assertSame("alice", cause.firstSource(String.class));
+        assertEquals(Integer.valueOf(1), cause.firstSource(Number.class));
+    }
+
+    private static class PlayerCause extends Cause<String> {
+        private final String name;
+
+        private PlayerCause(String name, Cause<?> parent) {
+            super(parent);
+            this.name = name;
+        }
+
+        @Override
+        public String getSource() {
+            return name;
+        }
+    }
+
+    private static class PluginCause extends Cause<Object> {
+        private final Object plugin = new Object();
+
+        private PluginCause(Cause<?> parent) {
+            super(parent);
+        }
+
+        @Override
+        public Object getSource() {
+            return plugin;
+        }
+    }
+
+    private static class BlockCause extends Cause<Integer> {
+        private final int block;
+
+        private BlockCause(int block, Cause<?> parent) {
+            super(parent);
+            this.block = block;
+        }
+
+        @Override
+        public Integer getSource() {
+            return block;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks how consecutive concurrent listeners are grouped into stages, and that a manager with a concurrent executor runs the listeners of a stage in parallel, routes their failures and
+ * honours cancellation between stages.
+ */
+public class ConcurrentStageTest {
+    private final SimpleEventManager manager = new SimpleEventManager();
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        manager.setConcurrentExecutor(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void groupConsecutiveConcurrentListenersOfAnOrder() {
+        HandlerList list = new HandlerList();
+        list.register(registration(Order.EARLY, true));
+        list.register(registration(Order.EARLY, true));
+        list.register(registration(Order.EARLY, false));
+        list.register(registration(Order.EARLY, true));
+        list.register(registration(Order.DEFAULT, true));
+        list.register(registration(Order.LATE, true));
+        list.register(registration(Order.LATE, true));
+        list.register(registration(Order.LATE, true));
+        ListenerRegistration[] baked = list.bake();
+        assertArrayEquals(new int[] {2, 2, 3, 4, 5, 8, 8, 8}, list.getConcurrentStages(baked));
+        // Without a stage of more than one listener there is nothing to run in parallel
+        HandlerList sequential = new HandlerList();
+        sequential.register(registration(Order.EARLY, true));
+        sequential.register(registration(Order.DEFAULT, true));
+        assertNull(sequential.getConcurrentStages(sequential.bake()));
+    }
+
+    @Test
+    public void runStageInParallelBeforeTheNextSlot() {
+        MeetingListener listener = new MeetingListener();
+        manager.registerEvent(TestEvent.class, Order.EARLY, recorder("early"), this);
+        manager.registerEvents(listener, this);
+        manager.registerEvent(TestEvent.class, Order.LATE, recorder("late"), this);
+        manager.callEvent(new TestEvent());
+        assertEquals(Arrays.asList("early", "stage", "stage", "late"), calls);
+        // The calling thread runs the first listener of the stage itself, the other one runs on the pool
+        assertEquals(2, listener.threads.size());
+        assertTrue(listener.threads.remove(Thread.currentThread()));
+        assertSame(pool, ((ForkJoinWorkerThread) listener.threads.get(0)).getPool());
+    }
+
+    @Test
+    public void routeFailuresOfParallelListeners() {
+        final List<ListenerRegistration> failed = Collections.synchronizedList(new ArrayList<ListenerRegistration>());
+        manager.setErrorHandler(new ListenerErrorHandler() {
+            @Override
+            public boolean handleError(Event<?> event, ListenerRegistration registration, Throwable error) {
+                failed.add(registration);
+                // Unregister the failing listener
+                return true;
+            }
+        });
+        manager.registerEvents(new FailingListener(), this);
+        manager.callEvent(new TestEvent());
+        assertEquals(2, calls.size());
+        assertEquals(1, failed.size());
+        assertTrue(failed.get(0).isConcurrent());
+        // The failing listener was unregistered, the others of its stage are still called
+        calls.clear();
+        manager.callEvent(new TestEvent());
+        assertEquals(2, calls.size());
+        assertEquals(1, failed.size());
+    }
+
+    @Test
+    public void cancellationTakesEffectAfterTheStage() {
+        manager.registerEvents(new CancellingListener(), this);
+        manager.registerEvent(TestEvent.class, Order.MONITOR_IGNORE_CANCELLED, recorder("monitor"), this);
+        TestEvent event = new TestEvent();
+        manager.callEvent(event);
+        assertTrue(event.isCancelled());
+        // The sibling started along with the cancelling listener, so it still runs, but the next stage only runs if it ignores cancellation
+        assertEquals(3, calls.size());
+        assertTrue(calls.containsAll(Arrays.asList("cancelling", "sibling")));
+        assertEquals("monitor", calls.get(2));
+    }
+
+    private EventExecutor recorder(final String name) {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add(name);
+            }
+        };
+    }
+
+    private ListenerRegistration registration(Order order, boolean concurrent) {
+        return new ListenerRegistration(recorder(order.name()), order, this, concurrent);
+    }
+
+    public class MeetingListener {
+        private final CyclicBarrier barrier = new CyclicBarrier(2);
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        @EventHandler (concurrent = true)
+        public void first(TestEvent event) throws Exception {
+            meet();
+        }
+
+        @EventHandler (concurrent = true)
+        public void second(TestEvent event) throws Exception {
+            meet();
+        }
+
+        private void meet() throws Exception {
+            threads.add(Thread.currentThread());
+            // Only returns if both listeners of the stage run at the same time
+            barrier.await(5, TimeUnit.SECONDS);
+            calls.add("stage");
+        }
+    }
+
+    public class FailingListener {
+        @EventHandler (concurrent = true)
+        public void first(TestEvent event) {
+            calls.add("first");
+        }
+
+        @EventHandler (concurrent = true)
+        public void failing(TestEvent event) {
+            throw new IllegalStateException("Failing on purpose");
+        }
+
+        @EventHandler (concurrent = true)
+        public void third(TestEvent event) {
+            calls.add("third");
+        }
+    }
+
+    public class CancellingListener {
+        @EventHandler (concurrent = true)
+        public void cancelling(TestEvent event) {
+            event.setCancelled(true);
+            calls.add("cancelling");
+        }
+
+        @EventHandler (concurrent = true)
+        public void sibling(TestEvent event) {
+            calls.add("sibling");
+        }
+
+        @EventHandler (order = Order.LATE, concurrent = true)
+        public void late(TestEvent event) {
+            calls.add("late");
+        }
+
+        @EventHandler (order = Order.LATE, concurrent = true)
+        public void otherLate(TestEvent event) {
+            calls.add("late");
+        }
+    }
+
+    public static class TestEvent extends SimpleEvent implements Cancellable {
+        @Override
+        public void setCancelled(boolean cancelled) {
+            super.setCancelled(cancelled);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.flowpowered.events.Event.VoidParameter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that calling an event whose handler list is already baked allocates nothing besides what the listeners allocate, which none of the listeners here do.
+ */
+public class DispatchAllocationTest {
+    @Test
+    public void callEventWithExecutors() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        final CountingExecutor executor = new CountingExecutor();
+        for (Order order : new Order[] {Order.EARLY, Order.DEFAULT, Order.MONITOR}) {
+            manager.registerEvent(TestEvent.class, order, new CountingExecutor(), this);
+        }
+        manager.registerEvent(TestEvent.class, Order.LATE, executor, this);
+        final TestEvent event = new TestEvent();
+        assertWithinBudget("SimpleEventManager.callEvent", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEvent(event);
+            }
+        });
+        assertTrue(executor.calls > 0);
+    }
+
+    @Test
+    public void callEventWithAnnotatedListener() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        final TestListener listener = new TestListener();
+        manager.registerEvents(listener, this);
+        final TestEvent event = new TestEvent();
+        assertWithinBudget("SimpleEventManager.callEvent to an @EventHandler", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEvent(event);
+            }
+        });
+        assertTrue(listener.calls > 0);
+    }
+
+    @Test
+    public void callEventOfSubclass() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        final CountingExecutor executor = new CountingExecutor();
+        manager.registerEvent(TestEvent.class, Order.DEFAULT, executor, this);
+        manager.registerEvent(SubTestEvent.class, Order.DEFAULT, new CountingExecutor(), this);
+        final SubTestEvent event = new SubTestEvent();
+        assertWithinBudget("SimpleEventManager.callEvent to a superclass", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEvent(event);
+            }
+        });
+        assertTrue(executor.calls > 0);
+    }
+
+    @Test
+    public void callInlineEvent() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        final CountingExecutor executor = new CountingExecutor();
+        manager.registerEvent(TestInlineEvent.class, Order.DEFAULT, executor, this);
+        manager.registerEvent(TestInlineEvent.class, Order.LATE, new CountingExecutor(), this);
+        final TestInlineEvent event = new TestInlineEvent();
+        assertWithinBudget("SimpleEventManager.callEvent of an InlineEvent", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEvent(event);
+            }
+        });
+        assertTrue(executor.calls > 0);
+    }
+
+    @Test
+    public void callFusedEvent() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        manager.setFusionThreshold(1);
+        final TestListener listener = new TestListener();
+        manager.registerEvents(listener, this);
+        manager.registerEvent(TestEvent.class, Order.LATE, new CountingExecutor(), this);
+        final TestEvent event = new TestEvent();
+        assertWithinBudget("SimpleEventManager.callEvent through a fused dispatcher", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEvent(event);
+            }
+        });
+        assertTrue(listener.calls > 0);
+    }
+
+    @Test
+    public void callEventWithStatistics() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        manager.setStatisticsEnabled(true);
+        manager.registerEvent(TestEvent.class, Order.DEFAULT, new CountingExecutor(), this);
+        final TestEvent event = new TestEvent();
+        final TestInlineEvent unheard = new TestInlineEvent();
+        assertWithinBudget("SimpleEventManager.callEvent while counting calls", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEvent(event);
+                manager.callEvent(unheard);
+            }
+        });
+        assertEquals(2, manager.getStatistics().size());
+    }
+
+    @Test
+    public void callEventWithParameters() {
+        final SimpleEventManager manager = new SimpleEventManager();
+        final CountingExecutor executor = new CountingExecutor();
+        manager.registerEvent(TestEvent.class, Order.DEFAULT, executor, this);
+        final TestEvent event = new TestEvent();
+        final List<VoidParameter> parameters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            parameters.add(new VoidParameter());
+        }
+        final int[] runs = new int[1];
+        assertWithinBudget("SimpleEventManager.callEventWithParameters", new Runnable() {
+            @Override
+            public void run() {
+                manager.callEventWithParameters(event, parameters);
+                runs[0]++;
+            }
+        });
+        assertTrue(runs[0] > 0);
+        assertEquals((long) runs[0] * parameters.size(), executor.calls);
+    }
+
+    static void assertWithinBudget(String what, Runnable code) {
+        long allocated = AllocationMeter.measure(code);
+        assertTrue(what + " allocated " + allocated + " bytes in " + AllocationMeter.CALLS + " calls", allocated <= AllocationMeter.BUDGET);
+    }
+
+    public static class TestEvent extends SimpleEvent {
+    }
+
+    public static class SubTestEvent extends TestEvent {
+    }
+
+    public static class TestInlineEvent extends InlineEvent {
+    }
+
+    public static class TestListener {
+        private int calls = 0;
+
+        @EventHandler
+        public void onTest(TestEvent event) {
+            calls++;
+        }
+    }
+
+    private static class CountingExecutor implements EventExecutor {
+        private int calls = 0;
+
+        @Override
+        public void execute(Event<?> event) {
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Calls events on listeners that fail on demand, and checks what the error handler of the manager gets to see and what {@link LoggingErrorHandler} logs.
+ */
+public class ErrorHandlerTest {
+    private SimpleEventManager manager;
+    private List<String> logged;
+    private Logger logger;
+    private int calls;
+
+    @Before
+    public void setUp() {
+        manager = new SimpleEventManager();
+        logged = new ArrayList<>();
+        logger = recordingLogger(logged);
+        calls = 0;
+        manager.registerEvent(FailingEvent.class, Order.DEFAULT, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) throws EventException {
+                calls++;
+                ((FailingEvent) event).fail();
+            }
+        }, this);
+    }
+
+    @Test
+    public void rateLimitPerRegistration() throws InterruptedException {
+        manager.setErrorHandler(new LoggingErrorHandler(logger, 2, 200, TimeUnit.MILLISECONDS, 0));
+        for (int i = 0; i < 5; i++) {
+            manager.callEvent(new FailingEvent(new IllegalStateException("failure " + i)));
+        }
+        assertEquals(Arrays.asList("error Could not pass event {} to {}", "error Could not pass event {} to {}"), logged);
+        Thread.sleep(250);
+        manager.callEvent(new FailingEvent(new IllegalStateException("failure 5")));
+        assertEquals(Arrays.asList("error Suppressed {} more errors of a listener of {}", "error Could not pass event {} to {}"), logged.subList(2, 4));
+        assertEquals(4, logged.size());
+        assertEquals(6, calls);
+    }
+
+    @Test
+    public void stacklessFailuresAreWarnings() {
+        manager.setErrorHandler(new LoggingErrorHandler(logger));
+        EventException expected = new EventException("expected", null, false);
+        assertTrue(expected.isStackless());
+        assertFalse(new EventException("unexpected").isStackless());
+        manager.callEvent(new FailingEvent(expected));
+        manager.callEvent(new FailingEvent(new EventException("unexpected")));
+        assertEquals(Arrays.asList("warn Could not pass event {} to {}: {}", "error Could not pass event {} to {}"), logged);
+    }
+
+    @Test
+    public void customErrorHandler() {
+        final List<Throwable> errors = new ArrayList<>();
+        manager.setErrorHandler(new ListenerErrorHandler() {
+            @Override
+            public boolean handleError(Event<?> event, ListenerRegistration registration, Throwable error) {
+                errors.add(error);
+                assertSame(ErrorHandlerTest.this, registration.getOwner());
+                assertEquals(errors.size(), registration.getFailureCount());
+                // Give up on the listener after its second failure
+                return registration.getConsecutiveFailures() >= 2;
+            }
+        });
+        IllegalStateException failure = new IllegalStateException("failure");
+        manager.callEvent(new FailingEvent(failure));
+        assertSame(failure, errors.get(0).getCause());
+        manager.callEvent(new FailingEvent(null));
+        manager.callEvent(new FailingEvent(failure));
+        manager.callEvent(new FailingEvent(failure));
+        manager.callEvent(new FailingEvent(failure));
+        assertEquals(3, errors.size());
+        assertEquals(4, calls);
+        assertTrue(logged.isEmpty());
+    }
+
+    @Test
+    public void unregisterAfterConsecutiveFailures() {
+        manager.setErrorHandler(new LoggingErrorHandler(logger, 0, 0, TimeUnit.SECONDS, 3));
+        Throwable failure = new IllegalStateException("failure");
+        for (Throwable error : new Throwable[] {failure, failure, null, failure, failure, failure, failure, null}) {
+            manager.callEvent(new FailingEvent(error));
+        }
+        assertEquals(6, calls);
+        assertEquals("error Unregistering a listener of {} after {} consecutive failures", logged.get(logged.size() - 1));
+        assertEquals(6, logged.size());
+    }
+
+    /**
+     * Creates a logger which records the level and message format of each call.
+     */
+    private static Logger recordingLogger(final List<String> logged) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[] {Logger.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getReturnType() == boolean.class) {
+                    return true;
+                } else if (method.getReturnType() == String.class) {
+                    return "test";
+                }
+                logged.add(method.getName() + " " + args[0]);
+                return null;
+            }
+        });
+    }
+
+    public static class FailingEvent extends SimpleEvent {
+        private final Throwable failure;
+
+        public FailingEvent(Throwable failure) {
+            this.failure = failure;
+        }
+
+        private void fail() throws EventException {
+            if (failure instanceof EventException) {
+                throw (EventException) failure;
+            } else if (failure != null) {
+                throw new EventException(failure, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ticks an {@link EventScheduler} by hand and checks on which tick each scheduled event is called.
+ */
+public class EventSchedulerTest {
+    private SimpleEventManager manager;
+    private EventScheduler scheduler;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        manager = new SimpleEventManager();
+        scheduler = new EventScheduler(manager);
+        calls = new ArrayList<>();
+        manager.registerEvent(TickEvent.class, Order.DEFAULT, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add(((TickEvent) event).name + "@" + scheduler.getCurrentTick());
+            }
+        }, this);
+    }
+
+    @Test
+    public void delaysCascadeAcrossLevels() {
+        long[] delays = {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 4160, 262143, 262144, 262145, 300000};
+        List<String> expected = new ArrayList<>();
+        for (long delay : delays) {
+            scheduler.schedule(new TickEvent("d" + delay), delay);
+            expected.add("d" + delay + "@" + delay);
+        }
+        tick(300000);
+        assertEquals(expected, calls);
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void randomDelaysFromRandomTicks() {
+        Random random = new Random(47);
+        long[] due = new long[2000];
+        for (int i = 0; i < due.length; i++) {
+            if (random.nextInt(4) == 0) {
+                tick(random.nextInt(5000));
+            }
+            long delay = 1 + (random.nextBoolean() ? random.nextInt(100) : random.nextInt(1 << 20));
+            due[i] = scheduler.getCurrentTick() + delay;
+            scheduler.schedule(new TickEvent(Integer.toString(i)), delay);
+        }
+        long last = 0;
+        for (long tick : due) {
+            last = Math.max(last, tick);
+        }
+        tick(last - scheduler.getCurrentTick());
+        assertEquals(due.length, calls.size());
+        for (String call : calls) {
+            String[] parts = call.split("@");
+            assertEquals(call, due[Integer.parseInt(parts[0])], Long.parseLong(parts[1]));
+        }
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void sameTickInScheduleOrder() {
+        tick(10);
+        scheduler.schedule(new TickEvent("a"), 100);
+        scheduler.schedule(new TickEvent("b"), 100);
+        tick(10);
+        scheduler.schedule(new TickEvent("c"), 90);
+        tick(100);
+        assertEquals(Arrays.asList("a@110", "b@110", "c@110"), calls);
+    }
+
+    @Test
+    public void repeating() {
+        ScheduledEvent<TickEvent> fast = scheduler.scheduleRepeating(new TickEvent("fast"), 3, 5);
+        ScheduledEvent<TickEvent> slow = scheduler.scheduleRepeating(new TickEvent("slow"), 70, 4100);
+        tick(8300);
+        List<String> expected = new ArrayList<>();
+        for (long tick = 1; tick <= 8300; tick++) {
+            if (tick % 5 == 3) {
+                expected.add("fast@" + tick);
+            }
+            if (tick >= 70 && (tick - 70) % 4100 == 0) {
+                expected.add("slow@" + tick);
+            }
+        }
+        assertEquals(expected, calls);
+        assertFalse(fast.isDone());
+        assertEquals(2, scheduler.getWaitingCount());
+        assertTrue(slow.cancel());
+        assertTrue(fast.cancel());
+        tick(1);
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void cancelBeforeCall() {
+        ScheduledEvent<TickEvent> cancelled = scheduler.schedule(new TickEvent("cancelled"), 5000);
+        ScheduledEvent<TickEvent> kept = scheduler.schedule(new TickEvent("kept"), 5000);
+        tick(100);
+        assertTrue(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.cancel());
+        tick(1);
+        assertEquals(1, scheduler.getWaitingCount());
+        tick(4899);
+        assertEquals(Arrays.asList("kept@5000"), calls);
+        assertTrue(kept.isDone());
+        assertFalse(cancelled.isDone());
+    }
+
+    @Test
+    public void cancelBeforeFirstTick() {
+        ScheduledEvent<TickEvent> scheduled = scheduler.schedule(new TickEvent("cancelled"), 1);
+        assertTrue(scheduled.cancel());
+        tick(10);
+        assertTrue(calls.isEmpty());
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void cancelAfterCall() {
+        ScheduledEvent<TickEvent> once = scheduler.schedule(new TickEvent("once"), 2);
+        ScheduledEvent<TickEvent> repeating = scheduler.scheduleRepeating(new TickEvent("repeating"), 1, 2);
+        tick(4);
+        assertTrue(once.isDone());
+        assertFalse(once.cancel());
+        assertFalse(once.isCancelled());
+        assertTrue(repeating.cancel());
+        tick(10);
+        assertEquals(Arrays.asList("repeating@1", "once@2", "repeating@3"), calls);
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void cancelWhileBeingCalled() {
+        final ScheduledEvent<?>[] repeating = new ScheduledEvent<?>[1];
+        manager.registerEvent(TickEvent.class, Order.LATE, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                if (scheduler.getCurrentTick() == 7) {
+                    assertTrue(repeating[0].cancel());
+                }
+            }
+        }, this);
+        repeating[0] = scheduler.scheduleRepeating(new TickEvent("repeating"), 1, 3);
+        tick(20);
+        assertEquals(Arrays.asList("repeating@1", "repeating@4", "repeating@7"), calls);
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void scheduleWhileBeingCalled() {
+        manager.registerEvent(TickEvent.class, Order.LATE, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                if (((TickEvent) event).name.equals("first")) {
+                    scheduler.schedule(new TickEvent("second"), 1);
+                }
+            }
+        }, this);
+        scheduler.schedule(new TickEvent("first"), 3);
+        tick(5);
+        assertEquals(Arrays.asList("first@3", "second@4"), calls);
+    }
+
+    private void tick(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            scheduler.tick();
+        }
+    }
+
+    public static class TickEvent extends SimpleEvent {
+        private final String name;
+
+        public TickEvent(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the same calls through a manager which fuses its handler arrays and one which iterates them, and checks that both call the same handlers in the same order with the same results.
+ */
+public class FusedDispatcherTest {
+    private static final int THRESHOLD = 2;
+    private static final int CALLS = 8;
+
+    @Test
+    public void orderAcrossSlots() {
+        assertSameCalls(new Scenario() {
+            @Override
+            void register(SimpleEventManager manager, Recorder recorder) {
+                manager.registerEvent(TestEvent.class, Order.LATEST, recorder.executor("latest"), "first");
+                manager.registerEvents(new Listener(recorder, "a"), "first");
+                manager.registerEvent(TestEvent.class, Order.EARLIEST, recorder.executor("earliest"), "second");
+                manager.registerEvents(new Listener(recorder, "b"), "second");
+                manager.registerEvent(TestEvent.class, Order.DEFAULT, recorder.executor("default"), "first");
+            }
+        });
+    }
+
+    @Test
+    public void ignoreCancelledAfterCancel() {
+        assertSameCalls(new Scenario() {
+            @Override
+            void register(SimpleEventManager manager, Recorder recorder) {
+                manager.registerEvents(new Listener(recorder, "a"), "first");
+                manager.registerEvent(TestEvent.class, Order.MONITOR_IGNORE_CANCELLED, recorder.executor("monitor"), "first");
+            }
+
+            @Override
+            TestEvent event(int call) {
+                return new TestEvent(call % 2 == 1, false);
+            }
+        });
+    }
+
+    @Test
+    public void failuresGoToErrorHandler() {
+        assertSameCalls(new Scenario() {
+            @Override
+            void register(SimpleEventManager manager, Recorder recorder) {
+                manager.registerEvents(new Listener(recorder, "a"), "first");
+                manager.registerEvent(TestEvent.class, Order.LATE, new EventExecutor() {
+                    @Override
+                    public void execute(Event<?> event) throws EventException {
+                        if (((TestEvent) event).fail) {
+                            throw new EventException("executor");
+                        }
+                    }
+                }, "first");
+                manager.registerEvents(new PackageListener(recorder, "b"), "second");
+            }
+
+            @Override
+            TestEvent event(int call) {
+                return new TestEvent(false, call % 3 == 0);
+            }
+        });
+    }
+
+    @Test
+    public void suspendedOwnersAreSkipped() {
+        assertSameCalls(new Scenario() {
+            @Override
+            void register(SimpleEventManager manager, Recorder recorder) {
+                manager.registerEvents(new Listener(recorder, "a"), "first");
+                manager.registerEvents(new Listener(recorder, "b"), "second");
+                manager.registerEvent(TestEvent.class, Order.MONITOR, recorder.executor("monitor"), "second");
+            }
+
+            @Override
+            void beforeCall(SimpleEventManager manager, int call) {
+                if (call == 3) {
+                    manager.suspendOwner("second");
+                } else if (call == 6) {
+                    manager.resumeOwner("second");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void nonPublicListeners() {
+        assertSameCalls(new Scenario() {
+            @Override
+            void register(SimpleEventManager manager, Recorder recorder) {
+                manager.registerEvents(new PackageListener(recorder, "a"), "first");
+                manager.registerEvents(new Listener(recorder, "b"), "first");
+                manager.registerEvents(new PackageListener(recorder, "c"), "first");
+            }
+
+            @Override
+            TestEvent event(int call) {
+                return new TestEvent(call == 4, call == 5);
+            }
+        });
+    }
+
+    @Test
+    public void tooManyHandlersAreIterated() {
+        Scenario scenario = new Scenario() {
+            @Override
+            void register(SimpleEventManager manager, Recorder recorder) {
+                for (int i = 0; i <= FusedDispatcherGenerator.MAX_HANDLERS; i++) {
+                    manager.registerEvent(TestEvent.class, Order.values()[i % Order.values().length], recorder.executor("handler " + i), "first");
+                }
+            }
+        };
+        Recorder array = run(0, scenario);
+        Recorder fused = run(THRESHOLD, scenario);
+        assertEquals(CALLS * (FusedDispatcherGenerator.MAX_HANDLERS + 1), fused.calls.size());
+        assertEquals(array.calls, fused.calls);
+        assertEquals(0, fused.fused);
+    }
+
+    @Test
+    public void listenerClassesWithTheSameName() throws Exception {
+        try (URLClassLoader loader = new ReloadingClassLoader(Listener.class.getName())) {
+            final Class<?> reloaded = loader.loadClass(Listener.class.getName());
+            assertNotSame(Listener.class, reloaded);
+            assertSameCalls(new Scenario() {
+                @Override
+                void register(SimpleEventManager manager, Recorder recorder) {
+                    manager.registerEvents(new Listener(recorder, "a"), "first");
+                    try {
+                        manager.registerEvents(reloaded.getConstructor(Recorder.class, String.class).newInstance(recorder, "b"), "first");
+                    } catch (ReflectiveOperationException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+
+                @Override
+                TestEvent event(int call) {
+                    return new TestEvent(false, call == 4);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void resultClassFromOtherLoader() throws Exception {
+        try (URLClassLoader loader = new ReloadingClassLoader(ReplyingListener.class.getName(), Reply.class.getName())) {
+            final Class<?> reloaded = loader.loadClass(ReplyingListener.class.getName());
+            assertNotSame(Reply.class, reloaded.getMethod("reply", TestEvent.class).getReturnType());
+            assertSameCalls(new Scenario() {
+                @Override
+                void register(SimpleEventManager manager, Recorder recorder) {
+                    try {
+                        manager.registerEvents(reloaded.getConstructor(Recorder.class).newInstance(recorder), "first");
+                    } catch (ReflectiveOperationException e) {
+                        throw new AssertionError(e);
+                    }
+                    manager.registerEvents(new ReplyingListener(recorder), "first");
+                }
+            });
+        }
+    }
+
+    private static void assertSameCalls(Scenario scenario) {
+        Recorder array = run(0, scenario);
+        Recorder fused = run(THRESHOLD, scenario);
+        assertTrue(array.calls.size() > CALLS);
+        assertEquals(array.calls, fused.calls);
+        assertEquals(0, array.fused);
+        // Every call from the one the dispatcher was generated on went through it
+        assertEquals(fused.calls.size() - fused.callsBefore(THRESHOLD), fused.fused);
+    }
+
+    private static Recorder run(int threshold, Scenario scenario) {
+        SimpleEventManager manager = new SimpleEventManager();
+        manager.setFusionThreshold(threshold);
+        final Recorder recorder = new Recorder();
+        manager.setErrorHandler(new ListenerErrorHandler() {
+            @Override
+            public boolean handleError(Event<?> event, ListenerRegistration registration, Throwable error) {
+                recorder.record("failed " + registration.getOwner() + ": " + error.getClass().getSimpleName() + " " + error.getMessage()
+                        + (error.getCause() != null ? " caused by " + error.getCause().getClass().getSimpleName() : ""));
+                return false;
+            }
+        });
+        scenario.register(manager, recorder);
+        for (int call = 0; call < CALLS; call++) {
+            scenario.beforeCall(manager, call);
+            recorder.startCall();
+            manager.callEvent(scenario.event(call));
+        }
+        return recorder;
+    }
+
+    private abstract static class Scenario {
+        abstract void register(SimpleEventManager manager, Recorder recorder);
+
+        void beforeCall(SimpleEventManager manager, int call) {
+        }
+
+        TestEvent event(int call) {
+            return new TestEvent(false, false);
+        }
+    }
+
+    /**
+     * Records the handler calls, and how many of them came from a generated dispatcher.
+     */
+    public static class Recorder {
+        private final List<String> calls = new ArrayList<>();
+        private final List<Integer> callStarts = new ArrayList<>();
+        private int fused = 0;
+
+        public void record(String handler) {
+            calls.add(handler);
+            for (StackTraceElement element : new Throwable().getStackTrace()) {
+                if (element.getClassName().startsWith("com.flowpowered.events.fused.")) {
+                    fused++;
+                    break;
+                }
+            }
+        }
+
+        private void startCall() {
+            callStarts.add(calls.size());
+        }
+
+        private int callsBefore(int call) {
+            return callStarts.get(call);
+        }
+
+        private EventExecutor executor(final String name) {
+            return new EventExecutor() {
+                @Override
+                public void execute(Event<?> event) {
+                    record(name);
+                }
+            };
+        }
+    }
+
+    public static class TestEvent extends SimpleEvent {
+        private final boolean cancel;
+        private final boolean fail;
+
+        public TestEvent(boolean cancel, boolean fail) {
+            this.cancel = cancel;
+            this.fail = fail;
+        }
+
+        public boolean isFail() {
+            return fail;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            super.setCancelled(cancelled);
+        }
+    }
+
+    public static class Listener {
+        private final Recorder recorder;
+        private final String name;
+
+        public Listener(Recorder recorder, String name) {
+            this.recorder = recorder;
+            this.name = name;
+        }
+
+        @EventHandler (order = Order.EARLY)
+        public void early(TestEvent event) {
+            recorder.record(name + " early");
+        }
+
+        @EventHandler
+        public void cancel(TestEvent event) {
+            recorder.record(name + " default");
+            if (event.cancel) {
+                event.setCancelled(true);
+            }
+        }
+
+        @EventHandler (order = Order.LATE)
+        public void late(TestEvent event) {
+            recorder.record(name + " late");
+        }
+
+        @EventHandler (order = Order.LATE_IGNORE_CANCELLED)
+        public void lateIgnoringCancelled(TestEvent event) {
+            recorder.record(name + " late, ignoring cancelled");
+        }
+
+        @EventHandler (order = Order.MONITOR)
+        public void fail(TestEvent event) {
+            recorder.record(name + " monitor");
+            if (event.isFail()) {
+                throw new IllegalStateException(name);
+            }
+        }
+    }
+
+    /**
+     * Only reachable through its executors.
+     */
+    static class PackageListener extends Listener {
+        PackageListener(Recorder recorder, String name) {
+            super(recorder, name);
+        }
+
+        @EventHandler (order = Order.EARLIEST)
+        public void earliest(TestEvent event) {
+            fail(event);
+        }
+    }
+
+    public static class Reply {
+    }
+
+    public static class ReplyingListener {
+        private final Recorder recorder;
+
+        public ReplyingListener(Recorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @EventHandler
+        public Reply reply(TestEvent event) {
+            recorder.record(getClass().getClassLoader() == Reply.class.getClassLoader() ? "reply" : "other reply");
+            return new Reply();
+        }
+    }
+
+    /**
+     * Loads its own copies of some classes of the tests, so there are two classes of each of those names.
+     */
+    private static class ReloadingClassLoader extends URLClassLoader {
+        private final List<String> names;
+
+        private ReloadingClassLoader(String... names) {
+            super(new URL[] {FusedDispatcherTest.class.getProtectionDomain().getCodeSource().getLocation()}, FusedDispatcherTest.class.getClassLoader());
+            this.names = Arrays.asList(names);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!names.contains(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                return type != null ? type : findClass(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link GenericEvent}s only reach the handlers whose type argument accepts their type token, whether the handlers are iterated or called from a fused dispatcher.
+ */
+public class GenericEventTest {
+    private static final int CALLS = 8;
+    private final List<String> calls = new ArrayList<>();
+    private boolean fused = false;
+
+    @Test
+    public void routeByTypeToken() {
+        SimpleEventManager manager = new SimpleEventManager();
+        manager.registerEvents(new Listener(), this);
+        assertRouted(manager);
+        assertFalse(fused);
+    }
+
+    @Test
+    public void routeByTypeTokenWithFusion() {
+        SimpleEventManager manager = new SimpleEventManager();
+        manager.setFusionThreshold(1);
+        manager.registerEvents(new Listener(), this);
+        // Every token filters out a handler, so the filtered arrays are iterated rather than fused
+        for (int i = 0; i < CALLS; i++) {
+            assertRouted(manager);
+        }
+    }
+
+    @Test
+    public void fuseWhenEveryHandlerAccepts() {
+        SimpleEventManager manager = new SimpleEventManager();
+        manager.setFusionThreshold(1);
+        manager.registerEvents(new NumberListener(), this);
+        for (int i = 0; i < CALLS; i++) {
+            assertEquals(Arrays.asList("num", "any"), call(manager, 1));
+        }
+        assertTrue(fused);
+        // The fused dispatcher of the whole array must not be used for tokens which skip a handler
+        for (int i = 0; i < CALLS; i++) {
+            fused = false;
+            assertEquals(Arrays.asList("any"), call(manager, "text"));
+            assertEquals(Arrays.asList("any"), call(manager, null));
+            assertFalse(fused);
+        }
+    }
+
+    @Test
+    public void routeRegisteredExecutors() {
+        SimpleEventManager manager = new SimpleEventManager();
+        manager.registerEvent(ValueEvent.class, Number.class, Order.DEFAULT, recorder("num"), this);
+        manager.registerEvent(ValueEvent.class, String.class, Order.DEFAULT, recorder("str"), this);
+        manager.registerEvent(ValueEvent.class, null, Order.DEFAULT, recorder("any"), this);
+        assertRouted(manager);
+    }
+
+    private void assertRouted(SimpleEventManager manager) {
+        assertEquals(Arrays.asList("num", "any"), call(manager, 1));
+        assertEquals(Arrays.asList("str", "any"), call(manager, "text"));
+        assertEquals(Arrays.asList("any"), call(manager, null));
+    }
+
+    private List<String> call(SimpleEventManager manager, Object value) {
+        calls.clear();
+        manager.callEvent(new ValueEvent<>(value));
+        return new ArrayList<>(calls);
+    }
+
+    private void called(String name) {
+        calls.add(name);
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            fused |= element.getClassName().startsWith("com.flowpowered.events.fused.");
+        }
+    }
+
+    private EventExecutor recorder(final String name) {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                called(name);
+            }
+        };
+    }
+
+    public class Listener {
+        @EventHandler
+        public void num(ValueEvent<Number> event) {
+            called("num");
+        }
+
+        @EventHandler
+        public void str(ValueEvent<String> event) {
+            called("str");
+        }
+
+        @EventHandler (order = Order.LATE)
+        public void any(ValueEvent<?> event) {
+            called("any");
+        }
+    }
+
+    public class NumberListener {
+        @EventHandler
+        public void num(ValueEvent<? extends Number> event) {
+            called("num");
+        }
+
+        @EventHandler (order = Order.LATE)
+        public void any(ValueEvent<?> event) {
+            called("any");
+        }
+    }
+
+    public static class ValueEvent<T> extends SimpleEvent implements GenericEvent {
+        private final T value;
+
+        public ValueEvent(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public Class<?> getTypeToken() {
+            return value == null ? null : value.getClass();
+        }
+    }
+}
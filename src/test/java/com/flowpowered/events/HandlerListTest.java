@@ -0,0 +1,348 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the handler arrays which {@link HandlerList} splices on registration and removal are the same as the arrays a full bake of the final registrations produces.<br> Each case keeps a
+ * model of the registrations of every list, in the order they were registered in, and compares the baked array of every list against the one the model expects after each change.
+ */
+public class HandlerListTest {
+    private static final Order[] ORDERS = Order.values();
+    private static final Object[] OWNERS = {"first", "second", "third"};
+
+    @Test
+    public void registerIntoSuperclassHierarchy() {
+        Model event = new Model(null, null);
+        Model sub = new Model(event, null);
+        Model subSub = new Model(sub, null);
+        Model other = new Model(event, null);
+        List<Model> models = Arrays.asList(event, sub, subSub, other);
+        bakeAll(models);
+        event.register(registration(Order.DEFAULT, OWNERS[0]));
+        subSub.register(registration(Order.DEFAULT, OWNERS[0]));
+        sub.register(registration(Order.DEFAULT, OWNERS[1]));
+        event.register(registration(Order.EARLY, OWNERS[1]));
+        other.register(registration(Order.MONITOR, OWNERS[2]));
+        event.register(registration(Order.DEFAULT, OWNERS[2]));
+        assertBaked(models);
+    }
+
+    @Test
+    public void registerAllIntoSuperclassHierarchy() {
+        Model event = new Model(null, null);
+        Model sub = new Model(event, null);
+        Model subSub = new Model(sub, null);
+        List<Model> models = Arrays.asList(event, sub, subSub);
+        sub.register(registration(Order.DEFAULT, OWNERS[0]));
+        bakeAll(models);
+        // Small batches are spliced, large ones invalidate the baked arrays
+        for (int count : new int[] {1, 3, 8, 9, 40}) {
+            List<ListenerRegistration> batch = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                batch.add(registration(ORDERS[i * 7 % ORDERS.length], OWNERS[i % OWNERS.length]));
+            }
+            event.registerAll(batch);
+            assertBaked(models);
+            subSub.registerAll(batch.subList(0, 1));
+            assertBaked(models);
+        }
+    }
+
+    @Test
+    public void unregisterByOwner() {
+        Model event = new Model(null, null);
+        Model sub = new Model(event, null);
+        List<Model> models = Arrays.asList(event, sub);
+        for (int i = 0; i < 30; i++) {
+            (i % 2 == 0 ? event : sub).register(registration(ORDERS[i % ORDERS.length], OWNERS[i % OWNERS.length]));
+        }
+        bakeAll(models);
+        event.unregister(OWNERS[0]);
+        assertBaked(models);
+        sub.unregister(OWNERS[1]);
+        assertBaked(models);
+        event.unregister(OWNERS[2]);
+        sub.unregister(OWNERS[2]);
+        assertBaked(models);
+    }
+
+    @Test
+    public void inheritFromParentManager() {
+        Model event = new Model(null, null);
+        Model sub = new Model(event, null);
+        Model childEvent = new Model(null, event);
+        Model childSub = new Model(childEvent, sub);
+        Model grandchildSub = new Model(null, childSub);
+        List<Model> models = Arrays.asList(event, sub, childEvent, childSub, grandchildSub);
+        bakeAll(models);
+        event.register(registration(Order.DEFAULT, OWNERS[0]));
+        childEvent.register(registration(Order.DEFAULT, OWNERS[1]));
+        sub.register(registration(Order.DEFAULT, OWNERS[2]));
+        grandchildSub.register(registration(Order.DEFAULT, OWNERS[0]));
+        childSub.register(registration(Order.LATE, OWNERS[1]));
+        event.registerAll(Arrays.asList(registration(Order.LATE, OWNERS[2]), registration(Order.EARLIEST, OWNERS[1])));
+        assertBaked(models);
+        ListenerRegistration inherited = event.registrations.get(0);
+        assertTrue(grandchildSub.list.unregisterInherited(inherited));
+        event.registrations.remove(inherited);
+        assertFalse(grandchildSub.list.unregisterInherited(inherited));
+        assertBaked(models);
+        childEvent.unregister(OWNERS[1]);
+        assertBaked(models);
+    }
+
+    @Test
+    public void detachFromParentManager() {
+        Model event = new Model(null, null);
+        Model sub = new Model(event, null);
+        Model childEvent = new Model(null, event);
+        Model childSub = new Model(childEvent, sub);
+        List<Model> models = Arrays.asList(event, sub, childEvent, childSub);
+        event.register(registration(Order.DEFAULT, OWNERS[0]));
+        sub.register(registration(Order.EARLY, OWNERS[1]));
+        childEvent.register(registration(Order.DEFAULT, OWNERS[2]));
+        childSub.register(registration(Order.LATE, OWNERS[2]));
+        bakeAll(models);
+        childSub.detach();
+        assertBaked(models);
+        childEvent.detach();
+        assertBaked(models);
+        // Detached lists no longer see changes to the parent manager
+        event.register(registration(Order.DEFAULT, OWNERS[1]));
+        assertBaked(models);
+    }
+
+    @Test
+    public void childManagerCallsSplicedListeners() {
+        SimpleEventManager parent = new SimpleEventManager();
+        SimpleEventManager child = parent.createChild();
+        List<String> calls = new ArrayList<>();
+        parent.registerEvent(TestEvent.class, Order.DEFAULT, recorder(calls, "parent default"), OWNERS[0]);
+        child.callEvent(new TestEvent());
+        assertEquals(Arrays.asList("parent default"), calls);
+        // Registered after the child baked its handlers
+        child.registerEvent(TestEvent.class, Order.DEFAULT, recorder(calls, "child default"), OWNERS[1]);
+        parent.registerEvent(TestEvent.class, Order.EARLY, recorder(calls, "parent early"), OWNERS[1]);
+        parent.registerEvent(TestEvent.class, Order.DEFAULT, recorder(calls, "parent default 2"), OWNERS[0]);
+        calls.clear();
+        child.callEvent(new TestEvent());
+        assertEquals(Arrays.asList("parent early", "child default", "parent default", "parent default 2"), calls);
+        parent.unRegisterEventsByOwner(OWNERS[0]);
+        calls.clear();
+        child.callEvent(new TestEvent());
+        assertEquals(Arrays.asList("parent early", "child default"), calls);
+        child.detach();
+        calls.clear();
+        child.callEvent(new TestEvent());
+        assertEquals(Arrays.asList("child default"), calls);
+    }
+
+    @Test
+    public void collectUndetachedInheritor() {
+        HandlerList parent = new HandlerList();
+        HandlerList kept = new HandlerList(null, parent);
+        HandlerList dropped = new HandlerList(null, parent);
+        assertEquals(2, parent.getInheritorCount());
+        WeakReference<HandlerList> reference = new WeakReference<>(dropped);
+        dropped = null;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (reference.get() != null) {
+            assertTrue("Not collected", System.currentTimeMillis() < deadline);
+            System.gc();
+        }
+        assertEquals(1, parent.getInheritorCount());
+        // Changes to the parent still reach the remaining inheritor
+        ListenerRegistration registration = registration(Order.DEFAULT, OWNERS[0]);
+        parent.register(registration);
+        assertArrayEquals(new ListenerRegistration[]{registration}, kept.bake());
+        kept.detach();
+        assertEquals(0, parent.getInheritorCount());
+    }
+
+    @Test
+    public void randomChanges() {
+        Random random = new Random(27);
+        for (int round = 0; round < 50; round++) {
+            List<Model> models = new ArrayList<>();
+            Model event = new Model(null, null);
+            Model sub = new Model(event, null);
+            Model subSub = new Model(sub, null);
+            Model childEvent = new Model(null, event);
+            Model childSub = new Model(childEvent, sub);
+            Model grandchildSubSub = new Model(null, subSub);
+            Collections.addAll(models, event, sub, subSub, childEvent, childSub, grandchildSubSub);
+            for (int change = 0; change < 100; change++) {
+                Model model = models.get(random.nextInt(models.size()));
+                switch (random.nextInt(8)) {
+                    case 0:
+                    case 1:
+                    case 2:
+                        model.register(registration(ORDERS[random.nextInt(ORDERS.length)], OWNERS[random.nextInt(OWNERS.length)]));
+                        break;
+                    case 3:
+                    case 4:
+                        List<ListenerRegistration> batch = new ArrayList<>();
+                        for (int i = random.nextInt(random.nextBoolean() ? 4 : 20); i >= 0; i--) {
+                            batch.add(registration(ORDERS[random.nextInt(ORDERS.length)], OWNERS[random.nextInt(OWNERS.length)]));
+                        }
+                        model.registerAll(batch);
+                        break;
+                    case 5:
+                        if (!model.registrations.isEmpty()) {
+                            model.unregister(model.registrations.get(random.nextInt(model.registrations.size())));
+                        }
+                        break;
+                    case 6:
+                        model.unregister(OWNERS[random.nextInt(OWNERS.length)]);
+                        break;
+                    default:
+                        if (random.nextInt(10) == 0) {
+                            model.detach();
+                        }
+                }
+                for (Model baked : models) {
+                    if (random.nextBoolean()) {
+                        baked.list.bake();
+                    }
+                }
+                assertBaked(models);
+            }
+        }
+    }
+
+    private static ListenerRegistration registration(Order order, Object owner) {
+        return new ListenerRegistration(new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+            }
+        }, order, owner);
+    }
+
+    private static EventExecutor recorder(final List<String> calls, final String name) {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add(name);
+            }
+        };
+    }
+
+    private static void bakeAll(List<Model> models) {
+        for (Model model : models) {
+            model.list.bake();
+        }
+    }
+
+    private static void assertBaked(List<Model> models) {
+        for (int i = 0; i < models.size(); i++) {
+            assertArrayEquals("list " + i, models.get(i).expected().toArray(), models.get(i).list.bake());
+        }
+    }
+
+    public static class TestEvent extends SimpleEvent {
+    }
+
+    /**
+     * A handler list along with the registrations it should hold, in the order they were registered in.
+     */
+    private static final class Model {
+        private final HandlerList list;
+        private final Model parent;
+        private Model inherited;
+        private final List<ListenerRegistration> registrations = new ArrayList<>();
+
+        private Model(Model parent, Model inherited) {
+            this.list = new HandlerList(parent != null ? parent.list : null, inherited != null ? inherited.list : null);
+            this.parent = parent;
+            this.inherited = inherited;
+        }
+
+        private void register(ListenerRegistration registration) {
+            list.register(registration);
+            registrations.add(registration);
+        }
+
+        private void registerAll(List<ListenerRegistration> batch) {
+            list.registerAll(batch);
+            registrations.addAll(batch);
+        }
+
+        private void unregister(ListenerRegistration registration) {
+            list.unregister(registration);
+            registrations.remove(registration);
+        }
+
+        private void unregister(Object owner) {
+            list.unregister(owner);
+            for (int i = registrations.size() - 1; i >= 0; i--) {
+                if (registrations.get(i).getOwner().equals(owner)) {
+                    registrations.remove(i);
+                }
+            }
+        }
+
+        private void detach() {
+            list.detach();
+            inherited = null;
+        }
+
+        private List<ListenerRegistration> expected() {
+            List<ListenerRegistration> expected = new ArrayList<>();
+            for (Order order : ORDERS) {
+                addSlot(expected, order);
+            }
+            return expected;
+        }
+
+        /**
+         * Adds the registrations of an order slot the way a bake does: those of this list, then those of its parents, then those of the list it inherits from.
+         */
+        private void addSlot(List<ListenerRegistration> expected, Order order) {
+            for (Model model = this; model != null; model = model.parent) {
+                for (ListenerRegistration registration : model.registrations) {
+                    if (registration.getOrder() == order) {
+                        expected.add(registration);
+                    }
+                }
+            }
+            if (inherited != null) {
+                inherited.addSlot(expected, order);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Calls {@link InlineEvent}s through the plain, fused and traced dispatch paths and checks that cancellation and the called state behave as they do for events with a parameter.
+ */
+public class InlineEventTest {
+    private static final int CALLS = 4;
+    private static final List<String> ALL = Arrays.asList("early", "default", "late", "monitor ignoring cancelled", "monitor");
+    private static final List<String> CANCELLED = Arrays.asList("early", "default", "monitor ignoring cancelled");
+    private final List<String> calls = new ArrayList<>();
+    private int fused = 0;
+
+    @Test
+    public void cancelStopsLaterSlots() {
+        SimpleEventManager manager = manager();
+        assertCalls(manager, false, ALL);
+        assertCalls(manager, true, CANCELLED);
+    }
+
+    @Test
+    public void cancelStopsLaterSlotsWhenFused() {
+        SimpleEventManager manager = manager();
+        manager.setFusionThreshold(1);
+        // The first call generates the dispatcher, the ones after it go through it
+        for (int i = 0; i < CALLS; i++) {
+            assertCalls(manager, i % 2 == 1, i % 2 == 1 ? CANCELLED : ALL);
+        }
+        assertTrue(fused > 0);
+    }
+
+    @Test
+    public void cancelStopsLaterSlotsWhenTraced() {
+        SimpleEventManager manager = manager();
+        final List<Boolean> finished = new ArrayList<>();
+        manager.setDispatchTracer(new DispatchTracer() {
+            @Override
+            public Object dispatchStarted(Event<?> event, int listeners) {
+                return this;
+            }
+
+            @Override
+            public void dispatchFinished(Object context, Event<?> event, int listeners, boolean cancelled) {
+                finished.add(cancelled);
+            }
+
+            @Override
+            public Object listenerStarted(Event<?> event, ListenerRegistration registration) {
+                return null;
+            }
+
+            @Override
+            public void listenerFinished(Object context, Event<?> event, ListenerRegistration registration) {
+            }
+        });
+        assertCalls(manager, false, ALL);
+        assertCalls(manager, true, CANCELLED);
+        assertEquals(Arrays.asList(false, true), finished);
+        assertEquals(0, fused);
+    }
+
+    @Test
+    public void sameCallsAsParameterEvents() {
+        SimpleEventManager manager = manager();
+        for (boolean cancel : new boolean[] {false, true}) {
+            calls.clear();
+            TestEvent event = manager.callEvent(new TestEvent(cancel));
+            List<String> expected = new ArrayList<>(calls);
+            assertEquals(cancel, event.isCancelled());
+            assertCalls(manager, cancel, expected);
+        }
+    }
+
+    @Test
+    public void noParameters() {
+        SimpleEventManager manager = manager();
+        TestInlineEvent event = new TestInlineEvent(false);
+        assertNull(event.getParameter());
+        try {
+            manager.callEventWithParameters(event, Collections.singletonList(new Event.VoidParameter()));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        // Rejected before any listener was called
+        assertTrue(calls.isEmpty());
+        assertFalse(event.hasBeenCalled());
+    }
+
+    private void assertCalls(SimpleEventManager manager, boolean cancel, List<String> expected) {
+        calls.clear();
+        TestInlineEvent event = new TestInlineEvent(cancel);
+        assertFalse(event.hasBeenCalled());
+        manager.callEvent(event);
+        assertTrue(event.hasBeenCalled());
+        assertEquals(cancel, event.isCancelled());
+        assertEquals(expected, calls);
+    }
+
+    private void called(String name) {
+        calls.add(name);
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (element.getClassName().startsWith("com.flowpowered.events.fused.")) {
+                fused++;
+                break;
+            }
+        }
+    }
+
+    private SimpleEventManager manager() {
+        SimpleEventManager manager = new SimpleEventManager();
+        manager.registerEvents(new Listener(), this);
+        return manager;
+    }
+
+    public class Listener {
+        @EventHandler (order = Order.EARLY)
+        public void early(TestInlineEvent event) {
+            called("early");
+        }
+
+        @EventHandler
+        public void cancel(TestInlineEvent event) {
+            called("default");
+            if (event.cancel) {
+                event.setCancelled(true);
+            }
+        }
+
+        @EventHandler (order = Order.LATE)
+        public void late(TestInlineEvent event) {
+            called("late");
+        }
+
+        @EventHandler (order = Order.MONITOR_IGNORE_CANCELLED)
+        public void monitorIgnoringCancelled(TestInlineEvent event) {
+            called("monitor ignoring cancelled");
+        }
+
+        @EventHandler (order = Order.MONITOR)
+        public void monitor(TestInlineEvent event) {
+            called("monitor");
+        }
+
+        @EventHandler (order = Order.EARLY)
+        public void early(TestEvent event) {
+            called("early");
+        }
+
+        @EventHandler
+        public void cancel(TestEvent event) {
+            called("default");
+            if (event.cancel) {
+                event.setCancelled(true);
+            }
+        }
+
+        @EventHandler (order = Order.LATE)
+        public void late(TestEvent event) {
+            called("late");
+        }
+
+        @EventHandler (order = Order.MONITOR_IGNORE_CANCELLED)
+        public void monitorIgnoringCancelled(TestEvent event) {
+            called("monitor ignoring cancelled");
+        }
+
+        @EventHandler (order = Order.MONITOR)
+        public void monitor(TestEvent event) {
+            called("monitor");
+        }
+    }
+
+    public static class TestInlineEvent extends InlineEvent implements Cancellable {
+        private final boolean cancel;
+
+        public TestInlineEvent(boolean cancel) {
+            this.cancel = cancel;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            super.setCancelled(cancelled);
+        }
+    }
+
+    public static class TestEvent extends SimpleEvent implements Cancellable {
+        private final boolean cancel;
+
+        public TestEvent(boolean cancel) {
+            this.cancel = cancel;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            super.setCancelled(cancelled);
+        }
+    }
+}
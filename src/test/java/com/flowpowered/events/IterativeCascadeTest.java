@@ -0,0 +1,145 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.events.Event.VoidParameter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fires a tree of events, each of which fires its two children from a handler, and checks the order in which the handlers see them with and without iterative cascades.
+ */
+public class IterativeCascadeTest {
+    private SimpleEventManager manager;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        manager = new SimpleEventManager();
+        calls = new ArrayList<>();
+        manager.registerEvent(TreeEvent.class, Order.EARLY, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add("early " + ((TreeEvent) event).name);
+            }
+        }, this);
+        manager.registerEvent(TreeEvent.class, Order.DEFAULT, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                TreeEvent tree = (TreeEvent) event;
+                if (tree.name.length() < 3) {
+                    TreeEvent left = manager.callEvent(new TreeEvent(tree.name + "0"));
+                    tree.childrenCalled = calls.contains("late " + left.name);
+                    manager.callEvent(new TreeEvent(tree.name + "1"));
+                }
+            }
+        }, this);
+        manager.registerEvent(TreeEvent.class, Order.LATE, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add("late " + ((TreeEvent) event).name);
+            }
+        }, this);
+    }
+
+    @Test
+    public void recursiveIsDepthFirst() {
+        TreeEvent root = manager.callEvent(new TreeEvent("r"));
+        assertTrue(root.childrenCalled);
+        assertEquals(Arrays.asList("early r", "early r0", "early r00", "late r00", "early r01", "late r01", "late r0", "early r1", "early r10", "late r10", "early r11", "late r11",
+                "late r1", "late r"), calls);
+    }
+
+    @Test
+    public void iterativeIsBreadthFirst() {
+        manager.setIterativeCascades(true);
+        TreeEvent root = manager.callEvent(new TreeEvent("r"));
+        assertFalse(root.childrenCalled);
+        assertEquals(Arrays.asList("early r", "late r", "early r0", "late r0", "early r1", "late r1", "early r00", "late r00", "early r01", "late r01", "early r10", "late r10",
+                "early r11", "late r11"), calls);
+        assertEquals(6, manager.getDeferredEventCount());
+        assertEquals(6, manager.getLargestCascade());
+        // The next cascade starts from scratch
+        calls.clear();
+        manager.callEvent(new TreeEvent("s"));
+        assertEquals("late s11", calls.get(calls.size() - 1));
+        assertEquals(12, manager.getDeferredEventCount());
+    }
+
+    @Test
+    public void depthLimit() {
+        manager.setIterativeCascades(true);
+        manager.setCascadeLimits(1, 100);
+        manager.callEvent(new TreeEvent("r"));
+        assertEquals(Arrays.asList("early r", "late r", "early r0", "late r0", "early r1", "late r1"), calls);
+        assertEquals(4, manager.getDroppedCascadeEventCount());
+    }
+
+    @Test
+    public void eventLimit() {
+        manager.setIterativeCascades(true);
+        manager.setCascadeLimits(10, 3);
+        manager.callEvent(new TreeEvent("r"));
+        assertEquals(Arrays.asList("early r", "late r", "early r0", "late r0", "early r1", "late r1", "early r00", "late r00"), calls);
+        assertEquals(3, manager.getDeferredEventCount());
+        assertEquals(3, manager.getDroppedCascadeEventCount());
+    }
+
+    @Test
+    public void parametersAreDispatchedRightAway() {
+        manager.setIterativeCascades(true);
+        final List<VoidParameter> parameters = Arrays.asList(new VoidParameter(), new VoidParameter());
+        manager.registerEvent(TreeEvent.class, Order.LATEST, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                if (((TreeEvent) event).name.equals("r")) {
+                    manager.callEventWithParameters(new TreeEvent("p"), parameters);
+                }
+            }
+        }, this);
+        manager.setCascadeLimits(1, 100);
+        manager.callEvent(new TreeEvent("r"));
+        // The children of both dispatches of p are one generation below r, and deferred after those of r
+        assertEquals(Arrays.asList("early r", "late r", "early p", "late p", "early p", "late p", "early r0", "late r0", "early r1", "late r1", "early p0", "late p0", "early p1",
+                "late p1", "early p0", "late p0", "early p1", "late p1"), calls);
+    }
+
+    public static class TreeEvent extends SimpleEvent {
+        private final String name;
+        private boolean childrenCalled = false;
+
+        public TreeEvent(String name) {
+            this.name = name;
+        }
+    }
+}
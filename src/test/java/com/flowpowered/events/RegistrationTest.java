@@ -0,0 +1,213 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Registers listeners through the different registration methods of {@link SimpleEventManager} and checks which of their handlers are called.
+ */
+public class RegistrationTest {
+    private SimpleEventManager manager;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        manager = new SimpleEventManager();
+        calls = new ArrayList<>();
+    }
+
+    @Test
+    public void duplicateRegistrationRegistersNothing() {
+        EventExecutor existing = executor("existing");
+        manager.registerEvent(SecondEvent.class, Order.DEFAULT, existing, this);
+        RegistrationBatch batch = manager.startBatch()
+                .registerEvents(new Listener(calls, "new"), this)
+                .registerEvent(FirstEvent.class, Order.LATE, executor("first"), this)
+                .registerEvent(SecondEvent.class, Order.DEFAULT, existing, this);
+        try {
+            batch.commit();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        callAll();
+        assertEquals(Arrays.asList("existing"), calls);
+
+        manager.registerEvents(new Listener(calls, "new"), this);
+        calls.clear();
+        callAll();
+        assertEquals(Arrays.asList("new first", "new second", "existing", "new third"), calls);
+    }
+
+    @Test
+    public void registerAllInOrder() {
+        // More listeners than one scan task handles, so they are scanned in parallel and merged
+        int count = 200;
+        manager.registerEvent(FirstEvent.class, Order.DEFAULT, executor("existing"), this);
+        List<Object> listeners = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        expected.add("existing");
+        for (int i = 0; i < count; i++) {
+            listeners.add(new Listener(calls, Integer.toString(i)));
+            expected.add(i + " first");
+        }
+        manager.registerEventsAll(listeners, this);
+        manager.callEvent(new FirstEvent());
+        assertEquals(expected, calls);
+        calls.clear();
+        manager.callEvent(new SecondEvent());
+        assertEquals(count, calls.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + " second", calls.get(i));
+        }
+    }
+
+    @Test
+    public void duplicateInRegisterAllRegistersNothing() {
+        ExistingListener existing = new ExistingListener();
+        manager.registerEvents(existing, this);
+        List<Object> listeners = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            listeners.add(new Listener(calls, Integer.toString(i)));
+        }
+        // Only the list of the event class scanned last fails, after the others have been added to
+        listeners.add(150, existing);
+        try {
+            manager.registerEventsAll(listeners, this);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        callAll();
+        manager.callEvent(new OtherEvent());
+        assertEquals(Arrays.asList("existing"), calls);
+    }
+
+    @Test
+    public void concurrentFirstRegistrationsShareTheirList() throws Exception {
+        // Both threads need the handler list of FirstEvent, if each created its own the one that loses the race would take its registration with it
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2000; i++) {
+                final SimpleEventManager manager = new SimpleEventManager();
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> first = threads.submit(register(manager, barrier, FirstEvent.class, "first"));
+                Future<?> sub = threads.submit(register(manager, barrier, SubFirstEvent.class, "sub"));
+                first.get(5, TimeUnit.SECONDS);
+                sub.get(5, TimeUnit.SECONDS);
+                calls.clear();
+                manager.callEvent(new SubFirstEvent());
+                assertEquals(2, calls.size());
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private Callable<Void> register(final SimpleEventManager manager, final CyclicBarrier barrier, final Class<? extends Event<?>> event, final String name) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                barrier.await(5, TimeUnit.SECONDS);
+                manager.registerEvent(event, Order.DEFAULT, executor(name), RegistrationTest.this);
+                return null;
+            }
+        };
+    }
+
+    private void callAll() {
+        manager.callEvent(new FirstEvent());
+        manager.callEvent(new SecondEvent());
+        manager.callEvent(new ThirdEvent());
+    }
+
+    private EventExecutor executor(final String name) {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add(name);
+            }
+        };
+    }
+
+    public static class Listener {
+        private final List<String> calls;
+        private final String name;
+
+        public Listener(List<String> calls, String name) {
+            this.calls = calls;
+            this.name = name;
+        }
+
+        @EventHandler
+        public void onFirst(FirstEvent event) {
+            calls.add(name + " first");
+        }
+
+        @EventHandler (order = Order.EARLY)
+        public void onSecond(SecondEvent event) {
+            calls.add(name + " second");
+        }
+
+        @EventHandler
+        public void onThird(ThirdEvent event) {
+            calls.add(name + " third");
+        }
+    }
+
+    public class ExistingListener {
+        @EventHandler
+        public void onOther(OtherEvent event) {
+            calls.add("existing");
+        }
+    }
+
+    public static class FirstEvent extends SimpleEvent {
+    }
+
+    public static class SubFirstEvent extends FirstEvent {
+    }
+
+    public static class SecondEvent extends SimpleEvent {
+    }
+
+    public static class ThirdEvent extends SimpleEvent {
+    }
+
+    public static class OtherEvent extends SimpleEvent {
+    }
+}
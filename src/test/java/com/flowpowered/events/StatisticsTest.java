@@ -0,0 +1,174 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Calls events with and without listeners, some of them cancelled or suspended, and checks the exact counts of the statistics and the report made from them.
+ */
+public class StatisticsTest {
+    private static final String NL = System.lineSeparator();
+    private final SimpleEventManager manager = new SimpleEventManager();
+    private final Object suspended = new Object();
+    private Locale locale;
+
+    @Before
+    public void setUp() {
+        // The report formats decimals for the default locale
+        locale = Locale.getDefault();
+        Locale.setDefault(Locale.ROOT);
+        manager.setStatisticsEnabled(true);
+        manager.registerEvent(HeardEvent.class, Order.EARLY, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                HeardEvent heard = (HeardEvent) event;
+                heard.setCancelled(heard.cancel);
+            }
+        }, this);
+        manager.registerEvent(HeardEvent.class, Order.DEFAULT, nothing(), this);
+        manager.registerEvent(HeardEvent.class, Order.MONITOR_IGNORE_CANCELLED, nothing(), this);
+        manager.registerEvent(HeardEvent.class, Order.LATE, nothing(), suspended);
+        manager.registerEvent(SkippedEvent.class, Order.DEFAULT, nothing(), suspended);
+        manager.suspendOwner(suspended);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(locale);
+    }
+
+    @Test
+    public void countCallsAndListeners() {
+        callAll();
+        assertCounts();
+    }
+
+    @Test
+    public void countFusedCalls() {
+        manager.setFusionThreshold(1);
+        // Calls before the dispatcher is generated are iterated, so only count the ones after it
+        callAll();
+        manager.resetStatistics();
+        callAll();
+        assertCounts();
+    }
+
+    @Test
+    public void resetForgetsCounts() {
+        callAll();
+        manager.resetStatistics();
+        assertTrue(manager.getStatistics().isEmpty());
+        assertEquals("Event statistics:", manager.getStatisticsReport());
+        manager.callEvent(new HeardEvent(true));
+        List<EventStatistics> statistics = manager.getStatistics();
+        assertEquals(1, statistics.size());
+        assertStatistics(HeardEvent.class, 1, 2, 1, 0, statistics.get(0));
+    }
+
+    @Test
+    public void countNothingWhileDisabled() {
+        manager.setStatisticsEnabled(false);
+        callAll();
+        assertTrue(manager.getStatistics().isEmpty());
+        manager.setStatisticsEnabled(true);
+        manager.callEvent(new UnheardEvent());
+        assertStatistics(UnheardEvent.class, 1, 0, 0, 1, manager.getStatistics().get(0));
+    }
+
+    @Test
+    public void reportEventsWithoutListeners() {
+        callAll();
+        assertEquals("Event statistics:"
+                + NL + "  " + HeardEvent.class.getName() + ": 4 calls, 2.75 listeners per call, 25.0% cancelled, 0 without listeners"
+                + NL + "  " + UnheardEvent.class.getName() + ": 2 calls, 0.00 listeners per call, 0.0% cancelled, 2 without listeners"
+                + NL + "  " + SkippedEvent.class.getName() + ": 1 calls, 0.00 listeners per call, 0.0% cancelled, 0 without listeners"
+                // Only the events nobody listens to, not the ones whose listeners were all skipped
+                + NL + "Called without listeners only:"
+                + NL + "  " + UnheardEvent.class.getName(), manager.getStatisticsReport());
+    }
+
+    private void callAll() {
+        manager.callEvent(new HeardEvent(false));
+        manager.callEvent(new UnheardEvent());
+        manager.callEvent(new HeardEvent(true));
+        manager.callEvent(new HeardEvent(false));
+        manager.callEvent(new SkippedEvent());
+        manager.callEvent(new UnheardEvent());
+        manager.callEvent(new HeardEvent(false));
+    }
+
+    private void assertCounts() {
+        List<EventStatistics> statistics = manager.getStatistics();
+        assertEquals(3, statistics.size());
+        // Three events reach all three active listeners, the cancelled one skips the DEFAULT one
+        assertStatistics(HeardEvent.class, 4, 11, 1, 0, statistics.get(0));
+        assertStatistics(UnheardEvent.class, 2, 0, 0, 2, statistics.get(1));
+        // Its only listener is suspended, which does not make it unheard
+        assertStatistics(SkippedEvent.class, 1, 0, 0, 0, statistics.get(2));
+    }
+
+    private static void assertStatistics(Class<?> eventClass, long calls, long listenerCalls, long cancelled, long unheard, EventStatistics statistics) {
+        assertEquals(eventClass, statistics.getEventClass());
+        assertEquals(calls, statistics.getCallCount());
+        assertEquals(listenerCalls, statistics.getListenerCallCount());
+        assertEquals(cancelled, statistics.getCancelledCount());
+        assertEquals(unheard, statistics.getUnheardCount());
+    }
+
+    private static EventExecutor nothing() {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+            }
+        };
+    }
+
+    public static class HeardEvent extends SimpleEvent implements Cancellable {
+        private final boolean cancel;
+
+        public HeardEvent(boolean cancel) {
+            this.cancel = cancel;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            super.setCancelled(cancelled);
+        }
+    }
+
+    public static class UnheardEvent extends SimpleEvent {
+    }
+
+    public static class SkippedEvent extends SimpleEvent {
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Suspends and resumes owners and checks which of their listeners events reach, across event types, child managers and registrations made while suspended.
+ */
+public class SuspendOwnerTest {
+    private final Object owner = new Object();
+    private final Object other = new Object();
+    private SimpleEventManager manager;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        manager = new SimpleEventManager();
+        calls = new ArrayList<>();
+    }
+
+    @Test
+    public void suspendEveryEventType() {
+        manager.registerEvents(new Listener("owner"), owner);
+        manager.registerEvent(FirstEvent.class, Order.LATE, executor("executor"), owner);
+        manager.registerEvents(new Listener("other"), other);
+        manager.suspendOwner(owner);
+        assertTrue(manager.isOwnerSuspended(owner));
+        assertFalse(manager.isOwnerSuspended(other));
+        assertEquals(Arrays.asList("other first"), call(new FirstEvent()));
+        assertEquals(Arrays.asList("other second"), call(new SecondEvent()));
+        // Suspending twice is the same as once
+        manager.suspendOwner(owner);
+        manager.resumeOwner(owner);
+        assertFalse(manager.isOwnerSuspended(owner));
+        assertEquals(Arrays.asList("owner first", "other first", "executor"), call(new FirstEvent()));
+        assertEquals(Arrays.asList("owner second", "other second"), call(new SecondEvent()));
+    }
+
+    @Test
+    public void suspendWhileFused() {
+        manager.setFusionThreshold(1);
+        manager.registerEvents(new Listener("owner"), owner);
+        manager.registerEvents(new Listener("other"), other);
+        // Generates the dispatcher, which must still check the suspension of each listener
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Arrays.asList("owner first", "other first"), call(new FirstEvent()));
+        }
+        manager.suspendOwner(owner);
+        assertEquals(Arrays.asList("other first"), call(new FirstEvent()));
+        manager.resumeOwner(owner);
+        assertEquals(Arrays.asList("owner first", "other first"), call(new FirstEvent()));
+    }
+
+    @Test
+    public void suspendInParentReachesChildren() {
+        SimpleEventManager child = manager.createChild();
+        manager.registerEvents(new Listener("parent"), owner);
+        child.registerEvents(new Listener("child"), owner);
+        manager.suspendOwner(owner);
+        // The inherited listeners are suspended, the ones registered to the child are not
+        assertEquals(Arrays.asList("child first"), call(child, new FirstEvent()));
+        assertEquals(Arrays.asList("child second"), call(child, new SecondEvent()));
+        assertFalse(child.isOwnerSuspended(owner));
+        manager.resumeOwner(owner);
+        assertEquals(Arrays.asList("child first", "parent first"), call(child, new FirstEvent()));
+    }
+
+    @Test
+    public void suspendInChildOnlyAffectsItsOwnListeners() {
+        SimpleEventManager child = manager.createChild();
+        manager.registerEvents(new Listener("parent"), owner);
+        child.registerEvents(new Listener("child"), owner);
+        child.suspendOwner(owner);
+        assertEquals(Arrays.asList("parent first"), call(child, new FirstEvent()));
+        assertEquals(Arrays.asList("parent first"), call(new FirstEvent()));
+        assertFalse(manager.isOwnerSuspended(owner));
+        child.resumeOwner(owner);
+        assertEquals(Arrays.asList("child first", "parent first"), call(child, new FirstEvent()));
+    }
+
+    @Test
+    public void suspendOwnerWithoutRegistrations() {
+        manager.registerEvents(new Listener("other"), other);
+        manager.suspendOwner(owner);
+        assertTrue(manager.isOwnerSuspended(owner));
+        assertEquals(Arrays.asList("other first"), call(new FirstEvent()));
+        manager.resumeOwner(owner);
+        assertFalse(manager.isOwnerSuspended(owner));
+        // Registrations after the resume are active
+        manager.registerEvents(new Listener("owner"), owner);
+        assertEquals(Arrays.asList("other first", "owner first"), call(new FirstEvent()));
+    }
+
+    @Test
+    public void registerWhileSuspended() {
+        manager.suspendOwner(owner);
+        manager.registerEvents(new Listener("owner"), owner);
+        manager.registerEvent(SecondEvent.class, Order.LATE, executor("executor"), owner);
+        manager.registerEventsAll(Collections.singletonList(new Listener("all")), owner);
+        assertEquals(Collections.emptyList(), call(new FirstEvent()));
+        assertEquals(Collections.emptyList(), call(new SecondEvent()));
+        manager.resumeOwner(owner);
+        assertEquals(Arrays.asList("owner first", "all first"), call(new FirstEvent()));
+        assertEquals(Arrays.asList("owner second", "all second", "executor"), call(new SecondEvent()));
+    }
+
+    @Test
+    public void resumeWithoutSuspend() {
+        manager.registerEvents(new Listener("owner"), owner);
+        manager.resumeOwner(owner);
+        // Owners the manager has never seen are not tracked by it
+        manager.resumeOwner(new Object());
+        assertFalse(manager.isOwnerSuspended(owner));
+        assertEquals(Arrays.asList("owner first"), call(new FirstEvent()));
+        // A later suspension still works
+        manager.suspendOwner(owner);
+        assertEquals(Collections.emptyList(), call(new FirstEvent()));
+    }
+
+    @Test
+    public void unregisterWhileSuspended() {
+        manager.registerEvents(new Listener("owner"), owner);
+        manager.suspendOwner(owner);
+        manager.unRegisterEventsByOwner(owner);
+        manager.resumeOwner(owner);
+        assertEquals(Collections.emptyList(), call(new FirstEvent()));
+    }
+
+    private List<String> call(Event<?> event) {
+        return call(manager, event);
+    }
+
+    private List<String> call(SimpleEventManager target, Event<?> event) {
+        calls.clear();
+        target.callEvent(event);
+        return new ArrayList<>(calls);
+    }
+
+    private EventExecutor executor(final String name) {
+        return new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                calls.add(name);
+            }
+        };
+    }
+
+    public class Listener {
+        private final String name;
+
+        public Listener(String name) {
+            this.name = name;
+        }
+
+        @EventHandler
+        public void onFirst(FirstEvent event) {
+            calls.add(name + " first");
+        }
+
+        @EventHandler
+        public void onSecond(SecondEvent event) {
+            calls.add(name + " second");
+        }
+    }
+
+    public static class FirstEvent extends SimpleEvent {
+    }
+
+    public static class SecondEvent extends SimpleEvent {
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Registers listeners weakly, lets them be garbage collected and checks that their registrations go away with them.
+ */
+public class WeakListenerTest {
+    private SimpleEventManager manager;
+    private List<Integer> dispatched;
+
+    @Before
+    public void setUp() {
+        manager = new SimpleEventManager();
+        dispatched = new ArrayList<>();
+        manager.setDispatchTracer(new DispatchTracer() {
+            @Override
+            public Object dispatchStarted(Event<?> event, int listeners) {
+                dispatched.add(listeners);
+                return null;
+            }
+
+            @Override
+            public void dispatchFinished(Object context, Event<?> event, int listeners, boolean cancelled) {
+            }
+
+            @Override
+            public Object listenerStarted(Event<?> event, ListenerRegistration registration) {
+                return null;
+            }
+
+            @Override
+            public void listenerFinished(Object context, Event<?> event, ListenerRegistration registration) {
+            }
+        });
+        manager.registerEvents(new Listener(), this);
+    }
+
+    @Test
+    public void listenerOwningItselfIsCollected() {
+        Listener listener = new Listener();
+        manager.registerEventsWeakly(listener, listener);
+        manager.callEvent(new TestEvent());
+        assertEquals(1, listener.calls);
+        WeakReference<Listener> reference = new WeakReference<>(listener);
+        listener = null;
+        awaitCollection(reference);
+        // The collected reference is queued by a JVM thread, shortly after it has been cleared
+        long deadline = System.currentTimeMillis() + 10000;
+        int registered;
+        do {
+            assertTrue("Not expunged", System.currentTimeMillis() < deadline);
+            Thread.yield();
+            manager.expungeStaleListeners();
+            manager.callEvent(new TestEvent());
+            registered = dispatched.get(dispatched.size() - 1);
+        } while (registered != 1);
+        assertEquals(2, dispatched.get(0).intValue());
+    }
+
+    @Test
+    public void ownerOutlivesListener() {
+        Object owner = new Object();
+        Listener listener = new Listener();
+        manager.registerEventsWeakly(listener, owner);
+        manager.registerEventsWeakly(new Listener(), owner);
+        manager.suspendOwner(owner);
+        manager.callEvent(new TestEvent());
+        assertEquals(0, listener.calls);
+        manager.resumeOwner(owner);
+        manager.callEvent(new TestEvent());
+        assertEquals(1, listener.calls);
+        manager.unRegisterEventsByOwner(owner);
+        manager.callEvent(new TestEvent());
+        assertEquals(1, listener.calls);
+        assertEquals(1, dispatched.get(2).intValue());
+    }
+
+    @Test
+    public void ownerIsHeldWeakly() {
+        Object owner = new Object();
+        Listener listener = new Listener();
+        final List<ListenerRegistration> registrations = new ArrayList<>();
+        manager.registerEventsWeakly(listener, owner);
+        manager.setErrorHandler(new ListenerErrorHandler() {
+            @Override
+            public boolean handleError(Event<?> event, ListenerRegistration registration, Throwable error) {
+                if (registration.getOwner() != WeakListenerTest.this) {
+                    registrations.add(registration);
+                }
+                return false;
+            }
+        });
+        TestEvent failing = new TestEvent();
+        failing.fail = true;
+        manager.callEvent(failing);
+        assertSame(owner, registrations.get(0).getOwner());
+        WeakReference<Object> reference = new WeakReference<>(owner);
+        owner = null;
+        awaitCollection(reference);
+        // The listener is kept alive by the test, so it keeps being called
+        assertNull(registrations.get(0).getOwner());
+        manager.callEvent(new TestEvent());
+        assertEquals(2, listener.calls);
+    }
+
+    private static void awaitCollection(WeakReference<?> reference) {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (reference.get() != null) {
+            assertTrue("Not collected", System.currentTimeMillis() < deadline);
+            System.gc();
+            byte[][] garbage = new byte[64][];
+            for (int i = 0; i < garbage.length; i++) {
+                garbage[i] = new byte[64 * 1024];
+            }
+        }
+    }
+
+    public static class Listener {
+        private int calls = 0;
+
+        @EventHandler
+        public void onTest(TestEvent event) {
+            calls++;
+            if (event.fail) {
+                throw new IllegalStateException("Failing on purpose");
+            }
+        }
+    }
+
+    public static class TestEvent extends SimpleEvent {
+        private boolean fail = false;
+    }
+}
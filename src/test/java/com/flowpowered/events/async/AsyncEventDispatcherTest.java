@@ -0,0 +1,286 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.async;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.Order;
+import com.flowpowered.events.SimpleEvent;
+import com.flowpowered.events.SimpleEventManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Submits events to a dispatcher whose tasks are held back until the test runs them, to check what is admitted and in which order it is called, and to one on a thread pool for ordering
+ * under concurrency.
+ */
+public class AsyncEventDispatcherTest {
+    private final SimpleEventManager manager = new SimpleEventManager();
+    private final Queue<Event<?>> called = new ConcurrentLinkedQueue<>();
+    private final HeldExecutor executor = new HeldExecutor();
+
+    public AsyncEventDispatcherTest() {
+        EventExecutor recorder = new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                called.add(event);
+            }
+        };
+        manager.registerEvent(NormalEvent.class, Order.DEFAULT, recorder, this);
+        manager.registerEvent(OtherEvent.class, Order.DEFAULT, recorder, this);
+    }
+
+    @Test
+    public void dropNewestWhenFull() {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, executor, 100, new AdmissionPolicy(Priority.NORMAL, 4, SheddingPolicy.DROP_NEWEST));
+        List<Event<?>> events = submit(dispatcher, 10);
+        assertEquals(4, dispatcher.getQueuedCount(NormalEvent.class));
+        assertEquals(6, dispatcher.getShedCount(NormalEvent.class));
+        executor.runAll();
+        assertEquals(events.subList(0, 4), calls());
+        assertEquals(0, dispatcher.getBacklog());
+    }
+
+    @Test
+    public void dropOldestWhenFull() {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, executor, 100, new AdmissionPolicy(Priority.NORMAL, 4, SheddingPolicy.DROP_OLDEST));
+        List<Event<?>> events = submit(dispatcher, 10);
+        assertEquals(6, dispatcher.getTotalShedCount());
+        executor.runAll();
+        assertEquals(events.subList(6, 10), calls());
+    }
+
+    @Test
+    public void sampleOnceHalfFull() {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, executor, 100, AdmissionPolicy.sampled(8, 3));
+        List<Event<?>> events = submit(dispatcher, 20);
+        executor.runAll();
+        // The first half is admitted, then every third event until the queue is full
+        assertEquals(Arrays.asList(events.get(0), events.get(1), events.get(2), events.get(3), events.get(4), events.get(7), events.get(10), events.get(13)), calls());
+        assertEquals(12, dispatcher.getShedCount(NormalEvent.class));
+    }
+
+    @Test
+    public void backlogLimitByPriority() {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, executor, 10, new AdmissionPolicy(Priority.NORMAL, 100, SheddingPolicy.DROP_NEWEST));
+        dispatcher.setPolicy(OtherEvent.class, new AdmissionPolicy(Priority.LOW, 100, SheddingPolicy.DROP_NEWEST));
+        submit(dispatcher, 4);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i < 1, dispatcher.submit(new OtherEvent()));
+        }
+        submit(dispatcher, 10);
+        assertEquals(10, dispatcher.getBacklog());
+        assertEquals(2, dispatcher.getShedCount(OtherEvent.class));
+        assertEquals(5, dispatcher.getShedCount(NormalEvent.class));
+        executor.runAll();
+        assertEquals(10, called.size());
+        assertEquals(0, dispatcher.getBacklog());
+    }
+
+    @Test
+    public void criticalWaitForRoomInOrder() throws InterruptedException {
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, executor, 1, AdmissionPolicy.critical(3));
+        // Not subject to the backlog limit
+        final List<Event<?>> events = submit(dispatcher, 3);
+        assertEquals(3, dispatcher.getBacklog());
+        for (int i = 3; i < 8; i++) {
+            events.add(new NormalEvent(i));
+        }
+        Thread submitter = new Thread() {
+            @Override
+            public void run() {
+                for (Event<?> event : events.subList(3, 8)) {
+                    dispatcher.submit(event);
+                }
+            }
+        };
+        submitter.start();
+        while (submitter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertEquals(3, dispatcher.getQueuedCount(NormalEvent.class));
+        assertEquals(1, dispatcher.getDelayedCount(NormalEvent.class));
+        while (submitter.isAlive() || !executor.tasks.isEmpty()) {
+            executor.runAll();
+            Thread.sleep(1);
+        }
+        assertEquals(events, calls());
+        assertEquals(0, dispatcher.getTotalShedCount());
+        assertEquals(0, dispatcher.getBacklog());
+    }
+
+    @Test
+    public void criticalFromHandlersDoNotWait() {
+        final AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, executor, 1, AdmissionPolicy.critical(1));
+        final List<Event<?>> events = Arrays.<Event<?>>asList(new NormalEvent(0), new NormalEvent(1), new NormalEvent(2));
+        manager.registerEvent(NormalEvent.class, Order.LATE, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                if (event == events.get(0)) {
+                    // The queue is full after the first one, waiting for room would wait for this thread
+                    dispatcher.submit(events.get(1));
+                    dispatcher.submit(events.get(2));
+                }
+            }
+        }, this);
+        dispatcher.submit(events.get(0));
+        executor.runAll();
+        assertEquals(events, calls());
+        assertEquals(0, dispatcher.getDelayedCount(NormalEvent.class));
+        assertEquals(0, dispatcher.getTotalShedCount());
+    }
+
+    @Test
+    public void drainOnRejection() {
+        final AtomicInteger accepted = new AtomicInteger();
+        Executor rejecting = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (accepted.getAndIncrement() > 0) {
+                    throw new RejectedExecutionException();
+                }
+                executor.execute(command);
+            }
+        };
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, rejecting, 1000000, new AdmissionPolicy(Priority.NORMAL, 1000000, SheddingPolicy.DROP_NEWEST));
+        List<Event<?>> events = submit(dispatcher, 200000);
+        // The first batch runs from the executor, all later ones on the same thread once rescheduling is rejected
+        executor.runAll();
+        assertEquals(events, calls());
+        assertEquals(0, dispatcher.getBacklog());
+        assertTrue(dispatcher.submit(new NormalEvent(0)));
+        assertEquals(events.size() + 1, called.size());
+    }
+
+    @Test
+    public void inOrderPerType() throws InterruptedException {
+        final ConcurrentHashMap<Class<?>, AtomicInteger> inside = new ConcurrentHashMap<>();
+        inside.put(NormalEvent.class, new AtomicInteger());
+        inside.put(OtherEvent.class, new AtomicInteger());
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(20000);
+        EventExecutor serial = new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                if (inside.get(event.getClass()).incrementAndGet() != 1) {
+                    overlaps.incrementAndGet();
+                }
+                Thread.yield();
+                inside.get(event.getClass()).decrementAndGet();
+                done.countDown();
+            }
+        };
+        manager.registerEvent(NormalEvent.class, Order.LATE, serial, this);
+        manager.registerEvent(OtherEvent.class, Order.LATE, serial, this);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(manager, pool, 100000, new AdmissionPolicy(Priority.NORMAL, 100000, SheddingPolicy.DROP_NEWEST));
+            List<Event<?>> normal = new ArrayList<>();
+            List<Event<?>> other = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                normal.add(new NormalEvent(i));
+                other.add(new OtherEvent());
+                assertTrue(dispatcher.submit(normal.get(i)));
+                assertTrue(dispatcher.submit(other.get(i)));
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            List<Event<?>> calledNormal = new ArrayList<>();
+            List<Event<?>> calledOther = new ArrayList<>();
+            for (Event<?> event : called) {
+                (event instanceof NormalEvent ? calledNormal : calledOther).add(event);
+            }
+            assertEquals(normal, calledNormal);
+            assertEquals(other, calledOther);
+            assertEquals(0, overlaps.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<Event<?>> submit(AsyncEventDispatcher dispatcher, int count) {
+        List<Event<?>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            NormalEvent event = new NormalEvent(i);
+            events.add(event);
+            dispatcher.submit(event);
+        }
+        return events;
+    }
+
+    private List<Event<?>> calls() {
+        return new ArrayList<>(called);
+    }
+
+    /**
+     * Holds the submitted tasks until they are run by the test.
+     */
+    private static class HeldExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    public static class NormalEvent extends SimpleEvent {
+        private final int sequence;
+
+        public NormalEvent(int sequence) {
+            this.sequence = sequence;
+        }
+
+        @Override
+        public String toString() {
+            return "NormalEvent " + sequence;
+        }
+    }
+
+    public static class OtherEvent extends SimpleEvent {
+    }
+}
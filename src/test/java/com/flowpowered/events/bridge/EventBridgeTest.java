@@ -0,0 +1,520 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.Order;
+import com.flowpowered.events.SimpleEvent;
+import com.flowpowered.events.SimpleEventManager;
+import com.flowpowered.events.serialization.EventSerializer;
+import com.flowpowered.events.serialization.SerializerRegistry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Connects bridges over loopback and socket transports, or a transport that only captures the batches, and checks what arrives on the other side.
+ */
+public class EventBridgeTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void batchDefinesEachTypeOnce() throws IOException, InterruptedException {
+        CapturingTransport transport = new CapturingTransport();
+        SimpleEventManager manager = new SimpleEventManager();
+        EventBridge bridge = new EventBridge(manager, serializers(), transport, 7);
+        bridge.distribute(ValueEvent.class);
+        bridge.distribute(OtherEvent.class);
+        bridge.start();
+        manager.callEvent(new ValueEvent(1));
+        manager.callEvent(new OtherEvent());
+        manager.callEvent(new ValueEvent(2));
+        bridge.flush();
+        ByteBuffer batch = transport.next();
+        assertEquals(7, batch.getLong());
+        assertEquals(3, batch.getInt());
+        assertTypeDefinition(ValueEvent.class, batch);
+        assertEquals(4, batch.getInt());
+        assertEquals(1, batch.getInt());
+        assertTypeDefinition(OtherEvent.class, batch);
+        assertEquals(4, batch.getInt());
+        batch.getInt();
+        assertEquals(0, batch.getInt());
+        assertEquals(4, batch.getInt());
+        assertEquals(2, batch.getInt());
+        assertEquals(0, batch.remaining());
+
+        // Every batch defines its types anew
+        manager.callEvent(new ValueEvent(3));
+        bridge.flush();
+        batch = transport.next();
+        batch.position(12);
+        assertTypeDefinition(ValueEvent.class, batch);
+        bridge.close();
+        assertEquals(4, bridge.getSentCount());
+    }
+
+    @Test
+    public void batchesBySizeAndFlush() throws IOException, InterruptedException {
+        CapturingTransport transport = new CapturingTransport();
+        SimpleEventManager manager = new SimpleEventManager();
+        EventBridge bridge = new EventBridge(manager, serializers(), transport, 7, 3, 1024);
+        bridge.distribute(ValueEvent.class);
+        bridge.start();
+        for (int i = 0; i < 7; i++) {
+            manager.callEvent(new ValueEvent(i));
+        }
+        assertEquals(3, transport.next().getInt(8));
+        assertEquals(3, transport.next().getInt(8));
+        assertNull(transport.batches.poll(50, TimeUnit.MILLISECONDS));
+        bridge.flush();
+        assertEquals(1, transport.next().getInt(8));
+        // Nothing to send
+        bridge.flush();
+        bridge.close();
+        assertNull(transport.batches.poll());
+        assertEquals(7, bridge.getSentCount());
+    }
+
+    @Test
+    public void subclassOfDistributedTypeIsForwardedOnce() throws IOException, InterruptedException {
+        SerializerRegistry serializers = serializers();
+        serializers.register(SubValueEvent.class, new EventSerializer<SubValueEvent>() {
+            @Override
+            public void write(SubValueEvent event, ByteBuffer buffer) {
+                buffer.putInt(((ValueEvent) event).value);
+            }
+
+            @Override
+            public SubValueEvent read(ByteBuffer buffer) {
+                return new SubValueEvent(buffer.getInt());
+            }
+        });
+        for (boolean baseFirst : new boolean[] {true, false}) {
+            CapturingTransport transport = new CapturingTransport();
+            SimpleEventManager manager = new SimpleEventManager();
+            EventBridge bridge = new EventBridge(manager, serializers, transport, 7);
+            if (baseFirst) {
+                bridge.distribute(ValueEvent.class);
+                bridge.distribute(SubValueEvent.class);
+            } else {
+                bridge.distribute(SubValueEvent.class);
+                bridge.distribute(ValueEvent.class);
+            }
+            bridge.distribute(ValueEvent.class);
+            bridge.start();
+            manager.callEvent(new SubValueEvent(1));
+            manager.callEvent(new ValueEvent(2));
+            bridge.flush();
+            ByteBuffer batch = transport.next();
+            assertEquals(2, batch.getInt(8));
+            batch.position(12);
+            assertTypeDefinition(SubValueEvent.class, batch);
+            bridge.close();
+            assertNull(transport.batches.poll());
+            assertEquals(2, bridge.getSentCount());
+        }
+    }
+
+    @Test
+    public void cancelledEventsAreNotForwarded() throws IOException, InterruptedException {
+        CapturingTransport transport = new CapturingTransport();
+        SimpleEventManager manager = new SimpleEventManager();
+        EventBridge bridge = new EventBridge(manager, serializers(), transport, 7);
+        bridge.distribute(ValueEvent.class);
+        manager.registerEvent(ValueEvent.class, Order.LATEST, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                ((ValueEvent) event).setCancelled(((ValueEvent) event).value < 0);
+            }
+        }, this);
+        bridge.start();
+        manager.callEvent(new ValueEvent(-1));
+        manager.callEvent(new ValueEvent(1));
+        bridge.flush();
+        assertEquals(1, transport.next().getInt(8));
+        bridge.close();
+    }
+
+    @Test
+    public void loopbackReachesEveryOtherTransport() throws IOException, InterruptedException {
+        LoopbackTransport.Hub hub = new LoopbackTransport.Hub();
+        List<BlockingQueue<ByteBuffer>> received = new ArrayList<>();
+        List<LoopbackTransport> transports = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final BlockingQueue<ByteBuffer> queue = new LinkedBlockingQueue<>();
+            LoopbackTransport transport = new LoopbackTransport(hub);
+            transport.start(new EventTransport.Receiver() {
+                @Override
+                public void receive(ByteBuffer batch) {
+                    queue.add(batch);
+                }
+            });
+            received.add(queue);
+            transports.add(transport);
+        }
+        transports.get(0).send(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        assertNull(received.get(0).poll());
+        assertEquals(3, received.get(1).poll().remaining());
+        assertEquals(3, received.get(2).poll().remaining());
+
+        transports.get(2).close();
+        transports.get(1).send(ByteBuffer.wrap(new byte[] {4}));
+        assertEquals(4, received.get(0).poll().get());
+        assertNull(received.get(2).poll());
+    }
+
+    @Test
+    public void receivedEventsAreNotForwardedBack() throws IOException, InterruptedException {
+        LoopbackTransport.Hub hub = new LoopbackTransport.Hub();
+        Node a = new Node(new LoopbackTransport(hub), 1, serializers());
+        final Node b = new Node(new LoopbackTransport(hub), 2, serializers());
+        // Events fired by the handlers of a received event are forwarded as usual
+        b.manager.registerEvent(ValueEvent.class, Order.DEFAULT, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                b.manager.callEvent(new OtherEvent());
+            }
+        }, this);
+        a.manager.callEvent(new ValueEvent(5));
+        a.bridge.flush();
+        assertEquals(ValueEvent.class, a.next().getClass());
+        assertEquals(OtherEvent.class, b.next().getClass());
+        assertEquals(5, ((ValueEvent) b.next()).value);
+        b.bridge.flush();
+        assertEquals(OtherEvent.class, a.next().getClass());
+
+        a.bridge.close();
+        b.bridge.close();
+        assertEquals(1, a.bridge.getSentCount());
+        assertEquals(1, a.bridge.getReceivedCount());
+        assertEquals(1, b.bridge.getSentCount());
+        assertEquals(1, b.bridge.getReceivedCount());
+        assertNull(a.events.poll());
+        assertNull(b.events.poll());
+    }
+
+    @Test
+    public void unknownAndUnreadableEventsAreDropped() throws IOException, InterruptedException {
+        LoopbackTransport.Hub hub = new LoopbackTransport.Hub();
+        Node a = new Node(new LoopbackTransport(hub), 1, serializers());
+        SerializerRegistry valuesOnly = new SerializerRegistry();
+        valuesOnly.register(ValueEvent.class, new ValueSerializer());
+        Node b = new Node(new LoopbackTransport(hub), 2, valuesOnly);
+
+        a.manager.callEvent(new ValueEvent(1));
+        a.manager.callEvent(new OtherEvent());
+        a.manager.callEvent(new ValueEvent(ValueSerializer.UNREADABLE));
+        a.manager.callEvent(new OtherEvent());
+        a.manager.callEvent(new ValueEvent(2));
+        a.bridge.flush();
+        assertEquals(1, ((ValueEvent) b.next()).value);
+        assertEquals(2, ((ValueEvent) b.next()).value);
+
+        a.bridge.close();
+        b.bridge.close();
+        assertEquals(5, a.bridge.getSentCount());
+        assertEquals(2, b.bridge.getReceivedCount());
+        assertEquals(3, b.bridge.getDroppedCount());
+        assertNull(b.events.poll());
+    }
+
+    @Test
+    public void socketRoundTrip() throws IOException, InterruptedException {
+        InetSocketAddress addressA = freeAddress();
+        InetSocketAddress addressB = freeAddress();
+        Node a = new Node(new SocketTransport(addressA, Collections.singletonList(addressB)), 1, serializers());
+        Node b = new Node(new SocketTransport(addressB, Collections.singletonList(addressA)), 2, serializers());
+        for (int i = 0; i < 100; i++) {
+            a.manager.callEvent(new ValueEvent(i));
+        }
+        a.bridge.flush();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, ((ValueEvent) a.next()).value);
+            assertEquals(i, ((ValueEvent) b.next()).value);
+        }
+        b.manager.callEvent(new OtherEvent());
+        b.bridge.flush();
+        assertEquals(OtherEvent.class, a.next().getClass());
+        a.bridge.close();
+        b.bridge.close();
+        assertEquals(100, b.bridge.getReceivedCount());
+        assertEquals(1, a.bridge.getReceivedCount());
+        assertEquals(0, a.bridge.getDroppedCount());
+    }
+
+    @Test
+    public void mappedRingRoundTrip() throws IOException, InterruptedException {
+        File directory = File.createTempFile("rings", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        File fileA = new File(directory, "a.ring");
+        File fileB = new File(directory, "b.ring");
+        // b subscribes to the ring of a before it exists
+        Node b = new Node(new MappedRingTransport(fileB, Collections.singletonList(fileA), 64 * 1024), 2, serializers());
+        Node a = new Node(new MappedRingTransport(fileA, Collections.singletonList(fileB), 64 * 1024), 1, serializers());
+        try {
+            // Rings are read from the position they were opened at, so send until b has opened the ring of a
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            Event<?> heard = null;
+            while (heard == null && System.nanoTime() < deadline) {
+                a.manager.callEvent(new OtherEvent());
+                a.bridge.flush();
+                heard = b.events.poll(10, TimeUnit.MILLISECONDS);
+            }
+            assertNotNull(heard);
+            for (int i = 0; i < 100; i++) {
+                a.manager.callEvent(new ValueEvent(i));
+            }
+            a.bridge.flush();
+            for (int i = 0; i < 100; i++) {
+                Event<?> event;
+                do {
+                    event = b.next();
+                } while (event instanceof OtherEvent);
+                assertEquals(i, ((ValueEvent) event).value);
+            }
+        } finally {
+            a.bridge.close();
+            b.bridge.close();
+            for (File file : directory.listFiles()) {
+                assertTrue(file.delete());
+            }
+            assertTrue(directory.delete());
+        }
+        assertEquals(0, a.bridge.getDroppedCount());
+        assertEquals(0, b.bridge.getDroppedCount());
+    }
+
+    @Test
+    public void socketPeerDownDoesNotDropTheBatch() throws IOException, InterruptedException {
+        InetSocketAddress addressA = freeAddress();
+        InetSocketAddress addressB = freeAddress();
+        InetSocketAddress down = freeAddress();
+        Node a = new Node(new SocketTransport(addressA, Arrays.asList(down, addressB)), 1, serializers());
+        Node b = new Node(new SocketTransport(addressB, Collections.singletonList(addressA)), 2, serializers());
+        for (int i = 0; i < 3; i++) {
+            a.manager.callEvent(new ValueEvent(i));
+            a.bridge.flush();
+            assertEquals(i, ((ValueEvent) b.next()).value);
+        }
+        a.bridge.close();
+        b.bridge.close();
+        // Every batch reached one of the two peers
+        assertEquals(3, a.bridge.getSentCount());
+        assertEquals(0, a.bridge.getDroppedCount());
+    }
+
+    @Test
+    public void socketRetriesFailedPeerAfterDelay() throws IOException, InterruptedException {
+        InetSocketAddress bind = freeAddress();
+        InetSocketAddress peer = freeAddress();
+        ByteBuffer batch = ByteBuffer.wrap(new byte[] {1, 2, 3});
+        SocketTransport patient = new SocketTransport(bind, Collections.singletonList(peer), 1000, 60000);
+        SocketTransport eager = new SocketTransport(bind, Collections.singletonList(peer), 1000, 50);
+        assertSendFails(patient, batch);
+        assertSendFails(eager, batch);
+        try (ServerSocket server = new ServerSocket()) {
+            server.setReuseAddress(true);
+            server.bind(peer);
+            server.setSoTimeout(200);
+            // Still waiting for its retry delay, so the peer is not even tried
+            assertSendFails(patient, batch);
+            try {
+                server.accept().close();
+                fail();
+            } catch (SocketTimeoutException expected) {
+            }
+            Thread.sleep(200);
+            eager.send(batch);
+            server.setSoTimeout(5000);
+            server.accept().close();
+        } finally {
+            patient.close();
+            eager.close();
+        }
+    }
+
+    private static void assertSendFails(EventTransport transport, ByteBuffer batch) {
+        try {
+            transport.send(batch);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void assertTypeDefinition(Class<?> type, ByteBuffer batch) {
+        assertEquals(-1, batch.getInt());
+        byte[] name = new byte[batch.getShort()];
+        batch.get(name);
+        assertEquals(type.getName(), new String(name, UTF_8));
+    }
+
+    private static InetSocketAddress freeAddress() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+        }
+    }
+
+    private static SerializerRegistry serializers() {
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(ValueEvent.class, new ValueSerializer());
+        serializers.register(OtherEvent.class, new EventSerializer<OtherEvent>() {
+            @Override
+            public void write(OtherEvent event, ByteBuffer buffer) {
+                buffer.putInt(0);
+            }
+
+            @Override
+            public OtherEvent read(ByteBuffer buffer) {
+                buffer.getInt();
+                return new OtherEvent();
+            }
+        });
+        return serializers;
+    }
+
+    /**
+     * A manager with a bridge distributing the event types it has serializers for, and a listener collecting the events heard.
+     */
+    private static class Node {
+        private final SimpleEventManager manager = new SimpleEventManager();
+        private final EventBridge bridge;
+        private final BlockingQueue<Event<?>> events = new LinkedBlockingQueue<>();
+
+        private Node(EventTransport transport, long nodeId, SerializerRegistry serializers) throws IOException {
+            bridge = new EventBridge(manager, serializers, transport, nodeId);
+            EventExecutor collector = new EventExecutor() {
+                @Override
+                public void execute(Event<?> event) {
+                    events.add(event);
+                }
+            };
+            if (serializers.contains(ValueEvent.class)) {
+                bridge.distribute(ValueEvent.class);
+            }
+            if (serializers.contains(OtherEvent.class)) {
+                bridge.distribute(OtherEvent.class);
+            }
+            // After the forwarder, so an event that has been heard is already in the batch
+            manager.registerEvent(ValueEvent.class, Order.MONITOR, collector, this);
+            manager.registerEvent(OtherEvent.class, Order.MONITOR, collector, this);
+            bridge.start();
+        }
+
+        private Event<?> next() throws InterruptedException {
+            Event<?> event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            return event;
+        }
+    }
+
+    private static class CapturingTransport implements EventTransport {
+        private final BlockingQueue<ByteBuffer> batches = new LinkedBlockingQueue<>();
+
+        @Override
+        public void start(Receiver receiver) {
+        }
+
+        @Override
+        public void send(ByteBuffer batch) {
+            ByteBuffer copy = ByteBuffer.allocate(batch.remaining());
+            copy.put(batch.duplicate()).flip();
+            batches.add(copy);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private ByteBuffer next() throws InterruptedException {
+            ByteBuffer batch = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            return batch;
+        }
+    }
+
+    public static class ValueEvent extends SimpleEvent {
+        private static final int UNREADABLE = Integer.MIN_VALUE;
+        private final int value;
+
+        public ValueEvent(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public void setCancelled(boolean cancelled) {
+            super.setCancelled(cancelled);
+        }
+    }
+
+    public static class SubValueEvent extends ValueEvent {
+        public SubValueEvent(int value) {
+            super(value);
+        }
+    }
+
+    public static class OtherEvent extends SimpleEvent {
+    }
+
+    private static class ValueSerializer implements EventSerializer<ValueEvent> {
+        private static final int UNREADABLE = ValueEvent.UNREADABLE;
+
+        @Override
+        public void write(ValueEvent event, ByteBuffer buffer) {
+            buffer.putInt(event.value);
+        }
+
+        @Override
+        public ValueEvent read(ByteBuffer buffer) {
+            int value = buffer.getInt();
+            if (value == UNREADABLE) {
+                throw new IllegalStateException("Unreadable event");
+            }
+            return new ValueEvent(value);
+        }
+    }
+}
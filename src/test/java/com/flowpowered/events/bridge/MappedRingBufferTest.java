@@ -0,0 +1,183 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Publishes records of varying sizes through a small ring, so that they wrap around its end many times, and checks what a consumer reads back.
+ */
+public class MappedRingBufferTest {
+    private static final int CAPACITY = 1024;
+    private File file;
+    private MappedRingBuffer producer;
+    private MappedRingBuffer consumer;
+
+    @Before
+    public void open() throws IOException {
+        file = File.createTempFile("ring", ".bin");
+        producer = MappedRingBuffer.create(file, CAPACITY);
+        consumer = MappedRingBuffer.open(file);
+    }
+
+    @After
+    public void close() throws IOException {
+        consumer.close();
+        producer.close();
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void wrapAroundTheEnd() {
+        for (int sequence = 0; sequence < 10000; sequence++) {
+            assertTrue(producer.publish(record(sequence, sequence % 50)));
+            if (sequence % 3 == 2) {
+                for (int expected = sequence - 2; expected <= sequence; expected++) {
+                    assertRecord(expected, expected % 50, consumer.poll());
+                }
+                assertNull(consumer.poll());
+            }
+        }
+        assertEquals(0, consumer.getLostCount());
+    }
+
+    @Test
+    public void largestRecord() {
+        int largest = producer.getMaxRecordSize();
+        assertFalse(producer.publish(ByteBuffer.allocate(largest + 1)));
+        for (int sequence = 0; sequence < 100; sequence++) {
+            assertTrue(producer.publish(record(sequence, sequence % 2 == 0 ? largest - 4 : 0)));
+            assertRecord(sequence, sequence % 2 == 0 ? largest - 4 : 0, consumer.poll());
+        }
+        assertNull(consumer.poll());
+        assertEquals(0, consumer.getLostCount());
+    }
+
+    @Test
+    public void overrunSkipsToTheLatestRecords() {
+        for (int sequence = 0; sequence < 100; sequence++) {
+            producer.publish(record(sequence, 12));
+        }
+        // The consumer fell more than a ring behind, everything it missed is dropped
+        assertNull(consumer.poll());
+        assertEquals(1, consumer.getLostCount());
+        for (int sequence = 100; sequence < 104; sequence++) {
+            producer.publish(record(sequence, 12));
+        }
+        for (int sequence = 100; sequence < 104; sequence++) {
+            assertRecord(sequence, 12, consumer.poll());
+        }
+        assertNull(consumer.poll());
+    }
+
+    @Test
+    public void recordsTheNextWriteMayOverwriteAreDropped() {
+        // Close to the end of the ring, the next record of the producer may start over at the beginning of the ring
+        for (int sequence = 0; sequence < 40; sequence++) {
+            producer.publish(record(sequence, 12));
+        }
+        assertNull(consumer.poll());
+        assertEquals(1, consumer.getLostCount());
+        for (int sequence = 40; sequence < 44; sequence++) {
+            producer.publish(record(sequence, 12));
+        }
+        for (int sequence = 40; sequence < 44; sequence++) {
+            assertRecord(sequence, 12, consumer.poll());
+        }
+        assertNull(consumer.poll());
+    }
+
+    @Test
+    public void concurrentConsumerNeverSeesTornRecords() throws Exception {
+        final int count = 200000;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int sequence = 0; sequence < count; sequence++) {
+                    producer.publish(record(sequence, sequence % 200));
+                    if (sequence % 16 == 0) {
+                        Thread.yield();
+                    }
+                }
+                producer.publish(record(-1, 0));
+            }
+        });
+        thread.start();
+        int previous = -1;
+        int read = 0;
+        while (true) {
+            ByteBuffer record = consumer.poll();
+            if (record == null) {
+                if (!thread.isAlive() && (record = consumer.poll()) == null) {
+                    break;
+                }
+                if (record == null) {
+                    Thread.yield();
+                    continue;
+                }
+            }
+            int sequence = record.getInt(0);
+            if (sequence == -1) {
+                break;
+            }
+            assertTrue(sequence > previous);
+            assertRecord(sequence, sequence % 200, record);
+            previous = sequence;
+            read++;
+        }
+        thread.join();
+        assertTrue(read > 0);
+    }
+
+    private static ByteBuffer record(int sequence, int padding) {
+        ByteBuffer record = ByteBuffer.allocate(4 + padding);
+        record.putInt(sequence);
+        while (record.hasRemaining()) {
+            record.put((byte) sequence);
+        }
+        record.flip();
+        return record;
+    }
+
+    private static void assertRecord(int sequence, int padding, ByteBuffer record) {
+        assertNotNull("record " + sequence, record);
+        assertEquals(4 + padding, record.remaining());
+        assertEquals(sequence, record.getInt(record.position()));
+        for (int i = record.position() + 4; i < record.limit(); i++) {
+            assertEquals((byte) sequence, record.get(i));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.bridge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Connects two transports through ring files in a temporary directory and checks what the poller of one of them hands to its receiver.<br> Consumers only see the records published after they
+ * opened a ring, so every test first sends until a record arrives, which tells that the ring has been opened.
+ */
+public class MappedRingTransportTest {
+    private static final int CAPACITY = 1024;
+    private static final byte HANDSHAKE = 0;
+    private static final byte RECORD = 1;
+    private static final byte FAILING = 2;
+    private final List<MappedRingTransport> transports = new ArrayList<>();
+    private File directory;
+    private File fileA;
+    private File fileB;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = File.createTempFile("rings", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        // Named after the directory, as pollers are named after the file they publish to
+        fileA = new File(directory, directory.getName() + "-a.ring");
+        fileB = new File(directory, directory.getName() + "-b.ring");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        for (MappedRingTransport transport : transports) {
+            transport.close();
+        }
+        for (File file : directory.listFiles()) {
+            assertTrue(file.delete());
+        }
+        assertTrue(directory.delete());
+    }
+
+    @Test
+    public void openRingOnceItExists() throws IOException, InterruptedException {
+        Collector collector = new Collector();
+        // Started before the ring it subscribes to has been created
+        transport(fileB, fileA).start(collector);
+        assertFalse(fileA.exists());
+        MappedRingTransport a = transport(fileA, fileB);
+        a.start(new Collector());
+        handshake(a, collector);
+        // Few enough to fit into the ring, even if the poller does not get to run in between
+        for (int i = 0; i < 40; i++) {
+            a.send(record(RECORD, i, 0));
+        }
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, collector.next().getInt(1));
+        }
+    }
+
+    @Test
+    public void keepPollingAfterReceiverFailure() throws IOException, InterruptedException {
+        final Collector collector = new Collector();
+        MappedRingTransport a = transport(fileA, fileB);
+        a.start(new Collector());
+        transport(fileB, fileA).start(new EventTransport.Receiver() {
+            @Override
+            public void receive(ByteBuffer batch) {
+                if (batch.get(0) == FAILING) {
+                    throw new IllegalStateException("Failing on purpose");
+                }
+                collector.receive(batch);
+            }
+        });
+        handshake(a, collector);
+        a.send(record(FAILING, 1, 0));
+        a.send(record(RECORD, 2, 0));
+        assertEquals(2, collector.next().getInt(1));
+    }
+
+    @Test
+    public void countBatchesMissedBySlowReceiver() throws IOException, InterruptedException {
+        final Collector collector = new Collector();
+        final CountDownLatch release = new CountDownLatch(1);
+        MappedRingTransport a = transport(fileA, fileB);
+        a.start(new Collector());
+        MappedRingTransport b = transport(fileB, fileA);
+        b.start(new EventTransport.Receiver() {
+            @Override
+            public void receive(ByteBuffer batch) {
+                collector.receive(batch);
+                if (batch.get(0) == HANDSHAKE) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        handshake(a, collector);
+        // The poller is stuck in the receiver while the ring wraps around several times
+        for (int i = 0; i < 100; i++) {
+            a.send(record(RECORD, i, 100));
+        }
+        assertEquals(0, b.getLostCount());
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (b.getLostCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(b.getLostCount() > 0);
+        // Later batches arrive again
+        a.send(record(RECORD, 1000, 0));
+        while (collector.next().getInt(1) != 1000) {
+        }
+    }
+
+    @Test
+    public void sendOnlyWhileRunning() throws IOException {
+        MappedRingTransport a = transport(fileA, fileB);
+        assertSendFails(a);
+        a.start(new Collector());
+        a.send(record(RECORD, 1, 0));
+        // Larger than a quarter of the ring
+        try {
+            a.send(record(RECORD, 2, CAPACITY / 4));
+            fail();
+        } catch (IOException expected) {
+        }
+        a.close();
+        assertSendFails(a);
+    }
+
+    @Test
+    public void closeStopsPoller() throws IOException, InterruptedException {
+        Collector collector = new Collector();
+        MappedRingTransport a = transport(fileA, fileB);
+        a.start(new Collector());
+        MappedRingTransport b = transport(fileB, fileA);
+        b.start(collector);
+        handshake(a, collector);
+        b.close();
+        assertNull(findPoller(fileB));
+        a.send(record(RECORD, 1, 0));
+        Thread.sleep(50);
+        assertNull(collector.batches.poll());
+    }
+
+    private MappedRingTransport transport(File publish, File subscribe) {
+        MappedRingTransport transport = new MappedRingTransport(publish, Collections.singletonList(subscribe), CAPACITY);
+        transports.add(transport);
+        return transport;
+    }
+
+    /**
+     * Sends handshakes until one reaches the collector.
+     */
+    private static void handshake(MappedRingTransport transport, Collector collector) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            transport.send(record(HANDSHAKE, 0, 0));
+            if (collector.opened.await(10, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+        fail("The ring was never opened");
+    }
+
+    private static ByteBuffer record(byte kind, int value, int padding) {
+        ByteBuffer record = ByteBuffer.allocate(5 + padding);
+        record.put(kind).putInt(value);
+        record.position(0);
+        return record;
+    }
+
+    private static void assertSendFails(MappedRingTransport transport) {
+        try {
+            transport.send(record(RECORD, 0, 0));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    private static Thread findPoller(File file) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("MappedRingTransport poller " + file.getName())) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies the batches it receives, as they are only valid during the call. Handshakes are only noted.
+     */
+    private static class Collector implements EventTransport.Receiver {
+        private final BlockingQueue<ByteBuffer> batches = new LinkedBlockingQueue<>();
+        private final CountDownLatch opened = new CountDownLatch(1);
+
+        @Override
+        public void receive(ByteBuffer batch) {
+            if (batch.get(batch.position()) == HANDSHAKE) {
+                opened.countDown();
+                return;
+            }
+            ByteBuffer copy = ByteBuffer.allocate(batch.remaining());
+            copy.put(batch.duplicate()).flip();
+            batches.add(copy);
+        }
+
+        private ByteBuffer next() throws InterruptedException {
+            ByteBuffer batch = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.events.Event;
+import com.flowpowered.events.EventExecutor;
+import com.flowpowered.events.Order;
+import com.flowpowered.events.SimpleEvent;
+import com.flowpowered.events.SimpleEventManager;
+import com.flowpowered.events.serialization.EventSerializer;
+import com.flowpowered.events.serialization.SerializerRegistry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Writes events to a journal with small regions, so that records keep running into region boundaries, and reads or replays them back.
+ */
+public class EventJournalTest {
+    private static final int REGION_SIZE = 4096;
+    private File file;
+    private SerializerRegistry serializers;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("journal", ".bin");
+        serializers = new SerializerRegistry();
+        serializers.register(ValueEvent.class, new ValueSerializer());
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void readBackAcrossRegions() throws IOException {
+        EventJournal journal = new EventJournal(file, serializers, REGION_SIZE);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(journal.append(new ValueEvent(i, i % 700)));
+        }
+        assertFalse(journal.append(new OtherEvent()));
+        assertEquals(5000, journal.getWrittenCount());
+        assertEquals(1, journal.getSkippedCount());
+        journal.close();
+        assertTrue(file.length() > 5000L * 300);
+
+        try (EventJournalReader reader = new EventJournalReader(file, serializers)) {
+            long timestamp = -1;
+            for (int i = 0; i < 5000; i++) {
+                ValueEvent event = (ValueEvent) reader.next();
+                assertEquals(i, event.value);
+                assertEquals(i % 700, event.padding);
+                assertTrue(reader.getTimestamp() >= timestamp);
+                timestamp = reader.getTimestamp();
+            }
+            assertNull(reader.next());
+            assertEquals(0, reader.getSkippedCount());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void recordLargerThanRegion() throws IOException {
+        try (EventJournal journal = new EventJournal(file, serializers, REGION_SIZE)) {
+            journal.append(new ValueEvent(0, REGION_SIZE));
+        }
+    }
+
+    @Test
+    public void failedSerializerLeavesNothingBehind() throws IOException {
+        try (EventJournal journal = new EventJournal(file, serializers, REGION_SIZE)) {
+            journal.append(new ValueEvent(1, 0));
+            try {
+                journal.append(new ValueEvent(-1, 200));
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+            journal.append(new ValueEvent(2, 0));
+            journal.append(new ValueEvent(3, 10));
+            assertEquals(3, journal.getWrittenCount());
+        }
+        try (EventJournalReader reader = new EventJournalReader(file, serializers)) {
+            assertEquals(1, ((ValueEvent) reader.next()).value);
+            assertEquals(2, ((ValueEvent) reader.next()).value);
+            assertEquals(3, ((ValueEvent) reader.next()).value);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void readerSkipsTypesWithoutSerializer() throws IOException {
+        SerializerRegistry both = new SerializerRegistry();
+        both.register(ValueEvent.class, new ValueSerializer());
+        both.register(OtherEvent.class, new EventSerializer<OtherEvent>() {
+            @Override
+            public void write(OtherEvent event, ByteBuffer buffer) {
+                buffer.putLong(-1);
+            }
+
+            @Override
+            public OtherEvent read(ByteBuffer buffer) {
+                buffer.getLong();
+                return new OtherEvent();
+            }
+        });
+        try (EventJournal journal = new EventJournal(file, both, REGION_SIZE)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(new ValueEvent(i, 0));
+                journal.append(new OtherEvent());
+            }
+        }
+        try (EventJournalReader reader = new EventJournalReader(file, serializers)) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, ((ValueEvent) reader.next()).value);
+            }
+            assertNull(reader.next());
+            assertEquals(100, reader.getSkippedCount());
+        }
+    }
+
+    @Test
+    public void recordAndReplay() throws IOException {
+        final List<Integer> recorded = new ArrayList<>();
+        SimpleEventManager original = new SimpleEventManager();
+        original.registerEvent(ValueEvent.class, Order.DEFAULT, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                ValueEvent value = (ValueEvent) event;
+                recorded.add(value.value);
+                // Changes made by listeners are not recorded
+                value.value = -1;
+            }
+        }, this);
+        try (EventJournal journal = new EventJournal(file, serializers, REGION_SIZE)) {
+            RecordingEventManager recording = new RecordingEventManager(original, journal);
+            for (int i = 0; i < 1000; i++) {
+                recording.callEvent(new ValueEvent(i, i % 50));
+                recording.callEvent(new OtherEvent());
+            }
+            recording.setRecording(false);
+            recording.callEvent(new ValueEvent(1000, 0));
+            assertEquals(1000, journal.getWrittenCount());
+        }
+        assertEquals(1001, recorded.size());
+
+        final List<Integer> replayed = new ArrayList<>();
+        SimpleEventManager replay = new SimpleEventManager();
+        replay.registerEvent(ValueEvent.class, Order.DEFAULT, new EventExecutor() {
+            @Override
+            public void execute(Event<?> event) {
+                replayed.add(((ValueEvent) event).value);
+            }
+        }, this);
+        try (EventJournalReader reader = new EventJournalReader(file, serializers)) {
+            JournalReplayer.ReplayResult result = new JournalReplayer(replay).replay(reader, 0);
+            assertEquals(1000, result.getEventCount());
+        }
+        assertEquals(recorded.subList(0, 1000), replayed);
+    }
+
+    public static class ValueEvent extends SimpleEvent {
+        private int value;
+        private final int padding;
+
+        public ValueEvent(int value, int padding) {
+            this.value = value;
+            this.padding = padding;
+        }
+    }
+
+    public static class OtherEvent extends SimpleEvent {
+    }
+
+    private static class ValueSerializer implements EventSerializer<ValueEvent> {
+        @Override
+        public void write(ValueEvent event, ByteBuffer buffer) {
+            buffer.putInt(event.value).putInt(event.padding);
+            for (int i = 0; i < event.padding; i++) {
+                buffer.put((byte) event.value);
+            }
+            if (event.value < 0) {
+                throw new IllegalStateException("Cannot serialize " + event.value);
+            }
+        }
+
+        @Override
+        public ValueEvent read(ByteBuffer buffer) {
+            ValueEvent event = new ValueEvent(buffer.getInt(), buffer.getInt());
+            for (int i = 0; i < event.padding; i++) {
+                assertEquals((byte) event.value, buffer.get());
+            }
+            return event;
+        }
+    }
+}
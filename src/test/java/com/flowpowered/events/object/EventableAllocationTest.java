@@ -0,0 +1,61 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.object;
+
+import org.junit.Test;
+
+import com.flowpowered.events.AllocationMeter;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link EventableBase#callEvent(ObjectEvent)} allocates nothing besides what the listeners allocate.
+ */
+public class EventableAllocationTest {
+    @Test
+    public void callEvent() {
+        final EventableBase<ObjectEvent<String>> eventable = new EventableBase<>();
+        final CountingListener listener = new CountingListener();
+        eventable.registerListener(listener);
+        eventable.registerListener(new CountingListener());
+        final ObjectEvent<String> event = new ObjectEvent<>("test");
+        long allocated = AllocationMeter.measure(new Runnable() {
+            @Override
+            public void run() {
+                eventable.callEvent(event);
+            }
+        });
+        assertTrue("EventableBase.callEvent allocated " + allocated + " bytes in " + AllocationMeter.CALLS + " calls", allocated <= AllocationMeter.BUDGET);
+        assertTrue(listener.calls > 0);
+    }
+
+    private static class CountingListener implements EventableListener<ObjectEvent<String>> {
+        private int calls = 0;
+
+        @Override
+        public void onEvent(ObjectEvent<String> event) {
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * This file is part of Flow Events, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Spout LLC <https://spout.org/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.events.reactive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.flowpowered.events.SimpleEvent;
+import com.flowpowered.events.SimpleEventManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Subscribes recording subscribers to a publisher and checks which events reach them for the demand they signal and the overflow strategy they use.
+ */
+public class EventPublisherTest {
+    private final SimpleEventManager manager = new SimpleEventManager();
+    private final EventPublisher<ValueEvent> publisher = new EventPublisher<>(manager, ValueEvent.class, OverflowStrategy.DROP_NEWEST);
+
+    @Test
+    public void deliverOnlyWhatWasRequested() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        call(0, 5);
+        assertEquals(values(), subscriber.values());
+        subscriber.subscription.request(2);
+        assertEquals(values(0, 1), subscriber.values());
+        subscriber.subscription.request(1);
+        call(5, 6);
+        assertEquals(values(0, 1, 2), subscriber.values());
+        subscriber.subscription.request(10);
+        assertEquals(values(0, 1, 2, 3, 4, 5), subscriber.values());
+        // The rest of the demand is used up by events called later
+        call(6, 20);
+        assertEquals(13, subscriber.values().size());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        call(20, 30);
+        assertEquals(30, subscriber.values().size());
+        assertEquals(0, publisher.getDroppedCount());
+    }
+
+    @Test
+    public void subscribedBeforeFirstEvent() {
+        final List<String> signals = new ArrayList<>();
+        call(0, 3);
+        publisher.subscribe(new Subscriber<ValueEvent>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                signals.add("subscribe");
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ValueEvent event) {
+                signals.add("next " + event.value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                signals.add("error");
+            }
+
+            @Override
+            public void onComplete() {
+                signals.add("complete");
+            }
+        });
+        call(3, 5);
+        publisher.close();
+        call(5, 6);
+        assertEquals(Arrays.asList("subscribe", "next 3", "next 4", "complete"), signals);
+    }
+
+    @Test
+    public void nonPositiveRequestIsAnError() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        call(0, 3);
+        assertEquals(values(), subscriber.values());
+    }
+
+    @Test
+    public void overflowPerSubscriber() {
+        RecordingSubscriber newest = new RecordingSubscriber(0);
+        RecordingSubscriber oldest = new RecordingSubscriber(0);
+        RecordingSubscriber coalesce = new RecordingSubscriber(0);
+        RecordingSubscriber larger = new RecordingSubscriber(0);
+        publisher.subscribe(newest, OverflowStrategy.DROP_NEWEST, 3);
+        publisher.subscribe(oldest, OverflowStrategy.DROP_OLDEST, 3);
+        publisher.subscribe(coalesce, OverflowStrategy.COALESCE, 3);
+        publisher.subscribe(larger);
+        call(0, 6);
+        for (RecordingSubscriber subscriber : Arrays.asList(newest, oldest, coalesce, larger)) {
+            subscriber.subscription.request(10);
+        }
+        assertEquals(values(0, 1, 2), newest.values());
+        assertEquals(values(3, 4, 5), oldest.values());
+        assertEquals(values(0, 1, 5), coalesce.values());
+        assertEquals(values(0, 1, 2, 3, 4, 5), larger.values());
+        assertEquals(9, publisher.getDroppedCount());
+    }
+
+    @Test
+    public void blockUntilRequested() throws InterruptedException {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber, OverflowStrategy.BLOCK, 2);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread caller = new Thread("EventPublisherTest caller") {
+            @Override
+            public void run() {
+                call(0, 4);
+                done.countDown();
+            }
+        };
+        caller.start();
+        awaitBlocked(caller);
+        subscriber.subscription.request(1);
+        awaitBlocked(caller);
+        assertEquals(values(0), subscriber.values());
+        subscriber.subscription.request(10);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(values(0, 1, 2, 3), subscriber.values());
+        assertEquals(0, publisher.getDroppedCount());
+    }
+
+    @Test
+    public void closeReleasesBlockedCallers() throws InterruptedException {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber, OverflowStrategy.BLOCK, 1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread caller = new Thread("EventPublisherTest caller") {
+            @Override
+            public void run() {
+                call(0, 2);
+                done.countDown();
+            }
+        };
+        caller.start();
+        awaitBlocked(caller);
+        publisher.close();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, publisher.getDroppedCount());
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        assertEquals(values(0), subscriber.values());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void cancel() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        call(0, 2);
+        subscriber.subscription.cancel();
+        call(2, 4);
+        subscriber.subscription.request(1);
+        assertEquals(values(0, 1), subscriber.values());
+
+        // Cancelling right away never delivers anything
+        final List<ValueEvent> received = new ArrayList<>();
+        publisher.subscribe(new RecordingSubscriber(0) {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(10);
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(ValueEvent event) {
+                received.add(event);
+            }
+        });
+        call(4, 6);
+        assertTrue(received.isEmpty());
+        publisher.close();
+        assertFalse(subscriber.completed);
+    }
+
+    private void call(int from, int to) {
+        for (int i = from; i < to; i++) {
+            manager.callEvent(new ValueEvent(i));
+        }
+    }
+
+    private static List<Integer> values(Integer... values) {
+        return Arrays.asList(values);
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue("Caller did not block", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static class RecordingSubscriber implements Subscriber<ValueEvent> {
+        private final long initialRequest;
+        private final List<Integer> values = new ArrayList<>();
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed = false;
+
+        private RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(ValueEvent event) {
+            synchronized (values) {
+                values.add(event.value);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        private List<Integer> values() {
+            synchronized (values) {
+                return new ArrayList<>(values);
+            }
+        }
+    }
+
+    public static class ValueEvent extends SimpleEvent {
+        private final int value;
+
+        public ValueEvent(int value) {
+            this.value = value;
+        }
+    }
+}